@@ -17,6 +17,7 @@ import lombok.extern.java.Log;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Aspect to audit critical system operations.
@@ -68,6 +69,11 @@ public class AuditAspect {
      */
     @AfterReturning(pointcut = "@annotation(auditable)", returning = "result")
     public void auditAfterReturning(JoinPoint joinPoint, Auditable auditable, Object result) {
+        if (result instanceof CompletionStage<?> stage) {
+            // Asynchronous endpoints are audited with the value their result completes with
+            stage.thenAccept(value -> auditAfterReturning(joinPoint, auditable, value));
+            return;
+        }
         String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
         String methodName = joinPoint.getSignature().getName();
         
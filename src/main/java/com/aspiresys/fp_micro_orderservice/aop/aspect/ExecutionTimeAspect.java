@@ -11,6 +11,8 @@ import lombok.extern.java.Log;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Aspect for measuring method execution time.
@@ -43,54 +45,64 @@ public class ExecutionTimeAspect {
                     startTimestamp, operationName, className, methodName));
         }
         
-        Object result = null;
-        boolean success = true;
-        Throwable exception = null;
-        
+        Object result;
         try {
             // Execute the original method
             result = joinPoint.proceed();
-            return result;
         } catch (Throwable throwable) {
-            success = false;
-            exception = throwable;
+            report(executionTime, operationName, className, methodName, startTime, startTimestamp, throwable);
             throw throwable;
-        } finally {
-            // Calculate execution time
-            long endTime = System.currentTimeMillis();
-            long executionTimeMs = endTime - startTime;
-            String endTimestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-            
-            // Create performance log
-            StringBuilder perfLog = new StringBuilder();
-            perfLog.append("\n[PERFORMANCE-REPORT] ").append(endTimestamp);
-            perfLog.append("\n|- Operation: ").append(operationName);
-            perfLog.append("\n|- Class: ").append(className);
-            perfLog.append("\n|- Method: ").append(methodName);
-            perfLog.append("\n|- Execution Time: ").append(executionTimeMs).append(" ms");
-            perfLog.append("\n|- Status: ").append(success ? "SUCCESS" : "ERROR");
-            
-            if (executionTime.detailed()) {
-                perfLog.append("\n|- Start Time: ").append(startTimestamp);
-                perfLog.append("\n|- End Time: ").append(endTimestamp);
-                if (!success && exception != null) {
-                    perfLog.append("\n|- Exception: ").append(exception.getClass().getSimpleName());
-                }
-            }
-            
-            // Determine log level based on execution time
-            if (executionTimeMs > executionTime.warningThreshold()) {
-                perfLog.append("\n|_ WARNING: Execution time exceeded threshold (")
-                       .append(executionTime.warningThreshold()).append(" ms)");
-                log.warning(perfLog.toString());
-            } else {
-                perfLog.append("\n|_ Performance: NORMAL");
-                log.info(perfLog.toString());
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            // Asynchronous endpoints return before the work is done; they are timed until their result completes
+            stage.whenComplete((value, throwable) -> report(executionTime, operationName, className, methodName,
+                    startTime, startTimestamp, throwable instanceof CompletionException ? throwable.getCause() : throwable));
+        } else {
+            report(executionTime, operationName, className, methodName, startTime, startTimestamp, null);
+        }
+        return result;
+    }
+
+    /**
+     * Logs the execution time of a finished operation and warns when it exceeded its threshold
+     */
+    private void report(ExecutionTime executionTime, String operationName, String className, String methodName,
+                        long startTime, String startTimestamp, Throwable exception) {
+        boolean success = exception == null;
+        // Calculate execution time
+        long endTime = System.currentTimeMillis();
+        long executionTimeMs = endTime - startTime;
+        String endTimestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+        
+        // Create performance log
+        StringBuilder perfLog = new StringBuilder();
+        perfLog.append("\n[PERFORMANCE-REPORT] ").append(endTimestamp);
+        perfLog.append("\n|- Operation: ").append(operationName);
+        perfLog.append("\n|- Class: ").append(className);
+        perfLog.append("\n|- Method: ").append(methodName);
+        perfLog.append("\n|- Execution Time: ").append(executionTimeMs).append(" ms");
+        perfLog.append("\n|- Status: ").append(success ? "SUCCESS" : "ERROR");
+        
+        if (executionTime.detailed()) {
+            perfLog.append("\n|- Start Time: ").append(startTimestamp);
+            perfLog.append("\n|- End Time: ").append(endTimestamp);
+            if (!success && exception != null) {
+                perfLog.append("\n|- Exception: ").append(exception.getClass().getSimpleName());
             }
-            
-            // Additional log for metrics (could be integrated with monitoring systems)
-            logMetrics(operationName, className, methodName, executionTimeMs, success);
         }
+        
+        // Determine log level based on execution time
+        if (executionTimeMs > executionTime.warningThreshold()) {
+            perfLog.append("\n|_ WARNING: Execution time exceeded threshold (")
+                   .append(executionTime.warningThreshold()).append(" ms)");
+            log.warning(perfLog.toString());
+        } else {
+            perfLog.append("\n|_ Performance: NORMAL");
+            log.info(perfLog.toString());
+        }
+        
+        // Additional log for metrics (could be integrated with monitoring systems)
+        logMetrics(operationName, className, methodName, executionTimeMs, success);
     }
     
     /**
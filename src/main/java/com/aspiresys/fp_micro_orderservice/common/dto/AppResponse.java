@@ -1,9 +1,16 @@
 package com.aspiresys.fp_micro_orderservice.common.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.ToString;
 
 /**
  * A generic response wrapper class used to standardize API responses.
+ * <p>
+ * Paginated endpoints also fill {@code next} with an opaque cursor that the client
+ * sends back to fetch the following page. It is omitted from the JSON when there
+ * are no more pages or the endpoint is not paginated.
+ * </p>
  *
  * @param <T> the type of the response data
  */
@@ -11,12 +18,20 @@ import lombok.ToString;
 public class AppResponse<T> {
     private String message;
     private T data;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
 
     public AppResponse(String message, T data) {
         this.message = message;
         this.data = data;
     }
 
+    public AppResponse(String message, T data, String next) {
+        this.message = message;
+        this.data = data;
+        this.next = next;
+    }
+
     public String getMessage() {
         return message;
     }
@@ -32,4 +47,12 @@ public class AppResponse<T> {
     public void setData(T data) {
         this.data = data;
     }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
 }
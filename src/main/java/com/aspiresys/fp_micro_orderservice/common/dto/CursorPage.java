@@ -0,0 +1,51 @@
+package com.aspiresys.fp_micro_orderservice.common.dto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A slice of results produced by a keyset (cursor) paginated query.
+ * <p>
+ * {@code next} is the opaque cursor pointing right after the last element of
+ * {@code content}, or {@code null} when this is the last page.
+ * </p>
+ *
+ * @param <T> the type of the page elements
+ * @author bruno.gil
+ */
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String next;
+
+    public CursorPage(List<T> content, String next) {
+        this.content = content != null ? content : Collections.emptyList();
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Converts the elements of this page keeping the same cursor.
+     *
+     * @param mapper conversion applied to every element
+     * @return a new page with the converted elements
+     */
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        return new CursorPage<>(mapped, next);
+    }
+}
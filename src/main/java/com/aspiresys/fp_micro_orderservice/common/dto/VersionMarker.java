@@ -0,0 +1,53 @@
+package com.aspiresys.fp_micro_orderservice.common.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Version and last modification time of a resource, read without loading the resource itself.
+ * <p>
+ * Instances are created by JPQL constructor expressions and are used to answer conditional
+ * requests ({@code If-None-Match} / {@code If-Modified-Since}) before running the real query.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class VersionMarker {
+    private final Long id;
+    private final Long version;
+    private final LocalDateTime modifiedAt;
+
+    /**
+     * Builds a weak entity tag from the version and the given qualifiers.
+     *
+     * @param prefix identifies the kind of resource
+     * @param qualifiers anything else the representation depends on (page cursor, size...); nulls are allowed
+     * @return the entity tag, quoted and prefixed with {@code W/}
+     */
+    public String toETag(String prefix, Object... qualifiers) {
+        StringBuilder tag = new StringBuilder("W/\"")
+                .append(prefix).append('-').append(id)
+                .append('-').append(version != null ? version : 0L);
+        for (Object qualifier : qualifiers) {
+            tag.append('-').append(qualifier != null ? qualifier : "");
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * @return the modification time in epoch milliseconds, or -1 when unknown
+     */
+    public long lastModifiedMillis() {
+        if (modifiedAt == null) {
+            return -1;
+        }
+        return modifiedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,23 @@
+package com.aspiresys.fp_micro_orderservice.common.id;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Marks an entity identifier as generated by {@link SnowflakeIdentifierGenerator}.
+ * <p>
+ * The ID is assigned in the application when the entity is persisted, so the insert does not need a round trip
+ * to learn it and Hibernate can batch the inserts.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@IdGeneratorType(SnowflakeIdentifierGenerator.class)
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SnowflakeId {
+}
@@ -0,0 +1,121 @@
+package com.aspiresys.fp_micro_orderservice.common.id;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered ID generator in the style of Snowflake.
+ * <p>
+ * An ID packs, from the most significant bit:
+ * <ul>
+ *   <li>{@value #TIMESTAMP_BITS} bits - milliseconds since {@link #EPOCH} (enough for about 69 years).</li>
+ *   <li>{@value #NODE_BITS} bits - the node ID, unique per running instance (0 to {@value #MAX_NODE_ID}).</li>
+ *   <li>{@value #SEQUENCE_BITS} bits - a sequence within the millisecond.</li>
+ * </ul>
+ * IDs are 53 bits wide, so they stay exact when the frontend reads them as JSON numbers.
+ * </p>
+ * <p>
+ * The last timestamp and sequence live in one {@link AtomicLong} and are advanced with compare-and-set, so
+ * concurrent callers never block. When the sequence of a millisecond is exhausted the generator moves on to the
+ * next millisecond instead of waiting, and when the clock goes backwards it keeps counting from the last
+ * timestamp it used. IDs of a node are therefore always increasing.
+ * </p>
+ * <p>
+ * That last timestamp is only kept in memory. While bursts of more than 128 IDs per millisecond have pushed it
+ * ahead of the clock, or after the clock went backwards, a process restarted with the same node ID starts again
+ * from the clock and can hand out IDs the previous process already used. The lead grows by one millisecond per
+ * 128 IDs beyond that rate, so a restart that takes longer than the lead is safe; restarting an instance right
+ * after a very large burst, or after moving its clock back, is not.
+ * </p>
+ * <p>
+ * Two generators with the same node ID would hand out the same IDs, so everything in the process that assigns
+ * IDs shares the generator returned by {@link #forNode(int)}.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+public class SnowflakeIdGenerator {
+    public static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+    public static final int TIMESTAMP_BITS = 41;
+    public static final int NODE_BITS = 5;
+    public static final int SEQUENCE_BITS = 7;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int NODE_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private static final ConcurrentHashMap<Integer, SnowflakeIdGenerator> NODES = new ConcurrentHashMap<>();
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last generated ID
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the generator of a node, shared by every caller of this process.
+     *
+     * @param nodeId the node ID, from 0 to {@value #MAX_NODE_ID}
+     * @return the generator of the node
+     */
+    public static SnowflakeIdGenerator forNode(int nodeId) {
+        return NODES.computeIfAbsent(nodeId, SnowflakeIdGenerator::new);
+    }
+
+    /**
+     * Generates the next ID of this node.
+     *
+     * @return a positive ID, greater than every ID previously returned by this generator
+     */
+    public long nextId() {
+        while (true) {
+            long now = clock.getAsLong() - EPOCH.toEpochMilli();
+            long previous = state.get();
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            long next;
+            if (now > previousTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                next = (previousTimestamp + 1) << SEQUENCE_BITS;
+            }
+            if (state.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << TIMESTAMP_SHIFT) | (nodeId << NODE_SHIFT) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    /**
+     * Returns the node ID encoded in an ID.
+     */
+    public static int nodeIdOf(long id) {
+        return (int) ((id >>> NODE_SHIFT) & MAX_NODE_ID);
+    }
+
+    /**
+     * Returns the time at which an ID was generated, to the millisecond.
+     */
+    public static Instant timestampOf(long id) {
+        return EPOCH.plusMillis(id >>> TIMESTAMP_SHIFT);
+    }
+}
@@ -0,0 +1,60 @@
+package com.aspiresys.fp_micro_orderservice.common.id;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+/**
+ * Hibernate identifier generator behind {@link SnowflakeId}.
+ * <p>
+ * The node ID is read from the Hibernate setting {@value #NODE_ID_SETTING}, which {@code IdGeneratorConfig}
+ * fills from {@code app.id.node-id}. Without it no entity can be stored, rather than risking IDs another instance
+ * also hands out.
+ * </p>
+ * <p>
+ * An entity that already carries an ID keeps it: orders accepted through the journal get their ID before they
+ * are stored, from the same per-node generator.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+public class SnowflakeIdentifierGenerator implements BeforeExecutionGenerator {
+    public static final String NODE_ID_SETTING = "app.id.node-id";
+
+    private final SnowflakeIdGenerator ids;
+
+    public SnowflakeIdentifierGenerator(SnowflakeId config, Member member, CustomIdGeneratorCreationContext context) {
+        Map<String, Object> settings = context.getServiceRegistry()
+                .getService(ConfigurationService.class)
+                .getSettings();
+        Object nodeId = settings.get(NODE_ID_SETTING);
+        if (nodeId == null || nodeId.toString().isBlank()) {
+            throw new IllegalStateException("No " + NODE_ID_SETTING + " configured for the IDs of "
+                    + member.getDeclaringClass().getSimpleName());
+        }
+        this.ids = SnowflakeIdGenerator.forNode(Integer.parseInt(nodeId.toString().trim()));
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return currentValue != null ? currentValue : ids.nextId();
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -1,29 +1,86 @@
 package com.aspiresys.fp_micro_orderservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import lombok.extern.java.Log;
 
 import java.util.concurrent.Executor;
 
 /**
  * Configuration for asynchronous processing
- * 
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} on Java 21 or later, the service runs blocking work on virtual
+ * threads: Spring Boot switches the Tomcat request threads, this class switches the order write executor and
+ * {@code KafkaConsumerConfig} switches the listener containers. A virtual thread is cheap, so each write gets its
+ * own instead of waiting in the bounded pool; the database connection pool still limits how many queries run at
+ * once. On older runtimes the property has no effect and the platform thread pools are kept.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.write.pool-size} - platform threads storing orders for {@code POST} and {@code PUT /orders/me}
+ *   (default 10, the default size of the connection pool).</li>
+ *   <li>{@code order.write.queue-capacity} - order writes waiting for a thread before new ones are refused
+ *   (default 1000).</li>
+ * </ul>
+ * </p>
+ *
  * @author bruno.gil
  */
 @Configuration
 @EnableAsync
+@Log
 public class AsyncConfig {
 
-    @Bean(name = "orderValidationExecutor")
-    public Executor orderValidationExecutor() {
+    /**
+     * Runs each task with the security context of the thread that submitted it. Writes then keep the principal of
+     * the request: the read-your-writes tracker records it and the audit aspects log it.
+     */
+    static final TaskDecorator SECURITY_CONTEXT = DelegatingSecurityContextRunnable::new;
+
+    /**
+     * Runs the order writes of {@code OrderController}, so the request thread is released while the order is stored.
+     * Its pool is sized to the database connections it competes for; writes beyond the queue are refused. Each write
+     * runs with the security context of its request.
+     */
+    @Bean(name = "orderWriteExecutor")
+    public Executor orderWriteExecutor(Environment environment,
+                                       @Value("${order.write.pool-size:10}") int poolSize,
+                                       @Value("${order.write.queue-capacity:1000}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("ASYNC CONFIG: Order writes run on virtual threads");
+            SimpleAsyncTaskExecutor executor = virtualThreadExecutor("OrderWrite-");
+            executor.setTaskDecorator(SECURITY_CONTEXT);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("OrderValidation-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("OrderWrite-");
+        executor.setTaskDecorator(SECURITY_CONTEXT);
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Creates an executor that starts a new virtual thread per task.
+     *
+     * @param threadNamePrefix the prefix of the thread names
+     * @return the executor
+     */
+    public static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
 }
@@ -0,0 +1,80 @@
+package com.aspiresys.fp_micro_orderservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeIdGenerator;
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeIdentifierGenerator;
+
+import lombok.extern.java.Log;
+
+/**
+ * Passes the node ID of this instance to the {@code @SnowflakeId} generators of the entities.
+ * <p>
+ * Two instances with the same node ID hand out the same IDs, and nothing detects it until an insert fails. So the
+ * node ID is never guessed: without {@code app.id.node-id} the application refuses to start, unless it runs with
+ * the {@code dev} or {@code test} profile or is declared the only instance, in which case it uses node 0.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code app.id.node-id} - node ID of this instance, from 0 to 31. Every instance writing to the same
+ *   database must use a different one.</li>
+ *   <li>{@code app.id.single-instance} - whether this is the only instance writing to the database, so node 0
+ *   can be used when no node ID is set (default false).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Configuration
+@Log
+public class IdGeneratorConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer snowflakeNodeIdCustomizer(Environment environment,
+                                                                   @Value("${app.id.node-id:}") String nodeId,
+                                                                   @Value("${app.id.single-instance:false}")
+                                                                   boolean singleInstance) {
+        int resolvedNodeId = resolveNodeId(nodeId, singleInstance, environment);
+        log.info("Generating order and item IDs as node " + resolvedNodeId);
+        return hibernateProperties -> hibernateProperties.put(SnowflakeIdentifierGenerator.NODE_ID_SETTING,
+                resolvedNodeId);
+    }
+
+    /**
+     * The generator of this node, for IDs assigned before an entity is stored. It is the same instance the
+     * entity generators use, so both never hand out the same ID.
+     */
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(Environment environment,
+                                                     @Value("${app.id.node-id:}") String nodeId,
+                                                     @Value("${app.id.single-instance:false}")
+                                                     boolean singleInstance) {
+        return SnowflakeIdGenerator.forNode(resolveNodeId(nodeId, singleInstance, environment));
+    }
+
+    /**
+     * @throws IllegalStateException if the node ID is out of range, or it is not set on an instance that may not be
+     *                               the only one
+     */
+    static int resolveNodeId(String nodeId, boolean singleInstance, Environment environment) {
+        if (nodeId == null || nodeId.isBlank()) {
+            if (singleInstance || environment.matchesProfiles("dev", "test")) {
+                return 0;
+            }
+            throw new IllegalStateException("app.id.node-id must be set to a value between 0 and "
+                    + SnowflakeIdGenerator.MAX_NODE_ID + " that no other instance uses, "
+                    + "or app.id.single-instance=true when this is the only instance");
+        }
+        int parsedNodeId = Integer.parseInt(nodeId.trim());
+        if (parsedNodeId < 0 || parsedNodeId > SnowflakeIdGenerator.MAX_NODE_ID) {
+            throw new IllegalStateException("app.id.node-id must be between 0 and "
+                    + SnowflakeIdGenerator.MAX_NODE_ID + ": " + parsedNodeId);
+        }
+        return parsedNodeId;
+    }
+}
@@ -0,0 +1,106 @@
+package com.aspiresys.fp_micro_orderservice.config.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.java.Log;
+
+/**
+ * Splits database traffic between the primary and a read replica.
+ * <p>
+ * Enabled with {@code app.datasource.routing.enabled=true}. The primary pool is configured with the
+ * usual {@code spring.datasource.*} properties and the replica pool with {@code app.datasource.replica.*}
+ * (Hikari property names: {@code jdbc-url}, {@code username}, {@code password}, {@code maximum-pool-size}...).
+ * {@code app.datasource.routing.sticky-window} (default 5 seconds) is how long a user's reads stay on the
+ * primary after their own write.
+ * </p>
+ * <p>
+ * Requires {@code spring.jpa.open-in-view=false}: with the session held open for the whole request, the
+ * connection picked by the first transaction would be reused by the following ones, including writes.
+ * </p>
+ * <p>
+ * Locally, two H2 databases are enough, e.g. {@code spring.datasource.url=jdbc:h2:mem:primary} and
+ * {@code app.datasource.replica.jdbc-url=jdbc:h2:mem:replica}.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+@Log
+public class DataSourceRoutingConfig {
+
+    public DataSourceRoutingConfig(@Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException(
+                    "app.datasource.routing.enabled=true requires spring.jpa.open-in-view=false");
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${app.datasource.routing.sticky-window:PT5S}") Duration stickyWindow,
+            @Value("${app.datasource.routing.max-tracked-users:100000}") long maxTrackedUsers) {
+        return new ReadYourWritesTracker(stickyWindow, maxTrackedUsers);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        log.info("DATASOURCE: Routing read-only transactions to the replica pool");
+        return routingDataSource(primaryDataSource, replicaDataSource, readYourWritesTracker);
+    }
+
+    /**
+     * Builds the routing data source wrapped in a lazy proxy, so the route is chosen on the first
+     * statement, once the transaction attributes are known.
+     */
+    static DataSource routingDataSource(DataSource primaryDataSource, DataSource replicaDataSource,
+                                        ReadYourWritesTracker readYourWritesTracker) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(readYourWritesTracker);
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReadWriteRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,46 @@
+package com.aspiresys.fp_micro_orderservice.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections to the primary or to the replica pool depending on the current transaction.
+ * <p>
+ * Only read-only transactions ({@code @Transactional(readOnly = true)}) go to the replica, and only
+ * when the current principal has not written recently (see {@link ReadYourWritesTracker}).
+ * Read-write transactions and work without a transaction always use the primary.
+ * </p>
+ * <p>
+ * The decision is taken when the connection is obtained, so this data source must be wrapped in a
+ * {@code LazyConnectionDataSourceProxy}: the transaction manager asks for a connection before the
+ * read-only flag of the transaction is published.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.PRIMARY;
+        }
+        String principal = ReadYourWritesTracker.currentPrincipal();
+        if (principal != null && readYourWritesTracker.hasRecentWrite(principal)) {
+            return Route.PRIMARY; // The replica may not have the user's own write yet
+        }
+        return Route.REPLICA;
+    }
+}
@@ -0,0 +1,104 @@
+package com.aspiresys.fp_micro_orderservice.config.datasource;
+
+import java.time.Duration;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Remembers which principals committed a write during the last {@code stickyWindow}.
+ * <p>
+ * Registered as a transaction execution listener, it records the authenticated principal of every
+ * committed read-write transaction. While the entry lives, the read-only transactions of that
+ * principal keep going to the primary, so users always see their own changes even if the replica
+ * lags behind. The window should be longer than the usual replication lag.
+ * </p>
+ * <p>
+ * Work without an authenticated principal (Kafka consumers, startup tasks) is not tracked. Threads that store
+ * orders on behalf of users without carrying their security context (the group commit, the journal drainer)
+ * record them with {@link #recordWriteAfterCommit}.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration stickyWindow, long maxTrackedPrincipals) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(maxTrackedPrincipals)
+                .build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+            return;
+        }
+        String principal = currentPrincipal();
+        if (principal != null) {
+            recordWrite(principal);
+        }
+    }
+
+    /**
+     * Records that the principal has just written.
+     *
+     * @param principal the name of the principal
+     */
+    public void recordWrite(String principal) {
+        recentWriters.put(principal, Boolean.TRUE);
+    }
+
+    /**
+     * Records a write of the principal once the current transaction commits, or right away when there is no
+     * transaction.
+     *
+     * @param principal the name of the principal
+     */
+    public void recordWriteAfterCommit(String principal) {
+        if (principal == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordWrite(principal);
+                }
+            });
+        } else {
+            recordWrite(principal);
+        }
+    }
+
+    /**
+     * @param principal the name of the principal
+     * @return true if the principal committed a write within the sticky window
+     */
+    public boolean hasRecentWrite(String principal) {
+        return recentWriters.getIfPresent(principal) != null;
+    }
+
+    /**
+     * @return the name of the authenticated principal of the current thread, or null if there is none
+     */
+    @Nullable
+    public static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
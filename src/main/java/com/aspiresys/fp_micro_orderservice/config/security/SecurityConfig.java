@@ -69,11 +69,14 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/actuator/**").permitAll() 
                         .requestMatchers(HttpMethod.GET, "/orders/me").hasRole("USER") 
+                        .requestMatchers(HttpMethod.GET, "/orders/me/status").hasRole("USER")
                         .requestMatchers(HttpMethod.POST, "/orders/me").hasRole("USER") 
+                        .requestMatchers(HttpMethod.POST, "/orders/me/batch").hasRole("USER") 
                         .requestMatchers(HttpMethod.PUT, "/orders/me").hasRole("USER") 
                         .requestMatchers(HttpMethod.DELETE, "/orders/me").hasRole("USER") 
 
                         .requestMatchers(HttpMethod.GET, "/orders/**").hasRole("ADMIN") 
+                        .requestMatchers(HttpMethod.DELETE, "/orders/purge").hasRole("ADMIN") 
                         .anyRequest().authenticated() // All other requests require authentication
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -1,13 +1,16 @@
 package com.aspiresys.fp_micro_orderservice.kafka.config;
 
+import com.aspiresys.fp_micro_orderservice.config.AsyncConfig;
 import com.aspiresys.fp_micro_orderservice.kafka.dto.ProductMessage;
 import com.aspiresys.fp_micro_orderservice.kafka.dto.UserMessage;
 import lombok.extern.java.Log;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
@@ -39,6 +42,10 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.user-group-id:user-group}")
     private String userGroupId;
 
+    // How long the product consumer must find no records before the catalog counts as caught up
+    @Value("${kafka.consumer.product.idle-interval-ms:3000}")
+    private long productIdleIntervalMs;
+
     /**
      * Consumer factory configuration for ProductMessage consumption.
      * 
@@ -75,10 +82,11 @@ public class KafkaConsumerConfig {
     /**
      * Kafka listener container factory for ProductMessage consumption.
      * 
+     * @param environment used to tell whether the listener runs on a virtual thread
      * @return ConcurrentKafkaListenerContainerFactory for ProductMessage
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, ProductMessage> productKafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, ProductMessage> productKafkaListenerContainerFactory(Environment environment) {
         ConcurrentKafkaListenerContainerFactory<String, ProductMessage> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(productConsumerFactory());
@@ -97,6 +105,9 @@ public class KafkaConsumerConfig {
         factory.setConcurrency(1); // Single thread to avoid conflicts of processing
         // This ensures that messages are processed in order and avoids concurrency issues
         factory.setAutoStartup(true);
+        // Idle events tell ProductCatalogState that every partition was read to its end
+        factory.getContainerProperties().setIdleEventInterval(productIdleIntervalMs);
+        useVirtualThreads(factory, environment, "product-listener-");
         
         log.info("KAFKA Product LISTENER FACTORY: Configured with error handling and concurrency=1");
         
@@ -136,10 +147,11 @@ public class KafkaConsumerConfig {
     /**
      * Kafka listener container factory for UserMessage consumption.
      * 
+     * @param environment used to tell whether the listener runs on a virtual thread
      * @return ConcurrentKafkaListenerContainerFactory for UserMessage
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, UserMessage> userKafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, UserMessage> userKafkaListenerContainerFactory(Environment environment) {
         ConcurrentKafkaListenerContainerFactory<String, UserMessage> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(userConsumerFactory());
@@ -157,9 +169,22 @@ public class KafkaConsumerConfig {
         factory.setCommonErrorHandler(errorHandler);
         factory.setConcurrency(1); // Single thread to avoid conflicts
         factory.setAutoStartup(true);
+        useVirtualThreads(factory, environment, "user-listener-");
         
         log.info("KAFKA USER LISTENER FACTORY: Configured with error handling and concurrency=1");
         
         return factory;
     }
+
+    /**
+     * Runs the consumer of the containers on a virtual thread when virtual threads are enabled; the listener
+     * blocks on the database for every record, so its carrier thread is released meanwhile.
+     */
+    private static void useVirtualThreads(ConcurrentKafkaListenerContainerFactory<?, ?> factory, Environment environment,
+                                          String threadNamePrefix) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            factory.getContainerProperties().setListenerTaskExecutor(AsyncConfig.virtualThreadExecutor(threadNamePrefix));
+            log.info("KAFKA LISTENER FACTORY: Virtual threads enabled for " + threadNamePrefix + " consumers");
+        }
+    }
 }
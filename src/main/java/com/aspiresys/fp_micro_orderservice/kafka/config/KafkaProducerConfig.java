@@ -0,0 +1,101 @@
+package com.aspiresys.fp_micro_orderservice.kafka.config;
+
+import lombok.extern.java.Log;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka configuration for Order Service producer.
+ * Configures the producer that publishes order events from the outbox.
+ * <p>
+ * The producer is tuned for throughput: records wait up to {@code linger-ms} to fill batches of up to
+ * {@code batch-size} bytes per partition, and batches are compressed. It is idempotent with {@code acks=all},
+ * so a retried request neither loses nor duplicates records, and the events of an order keep their order.
+ * </p>
+ * <p>
+ * Properties ({@code order.outbox.producer.*}):
+ * <ul>
+ *   <li>{@code linger-ms} - how long a record may wait for its batch to fill (default 20).</li>
+ *   <li>{@code batch-size} - maximum size of a batch per partition, in bytes (default 131072).</li>
+ *   <li>{@code compression-type} - {@code lz4}, {@code zstd}, {@code snappy}, {@code gzip} or {@code none}
+ *   (default lz4).</li>
+ *   <li>{@code request-timeout-ms} - maximum wait for a broker response (default 10000).</li>
+ *   <li>{@code delivery-timeout-ms} - maximum time to deliver a record, retries included (default 30000).</li>
+ * </ul>
+ * </p>
+ * 
+ * @author bruno.gil
+ */
+@Configuration
+@Log
+public class KafkaProducerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${order.outbox.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${order.outbox.producer.batch-size:131072}")
+    private int batchSize;
+
+    @Value("${order.outbox.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${order.outbox.producer.request-timeout-ms:10000}")
+    private int requestTimeoutMs;
+
+    @Value("${order.outbox.producer.delivery-timeout-ms:30000}")
+    private int deliveryTimeoutMs;
+
+    /**
+     * Producer factory for order events. Keys are order IDs and values are the JSON payloads of the outbox.
+     * 
+     * @return ProducerFactory for order events
+     */
+    @Bean
+    public ProducerFactory<String, String> orderEventProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);// Payloads are already JSON
+
+        // Batching and compression
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+
+        // Delivery guarantees
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);// Highest value that keeps ordering with idempotence
+        configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, requestTimeoutMs);
+        // Must cover linger plus one request; a record still undelivered after it fails its batch
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, Math.max(deliveryTimeoutMs, lingerMs + requestTimeoutMs));
+
+        log.info("KAFKA Order event PRODUCER CONFIG: Bootstrap servers: " + bootstrapServers);
+        log.info("KAFKA Order event PRODUCER CONFIG: linger.ms=" + lingerMs + ", batch.size=" + batchSize
+                + ", compression=" + compressionType);
+
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    /**
+     * Kafka template used by the outbox relay.
+     * 
+     * @return KafkaTemplate for order events
+     */
+    @Bean
+    public KafkaTemplate<String, String> orderEventKafkaTemplate() {
+        return new KafkaTemplate<>(orderEventProducerFactory());
+    }
+}
@@ -1,8 +1,11 @@
 package com.aspiresys.fp_micro_orderservice.kafka.consumer;
 
 import com.aspiresys.fp_micro_orderservice.kafka.dto.ProductMessage;
+import com.aspiresys.fp_micro_orderservice.product.ProductCatalogState;
 import com.aspiresys.fp_micro_orderservice.product.ProductSyncService;
 import lombok.extern.java.Log;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -10,9 +13,12 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+import java.util.OptionalLong;
+
 /**
  * Kafka consumer for receiving product messages from Product Service.
  * Listens to the product topic and synchronizes product information to the existing products table.
+ * After every message it records how far behind the end of the topic it is in {@link ProductCatalogState}.
  * 
  * @author bruno.gil
  */
@@ -21,7 +27,12 @@ import org.springframework.stereotype.Service;
 public class ProductConsumerService {
 
     @Autowired
-    private ProductSyncService productSyncService;    /**
+    private ProductSyncService productSyncService;
+
+    @Autowired
+    private ProductCatalogState productCatalogState;
+
+    /**
      * Consumes product messages from Kafka topic.
      * Processes different types of product events (CREATED, UPDATED, DELETED, INITIAL_LOAD).
      * 
@@ -29,13 +40,15 @@ public class ProductConsumerService {
      * @param key The message key (optional)
      * @param topic The topic name (optional)
      * @param partition The partition number (optional)
+     * @param consumer The consumer that received the message, used to record how far behind it is
      */
     @KafkaListener(topics = "${kafka.topic.product:product}", groupId = "${spring.kafka.consumer.group-id}")
     public void consumeProductMessage(
             @Payload ProductMessage productMessage,
             @Header(value = KafkaHeaders.KEY, required = false) String key,
             @Header(value = KafkaHeaders.RECEIVED_TOPIC, required = false) String topic,
-            @Header(value = KafkaHeaders.RECEIVED_PARTITION, required = false) Integer partition) {
+            @Header(value = KafkaHeaders.RECEIVED_PARTITION, required = false) Integer partition,
+            Consumer<?, ?> consumer) {
 
         try {
             log.info("KAFKA: Received message from topic: " + (topic != null ? topic : "unknown") + 
@@ -60,6 +73,23 @@ public class ProductConsumerService {
             e.printStackTrace();
             // In a production environment, you might want to send this to a dead letter queue
         }
+        productCatalogState.recordLag(lagOf(consumer));
+    }
+
+    /**
+     * Sums the records left on the partitions assigned to the consumer, from the positions and end offsets it already
+     * knows, or returns -1 when the end offset of a partition is not known yet.
+     */
+    private static long lagOf(Consumer<?, ?> consumer) {
+        long total = 0;
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isEmpty()) {
+                return -1;
+            }
+            total += lag.getAsLong();
+        }
+        return total;
     }
 
     /**
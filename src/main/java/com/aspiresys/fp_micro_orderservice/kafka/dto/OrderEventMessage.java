@@ -0,0 +1,37 @@
+package com.aspiresys.fp_micro_orderservice.kafka.dto;
+
+import java.time.LocalDateTime;
+
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderDTO;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for order events published via Kafka to the services that follow orders (inventory, notifications).
+ * The message key is the order ID, so the events of an order are delivered in order.
+ *
+ * @author bruno.gil
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventMessage {
+
+    @JsonProperty("eventType")
+    private String eventType; // "ORDER_CREATED", "ORDER_UPDATED", "ORDER_DELETED"
+
+    @JsonProperty("orderId")
+    private Long orderId;
+
+    @JsonProperty("userId")
+    private Long userId; // Missing for orders deleted by a purge
+
+    @JsonProperty("order")
+    private OrderDTO order; // State after the change; missing for deleted orders
+
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+}
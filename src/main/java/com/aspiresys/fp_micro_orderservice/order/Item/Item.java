@@ -1,5 +1,6 @@
 package com.aspiresys.fp_micro_orderservice.order.Item;
 
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeId;
 import com.aspiresys.fp_micro_orderservice.order.Order;
 import com.aspiresys.fp_micro_orderservice.product.Product;
 import com.fasterxml.jackson.annotation.JsonBackReference;
@@ -11,16 +12,20 @@ import lombok.*;
  * Represents an item in an order, linking a product and its quantity to a specific order.
  * <p>
  * Each Item is associated with an {@link Order} and a {@link Product}.
- * The subtotal for the item is calculated as the product's price multiplied by the quantity.
+ * The price, name, category and image of the product are copied into the item when the order is placed,
+ * so the item keeps showing what the customer bought even after the product changes, and it can be read
+ * without loading the product.
+ * The subtotal for the item is calculated as the snapshot unit price multiplied by the quantity.
  * </p>
  *
  * <p>
  * Fields:
  * <ul>
- *   <li>id - Unique identifier for the item.</li>
+ *   <li>id - Unique identifier for the item, time-ordered and assigned by the application ({@link SnowflakeId}).</li>
  *   <li>order - The order to which this item belongs.</li>
  *   <li>product - The product associated with this item.</li>
  *   <li>quantity - The quantity of the product in the order.</li>
+ *   <li>unitPrice, productName, productCategory, productImageUrl - Snapshot of the product at order time.</li>
  * </ul>
  * </p>
  *
@@ -28,18 +33,24 @@ import lombok.*;
  * Methods:
  * <ul>
  *   <li>{@code getSubtotal()} - Calculates the subtotal price for this item.</li>
+ *   <li>{@code snapshotProduct()} - Copies the current product data into the item.</li>
  * </ul>
  * </p>
  *
  * <p>
  * This class is annotated as a JPA entity and maps to the "items" table in the database.
+ * Both foreign keys are indexed; product and category indexes also carry the order ID for the order search.
  * </p>
  * 
  * <p>@author bruno.gil</p>
  * <p>See {@link Order} and {@link Product} for related entities. </p>
  */
 @Entity
-@Table(name = "items")
+@Table(name = "items", indexes = {
+    @Index(name = "idx_items_order", columnList = "order_id"),
+    @Index(name = "idx_items_product_order", columnList = "product_id, order_id"),
+    @Index(name = "idx_items_category_order", columnList = "product_category, order_id")
+})
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -48,10 +59,10 @@ import lombok.*;
 @ToString(exclude = {"order"}) // Excluir order para evitar referencia circular
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // Items are always reached from their order, which is already loaded
     @JoinColumn(name = "order_id")
     @JsonBackReference // Referencia hacia atrás en la relación Order -> Items
     private Order order;
@@ -61,11 +72,31 @@ public class Item {
 
     private int quantity;
 
+    private Double unitPrice;
+    private String productName;
+    private String productCategory;
+    private String productImageUrl;
+
     public double getSubtotal() {
-        if (product == null || product.getPrice() == null) {
+        Double price = unitPrice != null ? unitPrice : (product != null ? product.getPrice() : null);
+        if (price == null) {
             return 0.0;
         }
-        return product.getPrice() * quantity;
+        return price * quantity;
+    }
+
+    /**
+     * Copies the price, name, category and image of the current product into the item.
+     * Does nothing when the item has no product.
+     */
+    public void snapshotProduct() {
+        if (product == null) {
+            return;
+        }
+        this.unitPrice = product.getPrice();
+        this.productName = product.getName();
+        this.productCategory = product.getCategory();
+        this.productImageUrl = product.getImageUrl();
     }
 
 }
@@ -3,6 +3,9 @@ package com.aspiresys.fp_micro_orderservice.order.Item;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -29,4 +32,14 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
      *         or an empty list if no items are found.
      */
     List<Item> findByProductId(Long productId);
+
+    /**
+     * Deletes all items of an order with a single statement, without loading them.
+     * 
+     * @param orderId the ID of the order
+     * @return the number of items deleted
+     */
+    @Modifying
+    @Query("delete from Item i where i.order.id = :orderId")
+    int deleteAllByOrderIdInBulk(@Param("orderId") Long orderId);
 }
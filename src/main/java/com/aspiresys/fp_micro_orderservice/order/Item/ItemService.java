@@ -44,12 +44,12 @@ public interface ItemService {
     List<Item> getItemsByProductId(Long productId);
 
     /**
-     * Deletes an item by order ID.
+     * Deletes all items of an order with a single statement.
      * @param orderId the ID of the order to delete items for
-     * @return boolean indicating whether the deletion was successful
-     * @throws IllegalArgumentException if the orderId is null or does not exist
+     * @return the number of items deleted, 0 if the order has no items or does not exist
+     * @throws IllegalArgumentException if the orderId is null
      */
-    boolean deleteByOrderId(Long orderId);
+    int deleteByOrderId(Long orderId);
 
     /**
      * Deletes an item by its ID.
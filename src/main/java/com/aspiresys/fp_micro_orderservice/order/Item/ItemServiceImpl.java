@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ItemServiceImpl implements ItemService {
@@ -39,13 +40,12 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public boolean deleteByOrderId(Long orderId) {
-        List<Item> items = itemRepository.findByOrderId(orderId);
-        if (items.isEmpty()) {
-            return false;
+    @Transactional
+    public int deleteByOrderId(Long orderId) {
+        if (orderId == null) {
+            throw new IllegalArgumentException("Order ID cannot be null");
         }
-        itemRepository.deleteAll(items);
-        return true;
+        return itemRepository.deleteAllByOrderIdInBulk(orderId);
     }
 
     @Override
@@ -3,18 +3,23 @@ package com.aspiresys.fp_micro_orderservice.order;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeId;
 import com.aspiresys.fp_micro_orderservice.order.Item.Item;
 import com.aspiresys.fp_micro_orderservice.product.Product;
 import com.aspiresys.fp_micro_orderservice.user.User;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Represents a customer's order in the system.
  * <p>
  * The {@code Order} entity contains information about the user who placed the order,
  * the list of items included in the order, and the creation timestamp.
+ * The total and the number of units are persisted with the order, so listings do not need the items
+ * nor the products to show them. They are kept in sync by {@link #refreshSummary()}.
  * It provides utility methods for calculating the total price, adding and removing items,
  * and initializing items from a list of products.
  * </p>
@@ -28,6 +33,37 @@ import lombok.*;
  * </p>
  *
  * <p>
+ * The ID is time-ordered and assigned by the application when the order is persisted ({@link SnowflakeId}),
+ * so orders and their items are inserted in JDBC batches.
+ * </p>
+ *
+ * <p>
+ * Versioning:
+ * <ul>
+ *   <li>{@code version} - optimistic lock counter, incremented by Hibernate on every update of the order.</li>
+ *   <li>{@code updatedAt} - time of the last change, set by {@link OrderService} on every write.</li>
+ * </ul>
+ * Both are used to answer conditional requests without loading the order.
+ * </p>
+ *
+ * <p>
+ * Indexes (created by the schema migrations and declared here so generated test schemas match):
+ * <ul>
+ *   <li>{@code idx_orders_user_created} - orders of a user, newest first.</li>
+ *   <li>{@code idx_orders_created} - all orders, newest first.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Fetch plans:
+ * <ul>
+ *   <li>{@value #WITH_ITEMS_GRAPH} - loads the user, the items and their products in a single query.
+ *   Used by the read paths that map orders to DTOs.</li>
+ *   <li>When items are loaded lazily instead, they are fetched in batches of {@value #ITEMS_BATCH_SIZE} orders.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
  * Typical usage:
  * <pre>
  *     Order order = Order.builder()
@@ -43,7 +79,18 @@ import lombok.*;
  * @author bruno.gil
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_user_created", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_orders_created", columnList = "created_at, id")
+})
+@NamedEntityGraph(
+    name = Order.WITH_ITEMS_GRAPH,
+    attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode(value = "items", subgraph = "items")
+    },
+    subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("product"))
+)
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,8 +98,11 @@ import lombok.*;
 @EqualsAndHashCode(exclude = {"items"})
 @ToString(exclude = {"items"}) 
 public class Order {
+    public static final String WITH_ITEMS_GRAPH = "Order.withItems";
+    public static final int ITEMS_BATCH_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @ManyToOne
@@ -60,23 +110,69 @@ public class Order {
     private User user;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = ITEMS_BATCH_SIZE)
     @JsonManagedReference 
     private List<Item> items;
 
+    @Column(nullable = false)
     private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    private Double total;
+
+    private Integer itemCount;
     
     /**
-     * Calculates the subtotal for the order.
-     * This is the sum of the subtotals of all items in the order.
+     * Returns the total of the order.
+     * This is the persisted sum of the subtotals of all items, or the sum computed from the items
+     * when it has not been stored yet.
      * @return the total price of the order, or 0.0 if there are no items.
      */
     public double getTotal() {
+        if (total != null) return total;
         if (items == null) return 0.0;
         return items.stream()
                 .mapToDouble(Item::getSubtotal)
                 .sum();
     }
 
+    /**
+     * Returns the number of units in the order (sum of item quantities).
+     * @return the persisted count, or the count computed from the items when it has not been stored yet.
+     */
+    public int getItemCount() {
+        if (itemCount != null) return itemCount;
+        if (items == null) return 0;
+        return items.stream()
+                .mapToInt(Item::getQuantity)
+                .sum();
+    }
+
+    /**
+     * Recomputes the persisted total and item count from the items.
+     * Items that have no price snapshot yet take it from their current product.
+     */
+    public void refreshSummary() {
+        double newTotal = 0.0;
+        int newItemCount = 0;
+        if (items != null) {
+            for (Item item : items) {
+                if (item.getUnitPrice() == null) {
+                    item.snapshotProduct();
+                }
+                newTotal += item.getSubtotal();
+                newItemCount += item.getQuantity();
+            }
+        }
+        this.total = newTotal;
+        this.itemCount = newItemCount;
+    }
+
     /**
      * Adds a new item to the order.
      * If the item already exists in the order (same product ID), it updates the quantity
@@ -89,11 +185,13 @@ public class Order {
         for (Item item : items) {
             if (item.getProduct().getId().equals(newItem.getProduct().getId())) {
                 item.setQuantity(item.getQuantity() + newItem.getQuantity());
+                refreshSummary();
                 return;
             }
         }
         newItem.setOrder(this);
         items.add(newItem);
+        refreshSummary();
     }
 
     /**
@@ -105,6 +203,7 @@ public class Order {
     public void removeItemByProductId(Long productId) {
         if (items == null || productId == null) return;
         items.removeIf(item -> item.getProduct().getId().equals(productId));
+        refreshSummary();
     }
 
     /**
@@ -124,7 +223,9 @@ public class Order {
                     .quantity(1) // Default quantity, can be adjusted later
                     .build();
             item.setOrder(this);
+            item.snapshotProduct();
             items.add(item);
         }
+        refreshSummary();
     }
 }
@@ -0,0 +1,170 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aspiresys.fp_micro_orderservice.aop.annotation.ExecutionTime;
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService.ValidationException;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderBatchResult;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
+import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+import com.aspiresys.fp_micro_orderservice.product.ProductService;
+import com.aspiresys.fp_micro_orderservice.product.StockReservationService;
+import com.aspiresys.fp_micro_orderservice.user.User;
+import com.aspiresys.fp_micro_orderservice.user.UserService;
+
+import lombok.extern.java.Log;
+
+/**
+ * Creates many orders of one user in a single request.
+ * <p>
+ * The user is read once and the products of every order are read together in one query. Each order is then
+ * validated on its own against them: invalid orders, and orders that the stock left by the previous orders of the
+ * batch cannot cover, are reported and skipped. The stock of all accepted orders is taken with one conditional
+ * update ({@link StockReservationService}) and the orders are written in the same transaction with batched inserts
+ * ({@link OrderService#saveAll}).
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.batch.max-size} - maximum number of orders per request (default 500).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Service
+@Log
+public class OrderBatchService {
+    private final OrderService orderService;
+    private final OrderValidationService orderValidationService;
+    private final ProductService productService;
+    private final UserService userService;
+    private final OrderMapper orderMapper;
+    private final StockReservationService stockReservationService;
+    private final int maxBatchSize;
+
+    public OrderBatchService(OrderService orderService, OrderValidationService orderValidationService,
+                             ProductService productService, UserService userService, OrderMapper orderMapper,
+                             StockReservationService stockReservationService,
+                             @Value("${order.batch.max-size:500}") int maxBatchSize) {
+        this.orderService = orderService;
+        this.orderValidationService = orderValidationService;
+        this.productService = productService;
+        this.userService = userService;
+        this.orderMapper = orderMapper;
+        this.stockReservationService = stockReservationService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Validates and creates the requested orders for a user.
+     *
+     * @param email The email of the user placing the orders
+     * @param requested The orders to create
+     * @return One result per requested order, in the order of the request
+     * @throws IllegalArgumentException if the batch is empty or larger than {@code order.batch.max-size}
+     * @throws ValidationException if the user does not exist
+     * @throws InsufficientStockException if concurrent orders took the stock of the accepted orders; nothing is created
+     */
+    @Transactional
+    @ExecutionTime(operation = "Create Order Batch", warningThreshold = 5000, detailed = true)
+    public List<OrderBatchResult> createOrders(String email, List<Order> requested) {
+        if (requested == null || requested.isEmpty()) {
+            throw new IllegalArgumentException("Order batch cannot be empty");
+        }
+        if (requested.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Order batch cannot contain more than " + maxBatchSize + " orders");
+        }
+        User user = userService.getUserByEmail(email);
+        if (user == null) {
+            throw new ValidationException("User does not exist");
+        }
+        Map<Long, Product> products = productService.getProductsByIds(productIds(requested));
+
+        OrderBatchResult[] results = new OrderBatchResult[requested.size()];
+        List<Order> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        Map<Long, Integer> reserved = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < requested.size(); i++) {
+            Order order = requested.get(i);
+            List<Item> items = order != null ? order.getItems() : null;
+            try {
+                orderValidationService.resolveItems(items, products);
+            } catch (ValidationException e) {
+                results[i] = OrderBatchResult.rejected(i, e.getMessage());
+                continue;
+            }
+            Map<Long, Integer> quantities = OrderValidationService.quantitiesOf(items);
+            List<Long> shortProducts = shortProducts(quantities, reserved, products);
+            if (!shortProducts.isEmpty()) {
+                results[i] = OrderBatchResult.rejected(i, new InsufficientStockException(shortProducts).getMessage());
+                continue;
+            }
+            quantities.forEach((productId, quantity) -> reserved.merge(productId, quantity, Integer::sum));
+            Order newOrder = Order.builder()
+                    .user(user)
+                    .createdAt(now)
+                    .items(new ArrayList<>(items))
+                    .build();
+            for (Item item : newOrder.getItems()) {
+                item.setId(null);
+                item.setOrder(newOrder);
+            }
+            accepted.add(newOrder);
+            acceptedIndexes.add(i);
+        }
+
+        stockReservationService.reserve(new TreeMap<>(reserved), products);
+        List<Order> saved = orderService.saveAll(accepted);
+        for (int i = 0; i < saved.size(); i++) {
+            int index = acceptedIndexes.get(i);
+            results[index] = OrderBatchResult.created(index, orderMapper.toDTO(saved.get(i)));
+        }
+        log.info("Order batch for user " + email + ": " + saved.size() + " created, "
+                + (requested.size() - saved.size()) + " rejected");
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Lists the products whose stock, less what earlier orders of the batch already took, does not cover the order.
+     */
+    private static List<Long> shortProducts(Map<Long, Integer> quantities, Map<Long, Integer> reserved,
+                                            Map<Long, Product> products) {
+        List<Long> shortProducts = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            int available = products.get(productId).getStock() - reserved.getOrDefault(productId, 0);
+            if (available < quantity) {
+                shortProducts.add(productId);
+            }
+        });
+        return shortProducts;
+    }
+
+    /**
+     * Collects the distinct product IDs referenced by any item of the batch.
+     */
+    private Set<Long> productIds(List<Order> orders) {
+        Set<Long> ids = new HashSet<>();
+        for (Order order : orders) {
+            if (order != null) {
+                ids.addAll(OrderValidationService.productIdsOf(order.getItems()));
+            }
+        }
+        return ids;
+    }
+}
@@ -3,11 +3,19 @@ package com.aspiresys.fp_micro_orderservice.order;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
 import com.aspiresys.fp_micro_orderservice.common.dto.AppResponse;
+import com.aspiresys.fp_micro_orderservice.common.dto.CursorPage;
+import com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker;
 import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderAcceptanceStatus;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderBatchResult;
 import com.aspiresys.fp_micro_orderservice.order.dto.OrderDTO;
 import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
-import com.aspiresys.fp_micro_orderservice.user.User;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderSearchCriteria;
+import com.aspiresys.fp_micro_orderservice.order.journal.OrderAcceptanceService;
+import com.aspiresys.fp_micro_orderservice.user.CachedUser;
 import com.aspiresys.fp_micro_orderservice.user.UserService;
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+import com.aspiresys.fp_micro_orderservice.product.ProductCatalogState;
 import com.aspiresys.fp_micro_orderservice.product.ProductSyncService;
 
 import lombok.extern.java.Log;
@@ -20,15 +28,32 @@ import com.aspiresys.fp_micro_orderservice.aop.annotation.ExecutionTime;
 import com.aspiresys.fp_micro_orderservice.aop.annotation.ValidateParameters;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.http.MediaType;
 
+import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 /**
@@ -41,13 +66,28 @@ import org.springframework.web.bind.annotation.RequestBody;
  * </p>
  *
  * <ul>
- *   <li>{@code GET /orders} - Retrieves all orders.</li>
+ *   <li>{@code GET /orders} - Retrieves all orders, one keyset page at a time ({@code cursor}, {@code size}).</li>
+ *   <li>{@code GET /orders/export} - Streams every order as newline-delimited JSON.</li>
+ *   <li>{@code GET /orders/search} - Finds orders by date range, user, product, category and total, one keyset page at a time.</li>
  *   <li>{@code GET /orders/{id}} - Retrieves a specific order by its ID.</li>
  *   <li>{@code POST /orders} - Creates a new order.</li>
+ *   <li>{@code POST /orders/me/batch} - Creates many orders of the current user at once, with one result per order.</li>
+ *   <li>{@code GET /orders/me/status} - Tells whether an order accepted with {@code 202 Accepted} is stored yet.</li>
  *   <li>{@code DELETE /orders/{id}} - Deletes an order by its ID.</li>
  * </ul>
  *
  * Responses are wrapped in {@link AppResponse} objects for consistent API structure.
+ * <p>
+ * {@code GET /orders/find} and {@code GET /orders/me} send {@code ETag} and {@code Last-Modified} headers.
+ * A request carrying a matching {@code If-None-Match} (or {@code If-Modified-Since}) is answered with
+ * {@code 304 Not Modified} after reading only the version marker, without loading any order.
+ * </p>
+ * <p>
+ * {@code POST /orders/me} and {@code PUT /orders/me} answer asynchronously: the request thread is released while the
+ * order is stored on the {@code orderWriteExecutor} (or by the group commit), and the response is sent when the
+ * write completes. A write still running after {@code order.write.timeout} (default 10 s), or refused because too
+ * many writes are waiting, is answered with {@code 503 Service Unavailable}.
+ * </p>
  *
  * @author bruno.gil
  */
@@ -55,26 +95,85 @@ import org.springframework.web.bind.annotation.RequestBody;
 @RequestMapping("/orders")
 @Log
 public class OrderController {
+    // Clients may keep the response but must revalidate it (If-None-Match) before every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private OrderService orderService;
     @Autowired
     private UserService userService;
     @Autowired
-    private OrderValidationService orderValidationService;
-    @Autowired
     private OrderMapper orderMapper;
     @Autowired
     private ProductSyncService productSyncService;
+    @Autowired
+    private ProductCatalogState productCatalogState;
+    @Autowired
+    private OrderExportService orderExportService;
+    @Autowired
+    private OrderQueryService orderQueryService;
+    @Autowired
+    private OrderBatchService orderBatchService;
+    @Autowired
+    private OrderPurgeService orderPurgeService;
+    @Autowired
+    private OrderAcceptanceService orderAcceptanceService;
+    @Autowired
+    private OrderGroupCommitter orderGroupCommitter;
+    @Autowired
+    @Qualifier("orderWriteExecutor")
+    private Executor orderWriteExecutor;
+    @Value("${order.write.timeout:PT10S}")
+    private Duration writeTimeout;
 
     @GetMapping("/")
     @PreAuthorize("hasRole('ADMIN')") // Only ADMIN can access this endpoint
     @Auditable(operation = "GET_ALL_ORDERS", entityType = "Order", logResult = true)
     @ExecutionTime(operation = "Retrieve All Orders", warningThreshold = 2000)
-    public ResponseEntity<AppResponse<List<OrderDTO>>> getAllOrders() {
-        List<Order> orders = orderService.findAll();
-        List<OrderDTO> orderDTOs = orderMapper.toDTOList(orders);
+    public ResponseEntity<AppResponse<List<OrderDTO>>> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<OrderDTO> page;
+        try {
+            page = orderQueryService.findPage(cursor, size);
+        } catch (IllegalArgumentException e) {
+            log.warning("Invalid cursor received for order listing: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AppResponse<>("Invalid cursor", null));
+        }
+        return ResponseEntity.ok(
+                new AppResponse<>("Orders retrieved:", page.getContent(), page.getNext()));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Auditable(operation = "EXPORT_ORDERS", entityType = "Order")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        // Orders are written to the response while they are read, never collected in memory
+        StreamingResponseBody body = outputStream -> orderExportService.exportAll(outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Auditable(operation = "SEARCH_ORDERS", entityType = "Order", logParameters = true)
+    @ExecutionTime(operation = "Search Orders", warningThreshold = 2000)
+    public ResponseEntity<AppResponse<List<OrderDTO>>> searchOrders(
+            OrderSearchCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<OrderDTO> page;
+        try {
+            page = orderQueryService.search(criteria, cursor, size);
+        } catch (IllegalArgumentException e) {
+            log.warning("Invalid order search: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AppResponse<>(e.getMessage(), null));
+        }
         return ResponseEntity.ok(
-                new AppResponse<>("Orders retrieved:", orderDTOs));
+                new AppResponse<>("Orders found:", page.getContent(), page.getNext()));
     }
 
     @GetMapping("/find")
@@ -82,12 +181,21 @@ public class OrderController {
     @Auditable(operation = "FIND_ORDER_BY_ID", entityType = "Order", logParameters = true, logResult = true)
     @ExecutionTime(operation = "Find Order by ID")
     @ValidateParameters(notNull = true, message = "Order ID cannot be null")
-    public ResponseEntity<AppResponse<OrderDTO>> getOrderById(@RequestParam Long id) {
-        Order order = orderService.findById(id)
+    public ResponseEntity<AppResponse<OrderDTO>> getOrderById(@RequestParam Long id, WebRequest webRequest) {
+        VersionMarker marker = orderQueryService.findVersionMarker(id).orElse(null);
+        if (marker == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new AppResponse<>("Order not found", null));
+        }
+        if (webRequest.checkNotModified(marker.toETag("order"), marker.lastModifiedMillis())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        OrderDTO orderDTO = orderQueryService.findById(id)
                 .orElse(null);
-        if (order != null) {
-            OrderDTO orderDTO = orderMapper.toDTO(order);
-            return ResponseEntity.ok(new AppResponse<>("Order found", orderDTO));
+        if (orderDTO != null) {
+            return ResponseEntity.ok()
+                    .cacheControl(REVALIDATE)
+                    .body(new AppResponse<>("Order found", orderDTO));
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new AppResponse<>("Order not found", null));
@@ -98,25 +206,45 @@ public class OrderController {
     @PreAuthorize("hasRole('USER')") // Allow USER to access their own orders
     @Auditable(operation = "GET_USER_ORDERS", entityType = "Order", logResult = true)
     @ExecutionTime(operation = "Get User Orders", warningThreshold = 1500)
-    public ResponseEntity<AppResponse<List<OrderDTO>>> getOrdersByUser(Authentication authentication) {
+    public ResponseEntity<AppResponse<List<OrderDTO>>> getOrdersByUser(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
         //  Check if products are synchronized before processing orders
-        if (!productSyncService.isProductDatabaseSynchronized()) {
+        if (!productCatalogState.isReady()) {
             productSyncService.requestProductSynchronization();
             // Continue processing but with warning logged
         }
         
         String email = ((Jwt) (authentication.getPrincipal())).getClaimAsString("sub");
-        User user = userService.getUserByEmail(email);
+        // The marker is read before the page: if an order changes in between, the client gets
+        // the newer page with the older tag and simply downloads it again on the next poll.
+        // The cached first page is only served for the version in the marker, so a page cached
+        // before a write on another instance is never sent under the newer tag
+        VersionMarker marker = userService.getOrdersMarkerByEmail(email).orElse(null);
         
-        if (user == null) {
+        if (marker == null) {
             log.warning("User with email " + email + " does not exist.");
             return ResponseEntity.status(HttpStatus.OK)
                     .body(new AppResponse<>("User does not have any orders", new ArrayList<>()));
         }
-        List<Order> orders = orderService.findByUserId(user.getId());
-        List<OrderDTO> orderDTOs = orderMapper.toDTOList(orders);
-        log.info("Retrieved " + orders.size() + " orders for user: " + email);
-        return ResponseEntity.ok(new AppResponse<>("Orders retrieved for user: " + email, orderDTOs));
+        if (webRequest.checkNotModified(marker.toETag("orders", size, cursor), marker.lastModifiedMillis())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        CursorPage<OrderDTO> page;
+        try {
+            page = orderQueryService.findPageByUserId(marker.getId(), marker.getVersion(), cursor, size);
+        } catch (IllegalArgumentException e) {
+            log.warning("Invalid cursor received from user " + email + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AppResponse<>("Invalid cursor", null));
+        }
+        List<OrderDTO> orderDTOs = page.getContent();
+        log.info("Retrieved " + orderDTOs.size() + " orders for user: " + email);
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .body(new AppResponse<>("Orders retrieved for user: " + email, orderDTOs, page.getNext()));
     }
 
 
@@ -125,164 +253,178 @@ public class OrderController {
     @Auditable(operation = "CREATE_ORDER", entityType = "Order", logParameters = true, logResult = true)
     @ExecutionTime(operation = "Create Order", warningThreshold = 3000, detailed = true)
     @ValidateParameters(notNull = true, notEmpty = true, message = "Order data cannot be null or empty")
-    public ResponseEntity<AppResponse<OrderDTO>> createOrder(@RequestBody Order orderToCreate, Authentication authentication) {
+    public CompletableFuture<ResponseEntity<AppResponse<OrderDTO>>> createOrder(@RequestBody Order orderToCreate,
+                                                                               Authentication authentication) {
         //  Ensure products are synchronized before creating orders
-        if (!productSyncService.isProductDatabaseSynchronized()) {
+        if (!productCatalogState.isReady()) {
             productSyncService.requestProductSynchronization();
             log.warning(" No products synchronized from Product Service. Cannot create orders without products.");
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                .body(new AppResponse<>("Service temporarily unavailable. Product synchronization required. Please contact administrator.", null));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new AppResponse<>("Service temporarily unavailable. Product synchronization required. Please contact administrator.", null)));
         }
         
-        // Verify that all products in the order exist in our synchronized database
-        boolean allProductsExist = true;
-        StringBuilder missingProducts = new StringBuilder();
-        for (Item item : orderToCreate.getItems()) {
-            if (item.getProduct() != null && item.getProduct().getId() != null) {
-                if (!productSyncService.getProductById(item.getProduct().getId()).isPresent()) {
-                    allProductsExist = false;
-                    if (missingProducts.length() > 0) missingProducts.append(", ");
-                    missingProducts.append(item.getProduct().getId());
-                }
-            } else {
-                allProductsExist = false;
-                if (missingProducts.length() > 0) missingProducts.append(", ");
-                missingProducts.append("null");
-            }
+        String email = ((Jwt) (authentication.getPrincipal())).getClaimAsString("sub");
+        // Orders are always placed for the authenticated user; a different user in the body is rejected
+        String requestedEmail = orderToCreate.getUser() != null ? orderToCreate.getUser().getEmail() : null;
+        if (requestedEmail != null && !requestedEmail.equals(email)) {
+            log.warning("User email mismatch: expected " + email + ", got " + requestedEmail);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AppResponse<>("You are not allowed to create orders for others", null)));
         }
-        
-        if (!allProductsExist) {
-            String errorMsg = "Products not found in synchronized database: " + missingProducts.toString() + 
-                            ". Please wait for product synchronization to complete or contact administrator.";
-            log.warning(" " + errorMsg);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(new AppResponse<>(errorMsg, null));
+
+        List<Item> items = orderToCreate.getItems();
+        CompletableFuture<ResponseEntity<AppResponse<OrderDTO>>> response;
+        if (orderAcceptanceService.isEnabled()) {
+            // The order is durable in the local journal; it is stored in the background and polled by ID
+            response = onWriteExecutor(() -> {
+                OrderAcceptanceStatus accepted = orderAcceptanceService.accept(email, items);
+                OrderDTO acceptedDTO = OrderDTO.builder().id(accepted.getOrderId()).userEmail(email).build();
+                return ResponseEntity.accepted()
+                        .location(URI.create("/orders/me/status?id=" + accepted.getOrderId()))
+                        .body(new AppResponse<>("Order accepted", acceptedDTO));
+            });
+        } else if (orderGroupCommitter.isEnabled()) {
+            // Stored with the orders created at the same time; no thread waits for the group to commit
+            response = orderGroupCommitter.submit(email, items)
+                    .thenApply(newOrder -> ResponseEntity.ok(
+                            new AppResponse<>("Order created successfully", orderMapper.toDTO(newOrder))));
+        } else {
+            // User, products, validation and insert run in one transaction with a fixed number of statements
+            response = onWriteExecutor(() -> ResponseEntity.ok(
+                    new AppResponse<>("Order created successfully", orderMapper.toDTO(orderService.create(email, items)))));
         }
-        
-        String email = ((Jwt) (authentication.getPrincipal())).getClaimAsString("sub");
-        try {
-        
-            
-            // Validate order asynchronously (user and products in parallel)
-            OrderValidationService.OrderValidationResult validationResult = 
-                orderValidationService.validateOrderAsync(orderToCreate).get();
-            
-            if (!validationResult.isValid()) {
+        return withWriteTimeout(response).exceptionally(error -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof OrderValidationService.ValidationException) {
+                log.warning("Order of user " + email + " rejected: " + cause.getMessage());
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(new AppResponse<>(validationResult.getErrorMessage(), null));
+                        .body(new AppResponse<>(cause.getMessage(), null));
             }
-            
-            User validatedUser = validationResult.getUser();
-            if (validatedUser == null) {
-                log.warning("User with email " + email + " does not exist.");
-                if (validationResult.getErrorMessage() != null) {
-                    log.severe("Validation error: " + validationResult.getErrorMessage());
-                }
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new AppResponse<>("User does not exist", null));
+            if (cause instanceof InsufficientStockException) {
+                log.warning("Order of user " + email + " rejected: " + cause.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new AppResponse<>(cause.getMessage(), null));
             }
-            
-            if (validatedUser.getEmail() == null || !validatedUser.getEmail().equals(email)) {
-                log.warning("User email mismatch: expected " + email + ", got " + validatedUser.getEmail());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new AppResponse<>("You are not allowed to create orders for others", null));
+            if (isOverloaded(cause)) {
+                log.warning("Order of user " + email + " not completed in time: " + cause);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(new AppResponse<>("Order could not be completed in time. It may still be created; check your orders before retrying.", null));
             }
+            log.warning("Error creating order: " + cause.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new AppResponse<>("Error creating order: " + cause.getMessage(), null));
+        });
+    }
 
-            // Ensure the user is saved or updated in the user service
-            userService.saveUser(validatedUser);
-            
-            // Create new order with validated user
-            Order newOrder = Order.builder()
-                        .user(validatedUser)
-                        .createdAt(LocalDateTime.now())
-                        .build();
-            
-            // Set up items with validated products
-            for (Item item : orderToCreate.getItems()) {
-                item.setOrder(newOrder);
-            }
-            
-            newOrder.setItems(new ArrayList<>(orderToCreate.getItems())); // Set items from the request
-            
-            // Save the order
-            if (orderService.save(newOrder)) {
-                OrderDTO orderDTO = orderMapper.toDTO(newOrder);
-                return ResponseEntity.ok(new AppResponse<>("Order created successfully", orderDTO));
-            } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(new AppResponse<>("Failed to create order", null));
-            }
+    @GetMapping("/me/status")
+    @PreAuthorize("hasRole('USER')")
+    @ExecutionTime(operation = "Get Order Status", warningThreshold = 500)
+    public ResponseEntity<AppResponse<OrderAcceptanceStatus>> getOrderStatus(@RequestParam Long id,
+                                                                             Authentication authentication) {
+        String email = ((Jwt) (authentication.getPrincipal())).getClaimAsString("sub");
+        CachedUser user = userService.getCachedUserByEmail(email);
+        Optional<OrderAcceptanceStatus> status = user != null
+                ? orderAcceptanceService.status(id, user)
+                : Optional.empty();
+        if (status.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new AppResponse<>("Order not found", null));
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new AppResponse<>("Order " + status.get().getStatus(), status.get()));
+    }
+
+    @PostMapping("/me/batch")
+    @PreAuthorize("hasRole('USER')")
+    @Auditable(operation = "CREATE_ORDER_BATCH", entityType = "Order", logResult = true)
+    @ExecutionTime(operation = "Create Order Batch", warningThreshold = 5000, detailed = true)
+    @ValidateParameters(notNull = true, notEmpty = true, message = "Order batch cannot be null or empty")
+    public ResponseEntity<AppResponse<List<OrderBatchResult>>> createOrders(@RequestBody List<Order> ordersToCreate,
+                                                                             Authentication authentication) {
+        if (!productCatalogState.isReady()) {
+            productSyncService.requestProductSynchronization();
+            log.warning(" No products synchronized from Product Service. Cannot create orders without products.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new AppResponse<>("Service temporarily unavailable. Product synchronization required. Please contact administrator.", null));
+        }
+
+        String email = ((Jwt) (authentication.getPrincipal())).getClaimAsString("sub");
+        try {
+            List<OrderBatchResult> results = orderBatchService.createOrders(email, ordersToCreate);
+            long created = results.stream()
+                    .filter(result -> result.getStatus() == OrderBatchResult.Status.CREATED)
+                    .count();
+            return ResponseEntity.ok(new AppResponse<>(
+                    created + " of " + results.size() + " orders created", results));
+        } catch (IllegalArgumentException | OrderValidationService.ValidationException e) {
+            log.warning("Order batch rejected for user " + email + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AppResponse<>(e.getMessage(), null));
+        } catch (InsufficientStockException e) {
+            // Concurrent orders took the stock of the accepted orders after it was read; the batch was rolled back
+            log.warning("Order batch rejected for user " + email + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new AppResponse<>(e.getMessage(), null));
         } catch (Exception e) {
-            log.warning("Error creating order: " + e.getMessage());
+            log.warning("Error creating order batch: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new AppResponse<>("Error creating order: " + e.getMessage(), null));
+                    .body(new AppResponse<>("Error creating orders: " + e.getMessage(), null));
         }
     }
 
     @PutMapping("/me")
     @PreAuthorize("hasRole('USER')")
-    @Transactional
     @Auditable(operation = "UPDATE_ORDER", entityType = "Order", logParameters = true, logResult = true)
     @ExecutionTime(operation = "Update Order", warningThreshold = 2500, detailed = true)
     @ValidateParameters(notNull = true, message = "Order data cannot be null for update")
-    public ResponseEntity<AppResponse<OrderDTO>> updateOrder(@RequestBody Order orderToUpdate, Authentication authentication) {
+    public CompletableFuture<ResponseEntity<AppResponse<OrderDTO>>> updateOrder(@RequestBody Order orderToUpdate,
+                                                                               Authentication authentication) {
         String email = ((Jwt) (authentication.getPrincipal())).getClaimAsString("sub");
-        User user = userService.getUserByEmail(email);
-        if (user == null) {
-            log.warning("User " + email + " attempted to update order but does not exist.");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(new AppResponse<>("User not found", null));
-        }
-        
-        Order existingOrder = orderService.findById(orderToUpdate.getId())
-                .orElse(null);
-        if (existingOrder == null) {
-            log.warning("User " + user.getEmail() + " attempted to update order " + orderToUpdate.getId() + " that does not exist.");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(new AppResponse<>("Order not found", null));
-        }
-        if (!existingOrder.getUser().getId().equals(user.getId())) {
-            log.warning("User " + user.getEmail() + " attempted to update order " + orderToUpdate.getId() + " that does not belong to them.");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)// For security reasons, this service won't tell if the order exists or not
-                    .body(new AppResponse<>("Order not found", null));
-        }
-        // Validate order asynchronously (user and products in parallel)
-        try {
-            OrderValidationService.OrderValidationResult validationResult = 
-            orderValidationService.validateOrderAsync(orderToUpdate).get();
-            if (!validationResult.isValid()) {
+        CompletableFuture<ResponseEntity<AppResponse<OrderDTO>>> response = onWriteExecutor(() -> {
+            CachedUser user = userService.getCachedUserByEmail(email);
+            if (user == null) {
+                log.warning("User " + email + " attempted to update order but does not exist.");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new AppResponse<>("User not found", null));
+            }
+            // Only the items that differ are written; the version in the body guards against lost updates
+            Optional<Order> updatedOrder = orderService.updateItems(user.getId(), orderToUpdate.getId(),
+                    orderToUpdate.getVersion(), orderToUpdate.getItems());
+            if (updatedOrder.isEmpty()) {
+                log.warning("User " + user.getEmail() + " attempted to update order " + orderToUpdate.getId() + " that does not exist or does not belong to them.");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)// For security reasons, this service won't tell if the order exists or not
+                        .body(new AppResponse<>("Order not found", null));
+            }
+            OrderDTO orderDTO = orderMapper.toDTO(updatedOrder.get());
+            return ResponseEntity.ok(new AppResponse<>("Order updated successfully", orderDTO));
+        });
+        return withWriteTimeout(response).exceptionally(error -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof OrderValidationService.ValidationException) {
+                log.warning("Update of order " + orderToUpdate.getId() + " rejected: " + cause.getMessage());
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new AppResponse<>(validationResult.getErrorMessage(), null));
+                        .body(new AppResponse<>(cause.getMessage(), null));
             }
-
-            // Properly update items to avoid orphan removal issues
-            // First clear existing items (this will remove them due to orphanRemoval = true)
-            existingOrder.getItems().clear();
-            
-            // Add new items with proper order reference
-            for (Item newItem : orderToUpdate.getItems()) {
-                newItem.setId(null); // Clear ID to ensure it's treated as a new item
-                newItem.setOrder(existingOrder);
-                existingOrder.getItems().add(newItem);
+            if (cause instanceof InsufficientStockException) {
+                log.warning("Update of order " + orderToUpdate.getId() + " rejected: " + cause.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new AppResponse<>(cause.getMessage(), null));
             }
-        
-            try {
-                if (orderService.update(existingOrder)) {
-                    OrderDTO orderDTO = orderMapper.toDTO(existingOrder);
-                    return ResponseEntity.ok(new AppResponse<>("Order updated successfully", orderDTO));
-                } else {
-                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                            .body(new AppResponse<>("Failed to update order", null));
-                }
-            } catch (Exception e) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(new AppResponse<>("Error updating order: " + e.getMessage(), null));
+            if (cause instanceof OptimisticLockingFailureException) {
+                log.warning("Order " + orderToUpdate.getId() + " was modified concurrently: " + cause.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new AppResponse<>("Order was modified by another request. Reload it and try again.", null));
             }
-        } catch (Exception e) {
-            log.warning("Error validating order: " + e.getMessage());
+            if (isOverloaded(cause)) {
+                log.warning("Update of order " + orderToUpdate.getId() + " not completed in time: " + cause);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(new AppResponse<>("Order update could not be completed in time. Reload the order before retrying.", null));
+            }
+            log.warning("Error updating order: " + cause.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new AppResponse<>("Error validating order: " + e.getMessage(), null));
-        }
+                    .body(new AppResponse<>("Error updating order: " + cause.getMessage(), null));
+        });
     }
 
     @DeleteMapping("/me")
@@ -293,31 +435,73 @@ public class OrderController {
     public ResponseEntity<AppResponse<Boolean>> deleteOrder(@RequestParam Long id, Authentication authentication) {
 
         String email = ((Jwt) (authentication.getPrincipal())).getClaimAsString("sub");
-        User user = userService.getUserByEmail(email);
-        Order order = orderService.findById(id)
-                .orElse(null);
+        CachedUser user = userService.getCachedUserByEmail(email);
         if (user == null) {
             log.warning("User " + email + " attempted to delete order " + id + " but does not exist.");
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new AppResponse<>("User not found", false)); 
         }
-        if (order == null) {
-            log.warning("User " + user.getEmail() + " attempted to delete order " + id + " that does not exist.");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(new AppResponse<>("Order not found", false));
-        }
-        if (!order.getUser().getId().equals(user.getId())) {
-            log.warning("User " + user.getEmail() + " attempted to delete order " + id + " that does not belong to them.");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)// For security reasons, this service won't tell if the order exists or not
-                    .body(new AppResponse<>("Order not found", false));
-        }
         try {
-            orderService.deleteById(id);
+            // Ownership is checked by the delete itself; no row means the order does not exist or is not theirs
+            if (orderService.deleteByIdAndUserId(id, user.getId()) == 0) {
+                log.warning("User " + user.getEmail() + " attempted to delete order " + id + " that does not exist or does not belong to them.");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)// For security reasons, this service won't tell if the order exists or not
+                        .body(new AppResponse<>("Order not found", false));
+            }
             return ResponseEntity.ok(new AppResponse<>("Order deleted successfully", true));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new AppResponse<>("Error deleting order: " + e.getMessage(), false));
         }
-        
+    }
+
+    @DeleteMapping("/purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Auditable(operation = "PURGE_ORDERS", entityType = "Order", logParameters = true, logResult = true)
+    @ExecutionTime(operation = "Purge Orders", warningThreshold = 30000)
+    public ResponseEntity<AppResponse<Long>> purgeOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            long deleted = orderPurgeService.purgeCreatedBetween(from, to);
+            return ResponseEntity.ok(new AppResponse<>(deleted + " orders deleted", deleted));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AppResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            log.warning("Error purging orders: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new AppResponse<>("Error purging orders: " + e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Runs an order write on the write executor, so the request thread is released while it runs.
+     */
+    private <T> CompletableFuture<T> onWriteExecutor(Supplier<T> write) {
+        try {
+            return CompletableFuture.supplyAsync(write, orderWriteExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Fails the response with a {@link TimeoutException} when the write takes longer than {@code order.write.timeout};
+     * the write itself is not interrupted and may still complete.
+     */
+    private <T> CompletableFuture<T> withWriteTimeout(CompletableFuture<T> response) {
+        return response.orTimeout(writeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Whether the write timed out or was refused because too many writes are waiting, answered with 503.
+     */
+    private static boolean isOverloaded(Throwable cause) {
+        return cause instanceof TimeoutException || cause instanceof RejectedExecutionException;
     }
 }
@@ -0,0 +1,89 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position inside the order listings, ordered by {@code (createdAt, id)} descending.
+ * <p>
+ * The cursor is handed to clients as an opaque URL-safe string. Clients must not build
+ * or parse it themselves; they only send back the {@code next} value of the previous page.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+public final class OrderCursor {
+    private static final String SEPARATOR = "~";
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    /**
+     * @throws IllegalStateException if the order has no creation date or ID; the column is not nullable, so this
+     * is a server error and never reported to the client as an invalid cursor
+     */
+    public OrderCursor(LocalDateTime createdAt, Long id) {
+        if (createdAt == null || id == null) {
+            throw new IllegalStateException(
+                    "Cursor position requires createdAt and id, got " + createdAt + ", " + id);
+        }
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Builds the cursor pointing right after the given order.
+     *
+     * @param order the last order of the current page
+     * @return the cursor for the next page
+     */
+    public static OrderCursor after(Order order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    /**
+     * Encodes this position into the opaque representation returned to clients.
+     *
+     * @return URL-safe cursor string
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor, may be null or blank for the first page
+     * @return the decoded position, or null when no cursor was given
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, separator));
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new OrderCursor(createdAt, id);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aspiresys.fp_micro_orderservice.aop.annotation.ExecutionTime;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.java.Log;
+
+/**
+ * Writes every order as newline-delimited JSON (one {@code OrderDTO} per line).
+ * <p>
+ * Orders are read through {@link OrderRepository#streamAll()} and the persistence context is
+ * cleared every {@code order.export.chunk-size} rows, so the memory used by an export does not
+ * grow with the number of orders. Output is flushed at the same cadence so the client starts
+ * receiving data right away.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Service
+@Log
+public class OrderExportService {
+
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectWriter orderWriter;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public OrderExportService(OrderRepository orderRepository,
+                              OrderMapper orderMapper,
+                              ObjectMapper objectMapper,
+                              @Value("${order.export.chunk-size:500}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.orderWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Streams all orders to the given output as NDJSON.
+     *
+     * @param out the response output stream; it is flushed but not closed
+     * @return the number of exported orders
+     * @throws IOException if writing to the output fails
+     */
+    @Transactional(readOnly = true)
+    @ExecutionTime(operation = "Export Orders", warningThreshold = 60000)
+    public long exportAll(OutputStream out) throws IOException {
+        long exported = 0;
+        try (JsonGenerator generator = orderWriter.getFactory().createGenerator(out);
+             Stream<Order> orders = orderRepository.streamAll()) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                orderWriter.writeValue(generator, orderMapper.toDTO(iterator.next()));
+                generator.writeRaw('\n');
+                exported++;
+                if (exported % chunkSize == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+            generator.flush();
+        }
+        log.info("EXPORT: Streamed " + exported + " orders as NDJSON");
+        return exported;
+    }
+}
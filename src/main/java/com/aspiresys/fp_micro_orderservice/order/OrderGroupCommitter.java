@@ -0,0 +1,256 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeIdGenerator;
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService.ValidationException;
+import com.aspiresys.fp_micro_orderservice.order.journal.AcceptedOrder;
+import com.aspiresys.fp_micro_orderservice.order.journal.AcceptedOrderWriter;
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+
+/**
+ * Creates concurrent orders together, so many callers share one transaction and one commit.
+ * <p>
+ * Callers queue their order and wait for its future. A single thread takes the first queued order, keeps
+ * collecting until the group is full or the window has passed since the first one, and stores the group in one
+ * transaction with batched inserts ({@link AcceptedOrderWriter}): one read of the users and products, one stock
+ * update and one commit for the whole group. Each caller's future is completed with its own order.
+ * </p>
+ * <p>
+ * One order never fails the group. An order without items or with an item that references no product fails right
+ * away with a {@link ValidationException}. Orders that the group rejects, invalid or short of stock, are created
+ * again alone with {@link OrderService#create}, so their caller gets the same error as without group commit. If
+ * the group transaction itself fails (for instance, concurrent orders took the stock it counted on) every order
+ * of the group is created alone. Orders created alone run on the {@code orderWriteExecutor}, so the committer
+ * thread goes on collecting the next group meanwhile.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.group-commit.enabled} - whether {@code POST /orders/me} goes through the group commit
+ *   (default false).</li>
+ *   <li>{@code order.group-commit.max-size} - maximum number of orders per group (default 64).</li>
+ *   <li>{@code order.group-commit.window} - how long the first order of a group waits for others (default 5 ms).</li>
+ *   <li>{@code order.group-commit.max-pending} - maximum number of queued orders; more are refused (default 10000).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Service
+@Log
+public class OrderGroupCommitter {
+    private final AcceptedOrderWriter writer;
+    private final OrderService orderService;
+    private final SnowflakeIdGenerator idGenerator;
+    private final Executor orderWriteExecutor;
+    private final boolean enabled;
+    private final int maxSize;
+    private final Duration window;
+    private final BlockingQueue<PendingOrder> queue;
+
+    private Thread committer;
+    private volatile boolean running;
+
+    private record PendingOrder(String email, List<Item> items, CompletableFuture<Order> future) {
+    }
+
+    public OrderGroupCommitter(AcceptedOrderWriter writer, OrderService orderService, SnowflakeIdGenerator idGenerator,
+                               @Qualifier("orderWriteExecutor") Executor orderWriteExecutor,
+                               @Value("${order.group-commit.enabled:false}") boolean enabled,
+                               @Value("${order.group-commit.max-size:64}") int maxSize,
+                               @Value("${order.group-commit.window:PT0.005S}") Duration window,
+                               @Value("${order.group-commit.max-pending:10000}") int maxPending) {
+        this.writer = writer;
+        this.orderService = orderService;
+        this.idGenerator = idGenerator;
+        this.orderWriteExecutor = orderWriteExecutor;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.window = window;
+        this.queue = new LinkedBlockingQueue<>(maxPending);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::run, "order-group-commit");
+        committer.setDaemon(true);
+        committer.start();
+        log.info("GROUP COMMIT: Creating orders in groups of up to " + maxSize + " within " + window);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        committer.interrupt();
+        committer.join(10_000);
+        PendingOrder pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future().completeExceptionally(new IllegalStateException("Order service is shutting down"));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an order to be created with the next group.
+     *
+     * @param email the email of the user placing the order
+     * @param items the requested items; only their product ID and quantity are used
+     * @return the created order, or the error of {@link OrderService#create} for this order
+     */
+    public CompletableFuture<Order> submit(String email, List<Item> items) {
+        CompletableFuture<Order> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Group commit is not running"));
+        } else if (!queue.offer(new PendingOrder(email, items, future))) {
+            future.completeExceptionally(new RejectedExecutionException("Too many orders waiting to be created"));
+        }
+        return future;
+    }
+
+    /**
+     * Creates an order with the next group and waits for it.
+     *
+     * @param email the email of the user placing the order
+     * @param items the requested items; only their product ID and quantity are used
+     * @return the created order
+     * @throws ValidationException if the user does not exist or an item is invalid or references an unknown product
+     * @throws InsufficientStockException if the stock of a product does not cover the ordered quantity
+     */
+    public Order create(String email, List<Item> items) {
+        try {
+            return submit(email, items).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void run() {
+        List<PendingOrder> group = new ArrayList<>(maxSize);
+        while (running) {
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + window.toNanos();
+                while (group.size() < maxSize) {
+                    PendingOrder next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(pending -> pending.future()
+                        .completeExceptionally(new IllegalStateException("Order service is shutting down")));
+                return;
+            } catch (RuntimeException e) {
+                log.severe("GROUP COMMIT: Unexpected error: " + e.getMessage());
+                group.forEach(pending -> pending.future().completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Stores a group in one transaction and completes the future of every order; the orders left out are created
+     * one by one on the write executor.
+     */
+    private void commit(List<PendingOrder> group) {
+        Map<Long, PendingOrder> remaining = new LinkedHashMap<>();
+        List<AcceptedOrder> orders = new ArrayList<>(group.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (PendingOrder pending : group) {
+            String incomplete = incompleteError(pending.items());
+            if (incomplete != null) {
+                pending.future().completeExceptionally(new ValidationException(incomplete));
+                continue;
+            }
+            long orderId = idGenerator.nextId();
+            remaining.put(orderId, pending);
+            orders.add(AcceptedOrder.builder()
+                    .orderId(orderId)
+                    .email(pending.email())
+                    .acceptedAt(now)
+                    .items(pending.items().stream()
+                            .map(item -> new AcceptedOrder.AcceptedItem(item.getProduct().getId(), item.getQuantity()))
+                            .toList())
+                    .build());
+        }
+        if (!orders.isEmpty()) {
+            try {
+                AcceptedOrderWriter.Result result = writer.write(orders);
+                for (Order order : result.stored()) {
+                    remaining.remove(order.getId()).future().complete(order);
+                }
+            } catch (RuntimeException e) {
+                log.warning("GROUP COMMIT: Group of " + orders.size() + " orders failed, creating them one by one: "
+                        + e.getMessage());
+            }
+        }
+        // Rejected orders, and all of them if the group failed, get the outcome they would have had alone
+        remaining.values().forEach(this::createAlone);
+    }
+
+    private void createAlone(PendingOrder pending) {
+        try {
+            orderWriteExecutor.execute(() -> {
+                try {
+                    pending.future().complete(orderService.create(pending.email(), pending.items()));
+                } catch (RuntimeException e) {
+                    pending.future().completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.future().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * The error {@link OrderValidationService} reports for items that cannot even be grouped, or null if every
+     * item references a product.
+     */
+    private static String incompleteError(List<Item> items) {
+        if (items == null || items.isEmpty()) {
+            return "Order must contain at least one item";
+        }
+        boolean complete = items.stream().allMatch(item -> item != null && item.getProduct() != null
+                && item.getProduct().getId() != null);
+        return complete ? null : "Every item must reference a product";
+    }
+}
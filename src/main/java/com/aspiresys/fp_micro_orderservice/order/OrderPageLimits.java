@@ -0,0 +1,41 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Page size bounds shared by every paginated order listing.
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.pagination.default-size} - size used when the client does not ask for one (default 20).</li>
+ *   <li>{@code order.pagination.max-size} - upper bound applied to any requested size (default 100).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component
+public class OrderPageLimits {
+    private final int defaultSize;
+    private final int maxSize;
+
+    public OrderPageLimits(@Value("${order.pagination.default-size:20}") int defaultSize,
+                           @Value("${order.pagination.max-size:100}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Applies the default page size when none is requested and caps it to the configured maximum.
+     *
+     * @param size the requested size, may be null
+     * @return the effective page size
+     */
+    public int resolve(Integer size) {
+        if (size == null || size <= 0) {
+            return Math.min(defaultSize, maxSize);
+        }
+        return Math.min(size, maxSize);
+    }
+}
@@ -0,0 +1,61 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aspiresys.fp_micro_orderservice.aop.annotation.ExecutionTime;
+
+import lombok.extern.java.Log;
+
+/**
+ * Deletes the orders created in a date range, for administrators.
+ * <p>
+ * The range is deleted in chunks, each in its own transaction ({@link OrderService#deleteCreatedBetween}), so a
+ * large purge never holds locks on the whole range or builds one huge undo log. A failure stops the purge; the
+ * chunks already deleted stay deleted and the purge can simply be run again.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.purge.chunk-size} - maximum number of orders deleted per transaction (default 1000).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Service
+@Log
+public class OrderPurgeService {
+    private final OrderService orderService;
+    private final int chunkSize;
+
+    public OrderPurgeService(OrderService orderService, @Value("${order.purge.chunk-size:1000}") int chunkSize) {
+        this.orderService = orderService;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Deletes every order created in a date range.
+     *
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @return the number of orders deleted
+     * @throws IllegalArgumentException if the range is missing or empty
+     */
+    @ExecutionTime(operation = "Purge Orders", warningThreshold = 30000)
+    public long purgeCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        long total = 0;
+        int deleted;
+        do {
+            deleted = orderService.deleteCreatedBetween(from, to, chunkSize);
+            total += deleted;
+        } while (deleted == chunkSize);
+        log.info("Purged " + total + " orders created between " + from + " and " + to);
+        return total;
+    }
+}
@@ -0,0 +1,162 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aspiresys.fp_micro_orderservice.aop.annotation.ExecutionTime;
+import com.aspiresys.fp_micro_orderservice.aop.annotation.ValidateParameters;
+import com.aspiresys.fp_micro_orderservice.common.dto.CursorPage;
+import com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderDTO;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderSearchCriteria;
+
+import lombok.extern.java.Log;
+
+/**
+ * Read side of the order API.
+ * <p>
+ * Answers the order listings and lookups directly with {@code OrderDTO}s built from flat
+ * projection rows ({@link OrderRepository#findItemRowsByOrderIds}). Entities are never loaded,
+ * so there is no persistence context to fill, no dirty-checking snapshot and no lazy loading.
+ * Every read costs two statements: the keyset page of order IDs and the rows of those orders.
+ * </p>
+ * <p>
+ * Writes and any code that needs managed entities keep using {@link OrderService}.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Service
+@Log
+public class OrderQueryService {
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final OrderPageLimits pageLimits;
+    private final UserOrdersCache userOrdersCache;
+
+    public OrderQueryService(OrderRepository orderRepository, OrderMapper orderMapper, OrderPageLimits pageLimits,
+                             UserOrdersCache userOrdersCache) {
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.pageLimits = pageLimits;
+        this.userOrdersCache = userOrdersCache;
+    }
+
+    /**
+     * Finds a page of orders, newest first.
+     *
+     * @param cursor The opaque cursor of the previous page, or null for the first page
+     * @param size The requested page size, or null for the default
+     * @return The page of orders
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    @ExecutionTime(operation = "Query Orders Page", warningThreshold = 1000)
+    public CursorPage<OrderDTO> findPage(String cursor, Integer size) {
+        return findPage(null, cursor, size);
+    }
+
+    /**
+     * Finds a page of orders of a user, newest first.
+     * The first page with the default size is served from {@link UserOrdersCache} while the
+     * orders version of the user matches the cached one.
+     *
+     * @param userId The ID of the user
+     * @param ordersVersion The current orders version of the user, or null if it has none yet
+     * @param cursor The opaque cursor of the previous page, or null for the first page
+     * @param size The requested page size, or null for the default
+     * @return The page of orders of the user
+     * @throws IllegalArgumentException if the user ID is null or the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    @ExecutionTime(operation = "Query Orders Page by User ID")
+    public CursorPage<OrderDTO> findPageByUserId(Long userId, Long ordersVersion, String cursor, Integer size) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if ((cursor == null || cursor.isBlank()) && size == null) {
+            long version = ordersVersion != null ? ordersVersion : 0L;
+            return userOrdersCache.getFirstPage(userId, version, id -> findPage(id, null, null));
+        }
+        return findPage(userId, cursor, size);
+    }
+
+    /**
+     * Finds a page of the orders matching the search filters, newest first.
+     * Filtering and paging happen in the database ({@link OrderSpecifications}); only the IDs of
+     * the page are selected and then read as projection rows.
+     *
+     * @param criteria The search filters
+     * @param cursor The opaque cursor of the previous page, or null for the first page
+     * @param size The requested page size, or null for the default
+     * @return The page of matching orders
+     * @throws IllegalArgumentException if a range is inverted or the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    @ExecutionTime(operation = "Search Orders", warningThreshold = 1000)
+    public CursorPage<OrderDTO> search(OrderSearchCriteria criteria, String cursor, Integer size) {
+        if (criteria != null) {
+            criteria.validate();
+        }
+        int pageSize = pageLimits.resolve(size);
+        List<Long> ids = orderRepository.findIdsBy(
+                OrderSpecifications.matching(criteria, OrderCursor.decode(cursor)), pageSize + 1);
+        return toPage(ids, pageSize);
+    }
+
+    /**
+     * Finds a single order.
+     *
+     * @param id The ID of the order
+     * @return the order, or empty if it does not exist
+     */
+    @Transactional(readOnly = true)
+    @ValidateParameters(notNull = true, message = "Order ID cannot be null")
+    @ExecutionTime(operation = "Query Order by ID")
+    public Optional<OrderDTO> findById(Long id) {
+        List<OrderDTO> orders = orderMapper.toDTOListFromRows(orderRepository.findItemRowsByOrderIds(List.of(id)));
+        return orders.stream().findFirst();
+    }
+
+    /**
+     * Reads the version of a single order without loading it, to answer conditional requests.
+     *
+     * @param id The ID of the order
+     * @return the version marker of the order, or empty if it does not exist
+     */
+    @Transactional(readOnly = true)
+    @ValidateParameters(notNull = true, message = "Order ID cannot be null")
+    public Optional<VersionMarker> findVersionMarker(Long id) {
+        return orderRepository.findVersionMarkerById(id);
+    }
+
+    private CursorPage<OrderDTO> findPage(Long userId, String cursor, Integer size) {
+        int pageSize = pageLimits.resolve(size);
+        List<Long> ids = orderRepository.findPageIds(userId, OrderCursor.decode(cursor), pageSize + 1);
+        return toPage(ids, pageSize);
+    }
+
+    /**
+     * Trims the look-ahead ID, reads the orders of the page as DTOs and builds the cursor of the next
+     * page from the last one.
+     */
+    private CursorPage<OrderDTO> toPage(List<Long> ids, int pageSize) {
+        if (ids.isEmpty()) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+        boolean hasNext = ids.size() > pageSize;
+        List<OrderDTO> content = orderMapper.toDTOListFromRows(
+                orderRepository.findItemRowsByOrderIds(hasNext ? ids.subList(0, pageSize) : ids));
+        String next = null;
+        if (hasNext && !content.isEmpty()) {
+            OrderDTO last = content.get(content.size() - 1);
+            next = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(content, next);
+    }
+}
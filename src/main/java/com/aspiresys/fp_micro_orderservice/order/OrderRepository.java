@@ -1,21 +1,285 @@
 package com.aspiresys.fp_micro_orderservice.order;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderItemRow;
+import com.aspiresys.fp_micro_orderservice.order.dto.ProductQuantity;
+
+import jakarta.persistence.QueryHint;
+
 /**
  * Repositorio para la entidad Order.
  * Permite operaciones CRUD sobre las órdenes de compra.
+ * Las búsquedas dinámicas se implementan en {@link OrderSearchRepository}.
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository {
     /**
      * Finds all orders associated with a specific user ID.
-     * 
+     *
      * @param id The ID of the user.
      * @return List of orders associated with the user.
      */
     List<Order> findByUserId(Long id);
+
+    /**
+     * Finds the ID of the user who owns an order without loading the order.
+     *
+     * @param id The ID of the order.
+     * @return the ID of the owner, or empty if the order does not exist.
+     */
+    @Query("select o.user.id from Order o where o.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    /**
+     * Reads the version and last modification time of an order without loading it.
+     *
+     * @param id The ID of the order.
+     * @return the version marker of the order, or empty if the order does not exist.
+     */
+    @Query("select new com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker(o.id, o.version, o.updatedAt) "
+            + "from Order o where o.id = :id")
+    Optional<VersionMarker> findVersionMarkerById(@Param("id") Long id);
+
+    /**
+     * Finds all orders of a user together with their items and products, newest first.
+     * The {@value Order#WITH_ITEMS_GRAPH} fetch plan loads everything in one query instead of
+     * one query per order for its items.
+     *
+     * @param userId The ID of the user.
+     * @return List of fully loaded orders associated with the user.
+     */
+    @EntityGraph(Order.WITH_ITEMS_GRAPH)
+    @Query("select o from Order o where o.user.id = :userId order by o.createdAt desc, o.id desc")
+    List<Order> findByUserIdWithItems(@Param("userId") Long userId);
+
+    /**
+     * Finds an order together with its user, items and products in one query.
+     *
+     * @param id The ID of the order.
+     * @return the fully loaded order, or empty if it does not exist.
+     */
+    @EntityGraph(Order.WITH_ITEMS_GRAPH)
+    @Query("select o from Order o where o.id = :id")
+    Optional<Order> findByIdWithItems(@Param("id") Long id);
+
+    /**
+     * Loads a page of orders, previously selected by ID, together with their user, items and products.
+     * <p>
+     * Pagination is done on IDs first ({@code find*PageIds*}) because fetching a collection in a
+     * paginated query would make Hibernate apply the limit in memory.
+     * </p>
+     *
+     * @param ids the IDs of the orders of the page
+     * @return the fully loaded orders ordered by {@code (createdAt, id)} descending
+     */
+    @EntityGraph(Order.WITH_ITEMS_GRAPH)
+    @Query("select o from Order o where o.id in :ids order by o.createdAt desc, o.id desc")
+    List<Order> findAllWithItems(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds the IDs of the first page of orders, newest first.
+     * Only the page size of the {@link Pageable} is used, no count query is issued.
+     *
+     * @param pageable the page size to fetch
+     * @return the IDs of the newest orders ordered by {@code (createdAt, id)} descending
+     */
+    @Query("select o.id from Order o order by o.createdAt desc, o.id desc")
+    List<Long> findFirstPageIds(Pageable pageable);
+
+    /**
+     * Finds the IDs of the orders that come right after the given keyset position, newest first.
+     *
+     * @param createdAt creation date of the last order already returned
+     * @param id ID of the last order already returned
+     * @param pageable the page size to fetch
+     * @return the IDs of the next orders ordered by {@code (createdAt, id)} descending
+     */
+    @Query("select o.id from Order o " +
+           "where o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id) " +
+           "order by o.createdAt desc, o.id desc")
+    List<Long> findPageIdsAfter(@Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                Pageable pageable);
+
+    /**
+     * Finds the IDs of the first page of orders of a user, newest first.
+     *
+     * @param userId the ID of the user
+     * @param pageable the page size to fetch
+     * @return the IDs of the newest orders of the user ordered by {@code (createdAt, id)} descending
+     */
+    @Query("select o.id from Order o where o.user.id = :userId order by o.createdAt desc, o.id desc")
+    List<Long> findFirstPageIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Finds the IDs of the orders of a user that come right after the given keyset position, newest first.
+     *
+     * @param userId the ID of the user
+     * @param createdAt creation date of the last order already returned
+     * @param id ID of the last order already returned
+     * @param pageable the page size to fetch
+     * @return the IDs of the next orders of the user ordered by {@code (createdAt, id)} descending
+     */
+    @Query("select o.id from Order o " +
+           "where o.user.id = :userId " +
+           "and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) " +
+           "order by o.createdAt desc, o.id desc")
+    List<Long> findPageIdsAfterByUserId(@Param("userId") Long userId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    /**
+     * Selects the IDs of one keyset page, newest first, for all orders or for the orders of one user.
+     *
+     * @param userId the owner of the orders, or null to page over all orders
+     * @param position the position after which the page starts, or null for the first page
+     * @param limit the number of IDs to fetch
+     * @return the IDs of the page ordered by {@code (createdAt, id)} descending
+     */
+    default List<Long> findPageIds(Long userId, OrderCursor position, int limit) {
+        PageRequest pageable = PageRequest.of(0, limit);
+        if (userId == null) {
+            return position == null
+                    ? findFirstPageIds(pageable)
+                    : findPageIdsAfter(position.getCreatedAt(), position.getId(), pageable);
+        }
+        return position == null
+                ? findFirstPageIdsByUserId(userId, pageable)
+                : findPageIdsAfterByUserId(userId, position.getCreatedAt(), position.getId(), pageable);
+    }
+
+    /**
+     * Reads the given orders as flat {@link OrderItemRow} rows, one per item, with exactly the
+     * columns needed to build {@code OrderDTO}s. No entity is loaded into the persistence context.
+     * Product data comes from the snapshot stored on each item, so {@code products} is not joined.
+     *
+     * @param ids the IDs of the orders to read
+     * @return the rows ordered by {@code (createdAt, id)} descending and then by item ID
+     */
+    @Query("select new com.aspiresys.fp_micro_orderservice.order.dto.OrderItemRow(" +
+           "o.id, o.createdAt, u.email, o.total, o.itemCount, o.version, i.id, i.product.id, i.productName, i.unitPrice, " +
+           "i.productCategory, i.productImageUrl, i.quantity) " +
+           "from Order o left join o.user u left join o.items i " +
+           "where o.id in :ids " +
+           "order by o.createdAt desc, o.id desc, i.id")
+    List<OrderItemRow> findItemRowsByOrderIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams every order ordered by ID, reading rows from the database in chunks
+     * instead of materializing the whole result list.
+     * <p>
+     * Must be consumed inside a transaction and closed afterwards. With MySQL the JDBC URL
+     * needs {@code useCursorFetch=true} so that the driver honours the fetch size instead of
+     * buffering the whole result set on the client.
+     * </p>
+     *
+     * @return a lazily populated stream of orders
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select o from Order o order by o.id")
+    Stream<Order> streamAll();
+
+    /**
+     * Finds the IDs of the orders created in a date range, oldest ID first.
+     *
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @param pageable the number of IDs to fetch
+     * @return the IDs of the orders created in the range
+     */
+    @Query("select o.id from Order o where o.createdAt >= :from and o.createdAt < :to order by o.id")
+    List<Long> findIdsCreatedBetween(@Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     Pageable pageable);
+
+    /**
+     * Finds which of the given order IDs are already stored.
+     *
+     * @param ids the IDs to check
+     * @return the IDs that exist
+     */
+    @Query("select o.id from Order o where o.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds the distinct owners of the given orders.
+     *
+     * @param ids the IDs of the orders
+     * @return the IDs of their users
+     */
+    @Query("select distinct o.user.id from Order o where o.id in :ids")
+    List<Long> findUserIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Sums the quantity of each product across the items of an order, only when the order belongs to the given user.
+     *
+     * @param id the ID of the order
+     * @param userId the ID of the user who must own the order
+     * @return one row per product, empty if the order does not exist or belongs to another user
+     */
+    @Query("select new com.aspiresys.fp_micro_orderservice.order.dto.ProductQuantity(i.product.id, sum(i.quantity)) "
+            + "from Item i where i.order.id = :id and i.order.user.id = :userId group by i.product.id")
+    List<ProductQuantity> findProductQuantitiesByOrderIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Deletes the items of an order in one statement, only when the order belongs to the given user.
+     * Items already loaded in the persistence context are not detached.
+     *
+     * @param id the ID of the order
+     * @param userId the ID of the user who must own the order
+     * @return the number of items deleted
+     */
+    @Modifying
+    @Query("delete from Item i where i.order.id in (select o.id from Order o where o.id = :id and o.user.id = :userId)")
+    int deleteItemsByOrderIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Deletes an order in one statement, only when it belongs to the given user.
+     * Its items must be deleted first ({@link #deleteItemsByOrderIdAndUserId}).
+     *
+     * @param id the ID of the order
+     * @param userId the ID of the user who must own the order
+     * @return 1 if the order was deleted, 0 if it does not exist or belongs to another user
+     */
+    @Modifying
+    @Query("delete from Order o where o.id = :id and o.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Deletes the items of several orders in one statement.
+     *
+     * @param ids the IDs of the orders
+     * @return the number of items deleted
+     */
+    @Modifying
+    @Query("delete from Item i where i.order.id in :ids")
+    int deleteItemsByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes several orders in one statement. Their items must be deleted first ({@link #deleteItemsByOrderIdIn}).
+     *
+     * @param ids the IDs of the orders
+     * @return the number of orders deleted
+     */
+    @Modifying
+    @Query("delete from Order o where o.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
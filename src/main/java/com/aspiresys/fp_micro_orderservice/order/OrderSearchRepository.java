@@ -0,0 +1,22 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Dynamic order queries that return IDs only, mixed into {@link OrderRepository}.
+ *
+ * @author bruno.gil
+ */
+public interface OrderSearchRepository {
+
+    /**
+     * Finds the IDs of the orders matching the specification, newest first.
+     *
+     * @param spec the filters to apply
+     * @param limit the maximum number of IDs to return
+     * @return the IDs ordered by {@code (createdAt, id)} descending
+     */
+    List<Long> findIdsBy(Specification<Order> spec, int limit);
+}
@@ -1,8 +1,12 @@
 package com.aspiresys.fp_micro_orderservice.order;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import com.aspiresys.fp_micro_orderservice.common.dto.CursorPage;
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+
 /**
  * Interfaz para el servicio de gestión de órdenes de compra.
  */
@@ -27,6 +31,25 @@ public interface OrderService {
      */
     boolean save(Order order);
 
+    /**
+     * Creates a new order of a user in a single transaction: resolves the user and the products,
+     * validates the items and saves the order.
+     * @param email The email of the user placing the order.
+     * @param items The requested items, referencing their product by ID.
+     * @return The created order.
+     * @throws OrderValidationService.ValidationException if the user does not exist or an item is invalid.
+     */
+    Order create(String email, List<Item> items);
+
+    /**
+     * Saves several new orders in a single transaction.
+     * Inserts are grouped in JDBC batches ({@code hibernate.jdbc.batch_size}).
+     * @param orders The orders to save. None of them may have an ID.
+     * @return The saved orders, in the same order.
+     * @throws IllegalArgumentException if an order already has an ID.
+     */
+    List<Order> saveAll(List<Order> orders);
+
     /**
      * Deletes an order by its ID.
      * @param id The ID of the order to delete.
@@ -34,6 +57,23 @@ public interface OrderService {
      */
     boolean deleteById(Long orderId);
 
+    /**
+     * Deletes an order of a user with bulk statements, without loading it, and gives its stock back.
+     * @param orderId The ID of the order to delete.
+     * @param userId The ID of the user who must own the order.
+     * @return 1 if the order was deleted, 0 if it does not exist or belongs to another user.
+     */
+    int deleteByIdAndUserId(Long orderId, Long userId);
+
+    /**
+     * Deletes one chunk of the orders created in a date range, in its own transaction.
+     * @param from Start of the range, inclusive.
+     * @param to End of the range, exclusive.
+     * @param limit Maximum number of orders to delete.
+     * @return The number of orders deleted; less than {@code limit} when the range is exhausted.
+     */
+    int deleteCreatedBetween(LocalDateTime from, LocalDateTime to, int limit);
+
     /**
      * Updates an existing order.
      * @param order The order to update.
@@ -42,10 +82,41 @@ public interface OrderService {
      */
     boolean update(Order order);
 
+    /**
+     * Replaces the items of an order of a user with the requested ones, writing only the items that differ.
+     * @param userId The ID of the user who owns the order.
+     * @param orderId The ID of the order.
+     * @param expectedVersion The version of the order the client edited, or null to skip the check.
+     * @param items The requested items; only their product ID and quantity are used.
+     * @return The updated order, or empty if it does not exist or belongs to another user.
+     * @throws OrderValidationService.ValidationException if an item is invalid or references an unknown product.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the order was modified since it was read.
+     */
+    Optional<Order> updateItems(Long userId, Long orderId, Long expectedVersion, List<Item> items);
+
     /**
      * Finds orders by user ID.
      * @param id The ID of the user.
      * @return List of orders associated with the user.
      */
     List<Order> findByUserId(Long id);
+
+    /**
+     * Finds a page of orders, newest first, using keyset pagination on {@code (createdAt, id)}.
+     * @param cursor The opaque cursor returned by the previous page, or null for the first page.
+     * @param size The requested page size, or null for the default. It is capped to the configured maximum.
+     * @return The page of orders and the cursor of the next page, if any.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    CursorPage<Order> findPage(String cursor, Integer size);
+
+    /**
+     * Finds a page of orders of a user, newest first, using keyset pagination on {@code (createdAt, id)}.
+     * @param userId The ID of the user.
+     * @param cursor The opaque cursor returned by the previous page, or null for the first page.
+     * @param size The requested page size, or null for the default. It is capped to the configured maximum.
+     * @return The page of orders and the cursor of the next page, if any.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    CursorPage<Order> findPageByUserId(Long userId, String cursor, Integer size);
 }
@@ -1,11 +1,34 @@
 package com.aspiresys.fp_micro_orderservice.order;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import lombok.extern.java.Log;
 
+import com.aspiresys.fp_micro_orderservice.common.dto.CursorPage;
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService.ValidationException;
+import com.aspiresys.fp_micro_orderservice.order.dto.ProductQuantity;
+import com.aspiresys.fp_micro_orderservice.order.outbox.OrderOutbox;
+import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.product.ProductCatalog;
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+import com.aspiresys.fp_micro_orderservice.product.ProductService;
+import com.aspiresys.fp_micro_orderservice.product.StockReservationService;
+import com.aspiresys.fp_micro_orderservice.user.User;
+import com.aspiresys.fp_micro_orderservice.user.UserService;
+
 // AOP imports
 import com.aspiresys.fp_micro_orderservice.aop.annotation.Auditable;
 import com.aspiresys.fp_micro_orderservice.aop.annotation.ExecutionTime;
@@ -18,28 +41,57 @@ import com.aspiresys.fp_micro_orderservice.aop.annotation.ValidateParameters;
  * Provides methods to find, save, update, and delete orders. This service interacts with the OrderRepository to perform CRUD operations
  * on order entities.
  * </p>
+ * <p>
+ * Every write recomputes the persisted total and item count of the order ({@link Order#refreshSummary()}),
+ * stamps {@code updatedAt} on the order and bumps the orders marker of its owner
+ * ({@link UserService#markOrdersModified}) in the same transaction, so conditional reads see the change
+ * exactly when it commits.
+ * </p>
+ * <p>
+ * Every write also records an order event in the outbox ({@link OrderOutbox}), in the same transaction, so the
+ * services that follow orders learn about exactly the changes that were committed.
+ * </p>
  * @author bruno.gil
  */
 @Service
 @Log
 public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
+    private final OrderPageLimits pageLimits;
+    private final UserOrdersCache userOrdersCache;
+    private final UserService userService;
+    private final ProductService productService;
+    private final OrderValidationService orderValidationService;
+    private final StockReservationService stockReservationService;
+    private final OrderOutbox orderOutbox;
 
-    public OrderServiceImpl(OrderRepository orderRepository) {
+    public OrderServiceImpl(OrderRepository orderRepository, OrderPageLimits pageLimits, UserOrdersCache userOrdersCache,
+                            UserService userService, ProductService productService,
+                            OrderValidationService orderValidationService,
+                            StockReservationService stockReservationService, OrderOutbox orderOutbox) {
         this.orderRepository = orderRepository;
+        this.pageLimits = pageLimits;
+        this.userOrdersCache = userOrdersCache;
+        this.userService = userService;
+        this.productService = productService;
+        this.orderValidationService = orderValidationService;
+        this.stockReservationService = stockReservationService;
+        this.orderOutbox = orderOutbox;
     }
 
     @Override
+    @Transactional(readOnly = true)
     @ExecutionTime(operation = "Find All Orders", warningThreshold = 1000)
     public List<Order> findAll() {
         return orderRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     @ValidateParameters(notNull = true, message = "Order ID cannot be null")
     @ExecutionTime(operation = "Find Order by ID")
     public Optional<Order> findById(Long id) {
-        return orderRepository.findById(id);
+        return orderRepository.findByIdWithItems(id);
     }
 
     /**
@@ -74,10 +126,17 @@ public class OrderServiceImpl implements OrderService {
         }
         
         try {
+            if (order.getCreatedAt() == null) {
+                order.setCreatedAt(LocalDateTime.now());
+            }
+            order.setUpdatedAt(order.getCreatedAt());
+            order.refreshSummary();
             Order savedOrder = orderRepository.save(order);
             boolean success = savedOrder != null;
             if (success) {
                 log.info("Order saved successfully with ID: " + savedOrder.getId());
+                ordersModified(ownerId(savedOrder));
+                orderOutbox.orderCreated(savedOrder);
             } else {
                 log.warning("Failed to save order - repository returned null");
             }
@@ -88,18 +147,109 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Creates a new order of a user from the requested items.
+     * 
+     * <p>
+     * This is the whole create path in one transaction, with a fixed number of statements: the user is read by
+     * email, the items are validated and snapshotted from the in-memory {@link ProductCatalog} (products not
+     * published to it yet are read with a single query), the stock of every product is taken with one conditional
+     * update, the order is inserted (its ID is assigned by the application, so the item inserts go in JDBC batches)
+     * and the orders marker of the user is bumped. The user is never written back and nothing is read twice.
+     * </p>
+     * 
+     * @param email The email of the user placing the order
+     * @param items The requested items; only their product ID and quantity are used
+     * @return The created order, with its items, total and ID
+     * @throws ValidationException if the user does not exist or an item is invalid or references an unknown product
+     * @throws InsufficientStockException if the stock of a product does not cover the ordered quantity
+     */
+    @Override
+    @Transactional
+    @Auditable(operation = "CREATE_ORDER", entityType = "Order", logResult = true)
+    @ExecutionTime(operation = "Create Order", warningThreshold = 2000, detailed = true)
+    public Order create(String email, List<Item> items) {
+        User user = email != null ? userService.getUserByEmail(email) : null;
+        if (user == null) {
+            throw new ValidationException("User does not exist");
+        }
+        orderValidationService.resolveItems(items);
+        stockReservationService.reserve(OrderValidationService.quantitiesOf(items));
+
+        LocalDateTime now = LocalDateTime.now();
+        Order order = Order.builder()
+                .user(user)
+                .createdAt(now)
+                .updatedAt(now)
+                .items(new ArrayList<>(items))
+                .build();
+        for (Item item : order.getItems()) {
+            item.setId(null);
+            item.setOrder(order);
+        }
+        order.refreshSummary();
+        Order savedOrder = orderRepository.save(order);
+        log.info("Order created with ID " + savedOrder.getId() + " for user " + email);
+        ordersModified(user.getId());
+        orderOutbox.orderCreated(savedOrder);
+        return savedOrder;
+    }
+
+    /**
+     * Saves several new orders in a single transaction.
+     * 
+     * <p>
+     * Every order gets its summary and {@code updatedAt} like in {@link #save(Order)}, but the orders are written
+     * with one {@code saveAll}, so Hibernate groups the inserts in JDBC batches and the whole batch costs one
+     * commit. The orders marker of each owner is bumped once, however many of their orders are in the batch.
+     * </p>
+     * 
+     * @param orders The orders to save
+     * @return The saved orders, in the same order
+     */
+    @Override
+    @Transactional
+    @Auditable(operation = "SAVE_ORDERS", entityType = "Order")
+    @ExecutionTime(operation = "Save Orders", warningThreshold = 5000, detailed = true)
+    @ValidateParameters(notNull = true, message = "Orders cannot be null")
+    public List<Order> saveAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> ownerIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            if (order.getId() != null) {
+                throw new IllegalArgumentException("Order with ID " + order.getId() + " already exists");
+            }
+            if (order.getCreatedAt() == null) {
+                order.setCreatedAt(LocalDateTime.now());
+            }
+            order.setUpdatedAt(order.getCreatedAt());
+            order.refreshSummary();
+            ownerIds.add(ownerId(order));
+        }
+        List<Order> savedOrders = orderRepository.saveAll(orders);
+        log.info("Saved " + savedOrders.size() + " orders in one batch");
+        for (Long userId : ownerIds) {
+            ordersModified(userId);
+        }
+        savedOrders.forEach(orderOutbox::orderCreated);
+        return savedOrders;
+    }
+
     /**
      * Deletes an order by its ID.
      * 
      * <p>
-     * This method checks if the order ID is null or if the order does not exist before attempting to delete it. It logs the operation and
-     * returns true if the order was deleted successfully, false otherwise.
+     * The items and the order are removed with one bulk statement each, without loading them; the affected row
+     * count tells whether the order was deleted, so it is not read again.
      * </p>
      * 
      * @param id The ID of the order to delete
      * @return True if the order was deleted successfully, false otherwise
      */
     @Override
+    @Transactional
     @Auditable(operation = "DELETE_ORDER", entityType = "Order", logParameters = true, logResult = true)
     @ExecutionTime(operation = "Delete Order by ID", warningThreshold = 1500)
     @ValidateParameters(notNull = true, message = "Order ID cannot be null")
@@ -107,11 +257,85 @@ public class OrderServiceImpl implements OrderService {
         if (id == null) {
             throw new IllegalArgumentException("Order ID cannot be null");
         }
-        if (!orderRepository.existsById(id)) {
+        Long ownerId = orderRepository.findUserIdById(id).orElse(null);
+        if (ownerId == null) {
             return false; // Order not found
         }
-        orderRepository.deleteById(id);
-        return !orderRepository.existsById(id); // Check if deletion was successful
+        return deleteByIdAndUserId(id, ownerId) == 1;
+    }
+
+    /**
+     * Deletes an order of a user.
+     * 
+     * <p>
+     * Ownership is part of the delete statements, so an order of another user is never touched and the caller does
+     * not need to load the order to check it first. Items are deleted first, then the order; nothing is cascaded
+     * one row at a time.
+     * </p>
+     * <p>
+     * The quantities of the order are given back to the stock of its products, and to the stock ledger, with the
+     * same conditional update that reserved them. They are read as one sum per product, not as items.
+     * </p>
+     * 
+     * @param id The ID of the order to delete
+     * @param userId The ID of the user who must own the order
+     * @return 1 if the order was deleted, 0 if it does not exist or belongs to another user
+     */
+    @Override
+    @Transactional
+    @Auditable(operation = "DELETE_ORDER", entityType = "Order", logParameters = true, logResult = true)
+    @ExecutionTime(operation = "Delete Order of User", warningThreshold = 1500)
+    @ValidateParameters(notNull = true, message = "Order ID and user ID cannot be null")
+    public int deleteByIdAndUserId(Long id, Long userId) {
+        Map<Long, Integer> released = new TreeMap<>();
+        for (ProductQuantity row : orderRepository.findProductQuantitiesByOrderIdAndUserId(id, userId)) {
+            released.put(row.getProductId(), -Math.toIntExact(row.getQuantity()));
+        }
+        int items = orderRepository.deleteItemsByOrderIdAndUserId(id, userId);
+        int deleted = orderRepository.deleteByIdAndUserId(id, userId);
+        if (deleted > 0) {
+            stockReservationService.reserve(released);
+            log.info("Order " + id + " of user " + userId + " deleted with " + items + " items");
+            ordersModified(userId);
+            orderOutbox.orderDeleted(id, userId);
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes one chunk of the orders created in a date range.
+     * 
+     * <p>
+     * Reads at most {@code limit} order IDs, then deletes their items and the orders with one statement each and
+     * bumps the orders marker of every affected user. Callers repeat it until fewer than {@code limit} orders are
+     * deleted, so each chunk holds its locks only briefly.
+     * </p>
+     * <p>
+     * Unlike {@link #deleteByIdAndUserId}, the stock of the purged orders is not given back: a purge removes orders
+     * that are kept no longer, whose goods are gone, not orders that were withdrawn.
+     * </p>
+     * 
+     * @param from Start of the range, inclusive
+     * @param to End of the range, exclusive
+     * @param limit Maximum number of orders to delete
+     * @return The number of orders deleted
+     */
+    @Override
+    @Transactional
+    @ExecutionTime(operation = "Delete Order Chunk", warningThreshold = 5000)
+    @ValidateParameters(notNull = true, message = "Date range cannot be null")
+    public int deleteCreatedBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        List<Long> ids = orderRepository.findIdsCreatedBetween(from, to, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> ownerIds = orderRepository.findUserIdsByIdIn(ids);
+        int items = orderRepository.deleteItemsByOrderIdIn(ids);
+        int deleted = orderRepository.deleteByIdIn(ids);
+        ownerIds.forEach(this::ordersModified);
+        orderOutbox.ordersDeleted(ids);
+        log.info("Deleted " + deleted + " orders and " + items + " items created between " + from + " and " + to);
+        return deleted;
     }
 
     /**
@@ -147,10 +371,15 @@ public class OrderServiceImpl implements OrderService {
         }
         
         try {
+            // Also makes the order row dirty, so the version is bumped when only the items changed
+            order.setUpdatedAt(LocalDateTime.now());
+            order.refreshSummary();
             Order updatedOrder = orderRepository.save(order);
             boolean success = updatedOrder != null;
             if (success) {
                 log.info("Order updated successfully with ID: " + updatedOrder.getId());
+                ordersModified(ownerId(updatedOrder));
+                orderOutbox.orderUpdated(updatedOrder);
             } else {
                 log.warning("Failed to update order - repository returned null");
             }
@@ -161,6 +390,96 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Replaces the items of an order of a user with the requested ones.
+     * 
+     * <p>
+     * The current and requested items are matched by product ID: an item whose quantity changed is updated in
+     * place, a product that is new to the order gets a new item and only the items of removed products are
+     * deleted. Items that did not change are not written, and kept items keep the price they were ordered at.
+     * The stock of every product whose quantity changed is adjusted with one conditional update.
+     * </p>
+     * <p>
+     * The order row is always updated, so its version is bumped: a client that edited an older version, or a
+     * concurrent update that read the same version, fails with an optimistic locking error instead of silently
+     * overwriting the other edit.
+     * </p>
+     * 
+     * @param userId The ID of the user who owns the order
+     * @param orderId The ID of the order
+     * @param expectedVersion The version of the order the client edited, or null to skip the check
+     * @param items The requested items; only their product ID and quantity are used
+     * @return The updated order, or empty if it does not exist or belongs to another user
+     * @throws ValidationException if the order ID is missing or an item is invalid or references an unknown product
+     * @throws InsufficientStockException if the stock of a product does not cover the added quantity
+     * @throws ObjectOptimisticLockingFailureException if the order is not at the expected version
+     */
+    @Override
+    @Transactional
+    @Auditable(operation = "UPDATE_ORDER_ITEMS", entityType = "Order", logResult = true)
+    @ExecutionTime(operation = "Update Order Items", warningThreshold = 2000, detailed = true)
+    public Optional<Order> updateItems(Long userId, Long orderId, Long expectedVersion, List<Item> items) {
+        if (orderId == null) {
+            throw new ValidationException("Order ID cannot be null for update");
+        }
+        Order order = orderRepository.findByIdWithItems(orderId)
+                .filter(found -> userId != null && userId.equals(ownerId(found)))
+                .orElse(null);
+        if (order == null) {
+            return Optional.empty();
+        }
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            log.warning("Order " + orderId + " is at version " + order.getVersion() + ", update was for version "
+                    + expectedVersion);
+            throw new ObjectOptimisticLockingFailureException(Order.class, orderId);
+        }
+        // The products of the current items too: removing one gives its stock back
+        Set<Long> productIds = OrderValidationService.productIdsOf(order.getItems());
+        productIds.addAll(OrderValidationService.productIdsOf(items));
+        Map<Long, Product> products = productService.getProductsByIds(productIds);
+        orderValidationService.resolveItems(items, products);
+
+        Map<Long, Integer> requested = OrderValidationService.quantitiesOf(items);
+        Map<Long, Integer> stockChanges = new TreeMap<>();
+        Set<Long> kept = new HashSet<>();
+        Iterator<Item> current = order.getItems().iterator();
+        while (current.hasNext()) {
+            Item item = current.next();
+            Long productId = item.getProduct() != null ? item.getProduct().getId() : null;
+            Integer quantity = productId != null ? requested.get(productId) : null;
+            if (quantity == null || !kept.add(productId)) {
+                // Removed product, or a duplicate line of a kept product: orphan removal deletes the row
+                current.remove();
+                if (productId != null) {
+                    stockChanges.merge(productId, -item.getQuantity(), Integer::sum);
+                }
+            } else if (item.getQuantity() != quantity) {
+                stockChanges.merge(productId, quantity - item.getQuantity(), Integer::sum);
+                item.setQuantity(quantity);
+            }
+        }
+        requested.forEach((productId, quantity) -> {
+            if (!kept.contains(productId)) {
+                Item item = Item.builder().product(products.get(productId)).quantity(quantity).order(order).build();
+                item.snapshotProduct();
+                order.getItems().add(item);
+                stockChanges.merge(productId, quantity, Integer::sum);
+            }
+        });
+        stockChanges.values().removeIf(change -> change == 0);
+        // A product deleted since it was ordered has no stock left to give back
+        stockChanges.keySet().retainAll(products.keySet());
+        stockReservationService.reserve(stockChanges, products);
+
+        // Also makes the order row dirty, so the version is bumped when only the items changed
+        order.setUpdatedAt(LocalDateTime.now());
+        order.refreshSummary();
+        log.info("Order " + orderId + " updated: " + stockChanges.size() + " products changed");
+        ordersModified(userId);
+        orderOutbox.orderUpdated(order);
+        return Optional.of(order);
+    }
+
     /**
      * Finds orders by user ID.
      * 
@@ -173,12 +492,89 @@ public class OrderServiceImpl implements OrderService {
      * @return List of orders associated with the user
      */
     @Override
+    @Transactional(readOnly = true)
     @ExecutionTime(operation = "Find Orders by User ID")
     @ValidateParameters(notNull = true, message = "User ID cannot be null")
     public List<Order> findByUserId(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("User ID cannot be null");
         }
-        return orderRepository.findByUserId(id);
+        return orderRepository.findByUserIdWithItems(id);
+    }
+
+    /**
+     * Finds a page of orders using keyset pagination.
+     * 
+     * <p>
+     * The page is resolved in two fixed queries: the IDs of the page (plus one look-ahead row to know whether a
+     * following page exists, so no count query is needed) and then the orders of those IDs with their user, items
+     * and products. The cost of a page does not depend on how deep the client scrolls nor on the number of items.
+     * </p>
+     * 
+     * @param cursor The opaque cursor of the previous page, or null for the first page
+     * @param size The requested page size, or null for the default
+     * @return The page of orders
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @ExecutionTime(operation = "Find Orders Page", warningThreshold = 1000)
+    public CursorPage<Order> findPage(String cursor, Integer size) {
+        int pageSize = pageLimits.resolve(size);
+        List<Long> ids = orderRepository.findPageIds(null, OrderCursor.decode(cursor), pageSize + 1);
+        return loadPage(ids, pageSize);
+    }
+
+    /**
+     * Finds a page of orders of a user using keyset pagination.
+     * 
+     * @param userId The ID of the user
+     * @param cursor The opaque cursor of the previous page, or null for the first page
+     * @param size The requested page size, or null for the default
+     * @return The page of orders of the user
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @ExecutionTime(operation = "Find Orders Page by User ID")
+    public CursorPage<Order> findPageByUserId(Long userId, String cursor, Integer size) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        int pageSize = pageLimits.resolve(size);
+        List<Long> ids = orderRepository.findPageIds(userId, OrderCursor.decode(cursor), pageSize + 1);
+        return loadPage(ids, pageSize);
+    }
+
+    /**
+     * Returns the ID of the user who owns the order, or null if the order has no user.
+     */
+    private Long ownerId(Order order) {
+        return order.getUser() != null ? order.getUser().getId() : null;
+    }
+
+    /**
+     * Bumps the orders marker of the owner and evicts their cached orders once the transaction commits.
+     */
+    private void ordersModified(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        userService.markOrdersModified(userId);
+        userOrdersCache.evictAfterCommit(userId);
+    }
+
+    /**
+     * Trims the look-ahead ID, loads the orders of the page with their items and builds the cursor of the next page
+     * from the last returned order.
+     */
+    private CursorPage<Order> loadPage(List<Long> ids, int pageSize) {
+        if (ids.isEmpty()) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+        boolean hasNext = ids.size() > pageSize;
+        List<Order> content = orderRepository.findAllWithItems(hasNext ? ids.subList(0, pageSize) : ids);
+        String next = hasNext && !content.isEmpty()
+                ? OrderCursor.after(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(content, next);
     }
 }
@@ -0,0 +1,106 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderSearchCriteria;
+
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Building blocks of the dynamic order queries.
+ * <p>
+ * Every filter is translated to SQL, so the database applies it with its indexes:
+ * dates and keyset position on {@code orders (created_at, id)}, the user through the unique email index,
+ * and product and category as {@code EXISTS} subqueries on {@code items} that use the item indexes.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /**
+     * Combines all the filters of the criteria and the keyset position.
+     *
+     * @param criteria the search filters, null means no filter
+     * @param position the last order of the previous page, or null for the first page
+     * @return the specification matching the orders of the requested page and after
+     */
+    public static Specification<Order> matching(OrderSearchCriteria criteria, OrderCursor position) {
+        List<Specification<Order>> specs = new ArrayList<>();
+        if (criteria != null) {
+            if (criteria.getFrom() != null) specs.add(createdFrom(criteria.getFrom()));
+            if (criteria.getTo() != null) specs.add(createdBefore(criteria.getTo()));
+            if (criteria.getUserEmail() != null && !criteria.getUserEmail().isBlank()) specs.add(placedBy(criteria.getUserEmail()));
+            if (criteria.getProductId() != null) specs.add(containsProduct(criteria.getProductId()));
+            if (criteria.getCategory() != null && !criteria.getCategory().isBlank()) specs.add(containsCategory(criteria.getCategory()));
+            if (criteria.getMinTotal() != null) specs.add(totalAtLeast(criteria.getMinTotal()));
+            if (criteria.getMaxTotal() != null) specs.add(totalAtMost(criteria.getMaxTotal()));
+        }
+        if (position != null) {
+            specs.add(after(position));
+        }
+        return Specification.allOf(specs);
+    }
+
+    public static Specification<Order> createdFrom(LocalDateTime from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+    }
+
+    public static Specification<Order> createdBefore(LocalDateTime to) {
+        return (root, query, cb) -> cb.lessThan(root.get("createdAt"), to);
+    }
+
+    public static Specification<Order> placedBy(String email) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("email"), email);
+    }
+
+    public static Specification<Order> totalAtLeast(double minTotal) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("total"), minTotal);
+    }
+
+    public static Specification<Order> totalAtMost(double maxTotal) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("total"), maxTotal);
+    }
+
+    public static Specification<Order> containsProduct(Long productId) {
+        return (root, query, cb) -> {
+            Subquery<Long> items = query.subquery(Long.class);
+            Root<Item> item = items.from(Item.class);
+            items.select(item.get("id")).where(
+                    cb.equal(item.get("order"), root),
+                    cb.equal(item.get("product").get("id"), productId));
+            return cb.exists(items);
+        };
+    }
+
+    public static Specification<Order> containsCategory(String category) {
+        return (root, query, cb) -> {
+            Subquery<Long> items = query.subquery(Long.class);
+            Root<Item> item = items.from(Item.class);
+            items.select(item.get("id")).where(
+                    cb.equal(item.get("order"), root),
+                    cb.equal(item.get("productCategory"), category));
+            return cb.exists(items);
+        };
+    }
+
+    /**
+     * Orders that come after the given position in {@code (createdAt, id)} descending order.
+     */
+    public static Specification<Order> after(OrderCursor position) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), position.getCreatedAt()),
+                cb.and(
+                        cb.equal(root.get("createdAt"), position.getCreatedAt()),
+                        cb.lessThan(root.get("id"), position.getId())));
+    }
+}
@@ -0,0 +1,134 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.aspiresys.fp_micro_orderservice.common.dto.CursorPage;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.java.Log;
+
+/**
+ * Cache of the first page of each user's order list, keyed by user ID.
+ * <p>
+ * {@code GET /orders/me} without cursor nor size is by far the most frequent read. The mapped
+ * page is kept in memory until the user writes one of their orders, so repeated polls do not
+ * touch the database nor the mapper. Entries are evicted by
+ * {@link OrderServiceImpl} after the transaction that changed the orders commits.
+ * </p>
+ * <p>
+ * Each page is stored with the orders version of the user it was loaded for. A write on another
+ * instance does not evict this cache, but it bumps the version, so a lookup with a version other
+ * than the stored one reloads the page instead of answering the old one under the new ETag.
+ * Such a lookup counts as a miss. The page is loaded without holding any lock of the cache, so a
+ * slow query only delays its own caller; two callers missing the same user at once both load it.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.cache.user-orders.max-size} - maximum number of users kept (default 10000).</li>
+ *   <li>{@code order.cache.user-orders.ttl} - time an entry lives after being loaded (default 5 minutes).
+ *   Bounds staleness when orders are changed by another instance.</li>
+ * </ul>
+ * Hit, miss, eviction and size metrics are published as {@code cache.*} meters with {@code cache=userOrders}.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component
+@Log
+public class UserOrdersCache {
+    public static final String CACHE_NAME = "userOrders";
+
+    private final Cache<Long, VersionedPage> cache;
+    // Hits and misses are recorded here by getFirstPage, which reads the cache without recording them
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+
+    public UserOrdersCache(@Value("${order.cache.user-orders.max-size:10000}") long maxSize,
+                           @Value("${order.cache.user-orders.ttl:PT5M}") Duration ttl,
+                           ObjectProvider<MeterRegistry> meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats(() -> stats)
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+    }
+
+    /**
+     * Returns the cached first page of a user's orders, loading it on a miss or when it was
+     * cached for another orders version.
+     *
+     * @param userId the ID of the user
+     * @param version the current orders version of the user, as used in the ETag
+     * @param loader loads the page from the database when it is not cached
+     * @return the first page of the user's orders
+     */
+    public CursorPage<OrderDTO> getFirstPage(Long userId, long version,
+                                             Function<Long, CursorPage<OrderDTO>> loader) {
+        // Unlike getIfPresent, a read through the map view records no hit for a page of another version
+        VersionedPage cached = cache.asMap().get(userId);
+        if (cached != null && cached.version == version) {
+            stats.recordHits(1);
+            return cached.page;
+        }
+        stats.recordMisses(1);
+        if (cached != null) {
+            log.fine("CACHE: Orders of user " + userId + " changed from version " + cached.version
+                    + " to " + version + ", reloading");
+        }
+        CursorPage<OrderDTO> page = loader.apply(userId);
+        // A caller that loaded a newer version meanwhile keeps its page
+        cache.asMap().merge(userId, new VersionedPage(version, page),
+                (current, loaded) -> current.version > loaded.version ? current : loaded);
+        return page;
+    }
+
+    /**
+     * Evicts the orders of a user once the current transaction commits, or right away when
+     * there is no transaction. Evicting after commit prevents a concurrent read from caching
+     * the data that is about to change.
+     *
+     * @param userId the ID of the user whose orders changed
+     */
+    public void evictAfterCommit(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+
+    /**
+     * Evicts the orders of a user immediately.
+     *
+     * @param userId the ID of the user
+     */
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+        log.fine("CACHE: Evicted orders of user " + userId);
+    }
+
+    private record VersionedPage(long version, CursorPage<OrderDTO> page) {
+    }
+}
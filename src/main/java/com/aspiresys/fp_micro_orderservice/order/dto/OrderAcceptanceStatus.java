@@ -0,0 +1,41 @@
+package com.aspiresys.fp_micro_orderservice.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.*;
+
+/**
+ * State of an order accepted asynchronously ({@code 202 Accepted}).
+ * <p>
+ * {@code ACCEPTED} orders are durable in the local journal and waiting to be stored, {@code CREATED} orders are
+ * stored and can be read like any other, {@code REJECTED} orders failed validation when they were stored and
+ * carry the {@code error}.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderAcceptanceStatus {
+    public enum Status { ACCEPTED, CREATED, REJECTED }
+
+    private Long orderId;
+    private Status status;
+    private String error;
+
+    public static OrderAcceptanceStatus accepted(Long orderId) {
+        return new OrderAcceptanceStatus(orderId, Status.ACCEPTED, null);
+    }
+
+    public static OrderAcceptanceStatus created(Long orderId) {
+        return new OrderAcceptanceStatus(orderId, Status.CREATED, null);
+    }
+
+    public static OrderAcceptanceStatus rejected(Long orderId, String error) {
+        return new OrderAcceptanceStatus(orderId, Status.REJECTED, error);
+    }
+}
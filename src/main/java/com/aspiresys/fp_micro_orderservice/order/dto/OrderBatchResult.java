@@ -0,0 +1,37 @@
+package com.aspiresys.fp_micro_orderservice.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.*;
+
+/**
+ * Outcome of one order of a batch creation request.
+ * <p>
+ * {@code index} is the position of the order in the request. Created orders carry their {@code order};
+ * rejected ones carry the validation {@code error} and were not persisted.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderBatchResult {
+    public enum Status { CREATED, REJECTED }
+
+    private int index;
+    private Status status;
+    private OrderDTO order;
+    private String error;
+
+    public static OrderBatchResult created(int index, OrderDTO order) {
+        return new OrderBatchResult(index, Status.CREATED, order, null);
+    }
+
+    public static OrderBatchResult rejected(int index, String error) {
+        return new OrderBatchResult(index, Status.REJECTED, null, error);
+    }
+}
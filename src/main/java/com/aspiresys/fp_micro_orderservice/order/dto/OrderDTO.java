@@ -24,4 +24,6 @@ public class OrderDTO {
     private List<ItemDTO> items;
     private LocalDateTime createdAt;
     private double total;
+    private int itemCount;
+    private Long version;
 }
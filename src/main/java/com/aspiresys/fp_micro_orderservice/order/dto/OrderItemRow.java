@@ -0,0 +1,40 @@
+package com.aspiresys.fp_micro_orderservice.order.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Flat read-only row with one order item and the columns of its order needed by
+ * {@link OrderDTO} and {@link ItemDTO}.
+ * <p>
+ * Instances are created directly by JPQL constructor expressions, so reading them does not
+ * put any entity in the persistence context. An order without items produces a single row
+ * whose item columns are {@code null}.
+ * </p>
+ * <p>
+ * Product columns come from the snapshot stored on the item, not from the product itself.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OrderItemRow {
+    private final Long orderId;
+    private final LocalDateTime createdAt;
+    private final String userEmail;
+    private final Double orderTotal;
+    private final Integer itemCount;
+    private final Long orderVersion;
+    private final Long itemId;
+    private final Long productId;
+    private final String productName;
+    private final Double productPrice;
+    private final String productCategory;
+    private final String productImageUrl;
+    private final Integer quantity;
+}
@@ -5,7 +5,9 @@ import com.aspiresys.fp_micro_orderservice.order.Item.Item;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +43,8 @@ public class OrderMapper {
                     new ArrayList<>())
                 .createdAt(order.getCreatedAt())
                 .total(order.getTotal())
+                .itemCount(order.getItemCount())
+                .version(order.getVersion())
                 .build();
     }
 
@@ -58,10 +62,10 @@ public class OrderMapper {
         return ItemDTO.builder()
                 .id(item.getId())
                 .productId(item.getProduct() != null ? item.getProduct().getId() : null)
-                .productName(item.getProduct() != null ? item.getProduct().getName() : null)
-                .productPrice(item.getProduct() != null ? item.getProduct().getPrice() : null)
-                .productCategory(item.getProduct() != null ? item.getProduct().getCategory() : null)
-                .productImageUrl(item.getProduct() != null ? item.getProduct().getImageUrl() : null)
+                .productName(item.getProductName())
+                .productPrice(item.getUnitPrice())
+                .productCategory(item.getProductCategory())
+                .productImageUrl(item.getProductImageUrl())
                 .quantity(item.getQuantity())
                 .subtotal(item.getSubtotal())
                 .build();
@@ -82,4 +86,69 @@ public class OrderMapper {
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Assembles OrderDTOs from flat projection rows in a single pass.
+     * <p>
+     * Rows of the same order must be contiguous, which is how
+     * {@code OrderRepository.findItemRowsByOrderIds} returns them. The order of the first row of
+     * each order is preserved. The persisted total and item count of the order are used as they are;
+     * subtotals are computed the same way as {@link Item#getSubtotal()}.
+     * </p>
+     *
+     * @param rows the rows to assemble
+     * @return list of OrderDTO representations
+     */
+    public List<OrderDTO> toDTOListFromRows(List<OrderItemRow> rows) {
+        if (rows == null) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, OrderDTO> orders = new LinkedHashMap<>();
+        for (OrderItemRow row : rows) {
+            OrderDTO order = orders.computeIfAbsent(row.getOrderId(), id -> OrderDTO.builder()
+                    .id(id)
+                    .userEmail(row.getUserEmail())
+                    .createdAt(row.getCreatedAt())
+                    .items(new ArrayList<>())
+                    .total(row.getOrderTotal() != null ? row.getOrderTotal() : 0.0)
+                    .itemCount(row.getItemCount() != null ? row.getItemCount() : 0)
+                    .version(row.getOrderVersion())
+                    .build());
+            if (row.getItemId() == null) {
+                continue; // Order without items
+            }
+            ItemDTO item = toItemDTO(row);
+            order.getItems().add(item);
+            if (row.getOrderTotal() == null) {
+                // Summary not stored yet, compute it from the items
+                order.setTotal(order.getTotal() + item.getSubtotal());
+                order.setItemCount(order.getItemCount() + item.getQuantity());
+            }
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    /**
+     * Converts the item columns of a projection row to ItemDTO.
+     *
+     * @param row the row holding the item
+     * @return ItemDTO representation of the item
+     */
+    private ItemDTO toItemDTO(OrderItemRow row) {
+        int quantity = row.getQuantity() != null ? row.getQuantity() : 0;
+        Double price = row.getProductId() != null
+                ? (row.getProductPrice() != null ? row.getProductPrice() : 0.0)
+                : null;
+        return ItemDTO.builder()
+                .id(row.getItemId())
+                .productId(row.getProductId())
+                .productName(row.getProductName())
+                .productPrice(price)
+                .productCategory(row.getProductCategory())
+                .productImageUrl(row.getProductImageUrl())
+                .quantity(quantity)
+                .subtotal(price != null ? price * quantity : 0.0)
+                .build();
+    }
 }
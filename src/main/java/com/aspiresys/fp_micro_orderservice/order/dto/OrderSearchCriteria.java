@@ -0,0 +1,54 @@
+package com.aspiresys.fp_micro_orderservice.order.dto;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import lombok.*;
+
+/**
+ * Filters of the admin order search. Every filter is optional and they are combined with AND.
+ * <p>
+ * Bound from the query string of {@code GET /orders/search}, e.g.
+ * {@code ?from=2025-05-01T00:00:00&productId=42&minTotal=100}.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class OrderSearchCriteria {
+    /** Orders created at or after this time. */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    /** Orders created before this time. */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    /** Email of the user who placed the order. */
+    private String userEmail;
+    /** Orders containing at least one item of this product. */
+    private Long productId;
+    /** Orders containing at least one item of this category (as it was when the order was placed). */
+    private String category;
+    /** Orders whose total is at least this amount. */
+    private Double minTotal;
+    /** Orders whose total is at most this amount. */
+    private Double maxTotal;
+
+    /**
+     * Checks that the ranges are not inverted.
+     *
+     * @throws IllegalArgumentException if {@code from} is after {@code to} or {@code minTotal} is above {@code maxTotal}
+     */
+    public void validate() {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (minTotal != null && maxTotal != null && minTotal > maxTotal) {
+            throw new IllegalArgumentException("'minTotal' must not be greater than 'maxTotal'");
+        }
+    }
+}
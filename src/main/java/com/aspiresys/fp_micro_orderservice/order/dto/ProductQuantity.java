@@ -0,0 +1,19 @@
+package com.aspiresys.fp_micro_orderservice.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The total quantity of one product across the items of an order, created by a JPQL constructor expression so
+ * that reading it does not load the items.
+ *
+ * @author bruno.gil
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductQuantity {
+    private final Long productId;
+    private final Long quantity;
+}
@@ -0,0 +1,35 @@
+package com.aspiresys.fp_micro_orderservice.order.journal;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.*;
+
+/**
+ * An order accepted into the {@link OrderJournal} and not yet stored in the database.
+ * <p>
+ * It carries only what is needed to create the order: the pre-assigned order ID, the user, the acceptance time
+ * and the product and quantity of each item. It is written to the journal as JSON.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class AcceptedOrder {
+    private Long orderId;
+    private String email;
+    private LocalDateTime acceptedAt;
+    private List<AcceptedItem> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AcceptedItem {
+        private Long productId;
+        private int quantity;
+    }
+}
@@ -0,0 +1,181 @@
+package com.aspiresys.fp_micro_orderservice.order.journal;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aspiresys.fp_micro_orderservice.config.datasource.ReadYourWritesTracker;
+import com.aspiresys.fp_micro_orderservice.order.Order;
+import com.aspiresys.fp_micro_orderservice.order.OrderRepository;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService.ValidationException;
+import com.aspiresys.fp_micro_orderservice.order.UserOrdersCache;
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.outbox.OrderOutbox;
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.product.ProductService;
+import com.aspiresys.fp_micro_orderservice.product.StockReservationService;
+import com.aspiresys.fp_micro_orderservice.user.User;
+import com.aspiresys.fp_micro_orderservice.user.UserService;
+
+import lombok.extern.java.Log;
+
+/**
+ * Stores a batch of journaled orders in one transaction.
+ * <p>
+ * It is used by the journal drainer ({@link OrderAcceptanceService}) and by the group commit of order creations
+ * ({@link com.aspiresys.fp_micro_orderservice.order.OrderGroupCommitter}).
+ * </p>
+ * <p>
+ * Orders whose ID is already stored are skipped, so a batch replayed after a crash is written only once. The
+ * users and products of the batch are read once, each order is validated again against them (the catalog may
+ * have changed since it was accepted) and orders that are invalid or that the stock cannot cover are reported as
+ * rejected. The stock of the rest is taken with one conditional update and they are inserted with batched
+ * inserts through {@link OrderRepository}, keeping their pre-assigned IDs and acceptance time. Each stored order
+ * is recorded in the outbox like any other created order. These threads do not carry the security context of the
+ * users, so their writes are recorded with the {@link ReadYourWritesTracker} explicitly, keeping their next reads on
+ * the primary.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Service
+@Log
+public class AcceptedOrderWriter {
+    private final OrderRepository orderRepository;
+    private final UserService userService;
+    private final ProductService productService;
+    private final OrderValidationService orderValidationService;
+    private final StockReservationService stockReservationService;
+    private final UserOrdersCache userOrdersCache;
+    private final OrderOutbox orderOutbox;
+    private final ObjectProvider<ReadYourWritesTracker> readYourWritesTracker;
+
+    /**
+     * Outcome of a batch.
+     *
+     * @param stored the orders that were stored, with their items
+     * @param rejected the error of each rejected order, keyed by order ID
+     */
+    public record Result(List<Order> stored, Map<Long, String> rejected) {
+    }
+
+    public AcceptedOrderWriter(OrderRepository orderRepository, UserService userService, ProductService productService,
+                               OrderValidationService orderValidationService,
+                               StockReservationService stockReservationService, UserOrdersCache userOrdersCache,
+                               OrderOutbox orderOutbox, ObjectProvider<ReadYourWritesTracker> readYourWritesTracker) {
+        this.orderRepository = orderRepository;
+        this.userService = userService;
+        this.productService = productService;
+        this.orderValidationService = orderValidationService;
+        this.stockReservationService = stockReservationService;
+        this.userOrdersCache = userOrdersCache;
+        this.orderOutbox = orderOutbox;
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    /**
+     * Stores the given orders.
+     *
+     * @param accepted the orders to store, with their IDs already assigned
+     * @return the stored and the rejected orders; orders already stored are in neither
+     * @throws InsufficientStockException if concurrent orders took the stock after it was read; nothing is stored
+     */
+    @Transactional
+    public Result write(List<AcceptedOrder> accepted) {
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        Set<Long> stored = new HashSet<>(orderRepository.findExistingIds(
+                accepted.stream().map(AcceptedOrder::getOrderId).toList()));
+
+        Map<String, User> users = new HashMap<>();
+        Set<Long> productIds = new HashSet<>();
+        for (AcceptedOrder order : accepted) {
+            users.computeIfAbsent(order.getEmail(), userService::getUserByEmail);
+            order.getItems().forEach(item -> productIds.add(item.getProductId()));
+        }
+        Map<Long, Product> products = productService.getProductsByIds(productIds);
+
+        List<Order> orders = new ArrayList<>();
+        Set<Long> owners = new HashSet<>();
+        Map<Long, Integer> reserved = new TreeMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (AcceptedOrder acceptedOrder : accepted) {
+            Long orderId = acceptedOrder.getOrderId();
+            if (stored.contains(orderId)) {
+                continue; // Already stored before a restart
+            }
+            User user = users.get(acceptedOrder.getEmail());
+            if (user == null) {
+                rejected.put(orderId, "User does not exist");
+                continue;
+            }
+            List<Item> items = itemsOf(acceptedOrder);
+            try {
+                orderValidationService.resolveItems(items, products);
+            } catch (ValidationException e) {
+                rejected.put(orderId, e.getMessage());
+                continue;
+            }
+            Map<Long, Integer> quantities = OrderValidationService.quantitiesOf(items);
+            List<Long> shortProducts = new ArrayList<>();
+            quantities.forEach((productId, quantity) -> {
+                if (products.get(productId).getStock() - reserved.getOrDefault(productId, 0) < quantity) {
+                    shortProducts.add(productId);
+                }
+            });
+            if (!shortProducts.isEmpty()) {
+                rejected.put(orderId, new InsufficientStockException(shortProducts).getMessage());
+                continue;
+            }
+            quantities.forEach((productId, quantity) -> reserved.merge(productId, quantity, Integer::sum));
+
+            Order order = Order.builder()
+                    .id(orderId)
+                    .user(user)
+                    .createdAt(acceptedOrder.getAcceptedAt())
+                    .updatedAt(now)
+                    .items(items)
+                    .build();
+            items.forEach(item -> item.setOrder(order));
+            order.refreshSummary();
+            orders.add(order);
+            owners.add(user.getId());
+        }
+
+        stockReservationService.reserve(reserved, products);
+        orderRepository.saveAll(orders);
+        orders.forEach(orderOutbox::orderCreated);
+        for (Long userId : owners) {
+            userService.markOrdersModified(userId);
+            userOrdersCache.evictAfterCommit(userId);
+        }
+        readYourWritesTracker.ifAvailable(tracker -> orders.stream()
+                .map(order -> order.getUser().getEmail())
+                .distinct()
+                .forEach(tracker::recordWriteAfterCommit));
+        log.info("JOURNAL: Stored " + orders.size() + " accepted orders, rejected " + rejected.size()
+                + ", skipped " + stored.size() + " already stored");
+        return new Result(orders, rejected);
+    }
+
+    private static List<Item> itemsOf(AcceptedOrder order) {
+        List<Item> items = new ArrayList<>();
+        for (AcceptedOrder.AcceptedItem acceptedItem : order.getItems()) {
+            Product reference = new Product();
+            reference.setId(acceptedItem.getProductId());
+            items.add(Item.builder().product(reference).quantity(acceptedItem.getQuantity()).build());
+        }
+        return items;
+    }
+}
@@ -0,0 +1,347 @@
+package com.aspiresys.fp_micro_orderservice.order.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.aspiresys.fp_micro_orderservice.aop.annotation.Auditable;
+import com.aspiresys.fp_micro_orderservice.aop.annotation.ExecutionTime;
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeIdGenerator;
+import com.aspiresys.fp_micro_orderservice.order.OrderRepository;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService.ValidationException;
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderAcceptanceStatus;
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+import com.aspiresys.fp_micro_orderservice.user.CachedUser;
+import com.aspiresys.fp_micro_orderservice.user.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+
+/**
+ * Accepts orders into a local journal and stores them in the database in the background.
+ * <p>
+ * When enabled, {@code POST /orders/me} only validates the order, gives it its ID, appends it to the
+ * {@link OrderJournal} and waits for the journal fsync, which is shared by the orders accepted at the same time.
+ * The client gets {@code 202 Accepted} with the order ID even while the database is slow, and polls
+ * {@code GET /orders/me/status} until the order is {@code CREATED} or {@code REJECTED}.
+ * </p>
+ * <p>
+ * A single drainer thread reads the journal in batches, stores each batch through {@link AcceptedOrderWriter}
+ * and moves the journal checkpoint past it. When the database fails the batch is retried after a delay. A batch
+ * that keeps failing for another reason than a lost connection is split in halves, down to single orders, and an
+ * order that cannot be stored even alone is rejected, so one bad record does not hold back the journal. On
+ * startup every record after the checkpoint is read again, so orders accepted before a crash or a shutdown are
+ * stored; orders already stored are skipped by ID. Stock is checked when an order is stored, not when it is
+ * accepted, so an accepted order can still be rejected. Rejections are kept in memory only, for a limited time.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.journal.enabled} - whether orders are accepted through the journal (default false).</li>
+ *   <li>{@code order.journal.directory} - directory of the journal files (default {@code data/order-journal}).
+ *   It must be on a local disk that survives restarts and must not be shared between instances.</li>
+ *   <li>{@code order.journal.segment-size} - size of each segment file in bytes (default 16 MB).</li>
+ *   <li>{@code order.journal.batch-size} - maximum number of orders stored per transaction (default 200).</li>
+ *   <li>{@code order.journal.poll-interval} - wait when the journal is empty (default 50 ms).</li>
+ *   <li>{@code order.journal.retry-delay} - wait after the database failed to store a batch (default 5 s).</li>
+ *   <li>{@code order.journal.max-attempts} - failed attempts before a batch is split to find the orders that
+ *   cannot be stored (default 5). Failures to reach the database are retried without limit.</li>
+ *   <li>{@code order.journal.rejections-ttl} - how long rejections can be polled (default 1 hour).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Service
+@Log
+public class OrderAcceptanceService {
+    private final AcceptedOrderWriter writer;
+    private final UserService userService;
+    private final OrderValidationService orderValidationService;
+    private final OrderRepository orderRepository;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration retryDelay;
+    private final int maxAttempts;
+
+    private final Map<Long, AcceptedOrder> pending = new ConcurrentHashMap<>();
+    private final Cache<Long, Rejection> rejections;
+
+    private OrderJournal journal;
+    private Thread drainer;
+    private volatile boolean running;
+
+    private record Rejection(String email, String error) {
+    }
+
+    public OrderAcceptanceService(AcceptedOrderWriter writer, UserService userService,
+                                  OrderValidationService orderValidationService, OrderRepository orderRepository,
+                                  SnowflakeIdGenerator idGenerator, ObjectMapper objectMapper,
+                                  @Value("${order.journal.enabled:false}") boolean enabled,
+                                  @Value("${order.journal.directory:data/order-journal}") String directory,
+                                  @Value("${order.journal.segment-size:16777216}") int segmentSize,
+                                  @Value("${order.journal.batch-size:200}") int batchSize,
+                                  @Value("${order.journal.poll-interval:PT0.05S}") Duration pollInterval,
+                                  @Value("${order.journal.retry-delay:PT5S}") Duration retryDelay,
+                                  @Value("${order.journal.max-attempts:5}") int maxAttempts,
+                                  @Value("${order.journal.rejections-ttl:PT1H}") Duration rejectionsTtl) {
+        this.writer = writer;
+        this.userService = userService;
+        this.orderValidationService = orderValidationService;
+        this.orderRepository = orderRepository;
+        this.idGenerator = idGenerator;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.retryDelay = retryDelay;
+        this.maxAttempts = maxAttempts;
+        this.rejections = Caffeine.newBuilder()
+                .expireAfterWrite(rejectionsTtl)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Opens the journal, reloads the orders that were accepted but not stored yet and starts the drainer.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        journal = new OrderJournal(directory, segmentSize);
+        long position = journal.acknowledged();
+        List<OrderJournal.Entry> entries;
+        while (!(entries = journal.read(position, batchSize)).isEmpty()) {
+            parse(entries).forEach(order -> pending.put(order.getOrderId(), order));
+            position = entries.get(entries.size() - 1).end();
+        }
+        if (!pending.isEmpty()) {
+            log.info("JOURNAL: Replaying " + pending.size() + " accepted orders not stored before the last shutdown");
+        }
+        running = true;
+        drainer = new Thread(this::drain, "order-journal-drainer");
+        drainer.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        drainer.interrupt();
+        drainer.join(retryDelay.toMillis() + 10_000);
+        journal.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Validates an order and accepts it into the journal.
+     *
+     * @param email the email of the user placing the order
+     * @param items the requested items; only their product ID and quantity are used
+     * @return the {@code ACCEPTED} status with the ID the order will be stored with
+     * @throws ValidationException if the user does not exist or an item is invalid or references an unknown product
+     */
+    @Auditable(operation = "ACCEPT_ORDER", entityType = "Order", logResult = true)
+    @ExecutionTime(operation = "Accept Order", warningThreshold = 500, detailed = true)
+    public OrderAcceptanceStatus accept(String email, List<Item> items) {
+        if (!enabled) {
+            throw new IllegalStateException("Order journal is not enabled");
+        }
+        CachedUser user = email != null ? userService.getCachedUserByEmail(email) : null;
+        if (user == null) {
+            throw new ValidationException("User does not exist");
+        }
+        orderValidationService.resolveItems(items);
+
+        AcceptedOrder order = AcceptedOrder.builder()
+                .orderId(idGenerator.nextId())
+                .email(email)
+                .acceptedAt(LocalDateTime.now())
+                .items(items.stream()
+                        .map(item -> new AcceptedOrder.AcceptedItem(item.getProduct().getId(), item.getQuantity()))
+                        .toList())
+                .build();
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize accepted order", e);
+        }
+        // Registered before the append, so the drainer never stores an order that is not pending yet
+        pending.put(order.getOrderId(), order);
+        try {
+            journal.awaitDurable(journal.append(payload));
+        } catch (RuntimeException e) {
+            pending.remove(order.getOrderId());
+            throw e;
+        }
+        log.info("JOURNAL: Accepted order " + order.getOrderId() + " for user " + email);
+        return OrderAcceptanceStatus.accepted(order.getOrderId());
+    }
+
+    /**
+     * Returns the state of an order of a user.
+     *
+     * @param orderId the ID returned when the order was accepted
+     * @param user the user asking
+     * @return the state of the order, or empty if it is unknown or belongs to another user
+     */
+    public Optional<OrderAcceptanceStatus> status(Long orderId, CachedUser user) {
+        AcceptedOrder accepted = pending.get(orderId);
+        if (accepted != null) {
+            return Optional.of(OrderAcceptanceStatus.accepted(orderId))
+                    .filter(status -> accepted.getEmail().equals(user.getEmail()));
+        }
+        Rejection rejection = rejections.getIfPresent(orderId);
+        if (rejection != null) {
+            return Optional.of(OrderAcceptanceStatus.rejected(orderId, rejection.error()))
+                    .filter(status -> rejection.email().equals(user.getEmail()));
+        }
+        return orderRepository.findUserIdById(orderId)
+                .filter(ownerId -> ownerId.equals(user.getId()))
+                .map(ownerId -> OrderAcceptanceStatus.created(orderId));
+    }
+
+    private void drain() {
+        long position = journal.acknowledged();
+        // Failed attempts to store the batch at the current position
+        int failures = 0;
+        while (running) {
+            try {
+                List<OrderJournal.Entry> entries = journal.read(position, batchSize);
+                if (entries.isEmpty()) {
+                    Thread.sleep(pollInterval.toMillis());
+                    continue;
+                }
+                List<AcceptedOrder> orders = parse(entries);
+                Map<Long, String> rejected = failures < maxAttempts ? store(orders) : storeIsolating(orders);
+                failures = 0;
+                position = entries.get(entries.size() - 1).end();
+                journal.acknowledge(position);
+                for (AcceptedOrder order : orders) {
+                    String error = rejected.get(order.getOrderId());
+                    if (error != null) {
+                        rejections.put(order.getOrderId(), new Rejection(order.getEmail(), error));
+                    }
+                    pending.remove(order.getOrderId());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!isConnectionFailure(e)) {
+                    failures++;
+                }
+                log.warning("JOURNAL: Could not store accepted orders, retrying in " + retryDelay + ": " + e.getMessage());
+                try {
+                    Thread.sleep(retryDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a batch. When concurrent orders took the stock the batch counted on, the batch is stored again one
+     * order at a time, so only the orders that are really short are rejected.
+     */
+    private Map<Long, String> store(List<AcceptedOrder> orders) {
+        try {
+            return writer.write(orders).rejected();
+        } catch (InsufficientStockException e) {
+            Map<Long, String> rejected = new LinkedHashMap<>();
+            for (AcceptedOrder order : orders) {
+                try {
+                    rejected.putAll(writer.write(List.of(order)).rejected());
+                } catch (InsufficientStockException single) {
+                    rejected.put(order.getOrderId(), single.getMessage());
+                }
+            }
+            return rejected;
+        }
+    }
+
+    /**
+     * Stores a batch that failed {@code maxAttempts} times. The batch is tried whole first, then by halves, and an
+     * order that fails alone is rejected. Halves stored before a later one fails are skipped by ID on the retry.
+     *
+     * @throws RuntimeException if the database cannot be reached, so the batch is retried as usual
+     */
+    private Map<Long, String> storeIsolating(List<AcceptedOrder> orders) {
+        try {
+            return store(orders);
+        } catch (RuntimeException e) {
+            if (isConnectionFailure(e)) {
+                throw e;
+            }
+            if (orders.size() == 1) {
+                AcceptedOrder order = orders.get(0);
+                log.severe("JOURNAL: Rejecting order " + order.getOrderId() + ", it cannot be stored: " + e);
+                return Map.of(order.getOrderId(), "The order could not be stored");
+            }
+            int half = orders.size() / 2;
+            Map<Long, String> rejected = new LinkedHashMap<>(storeIsolating(orders.subList(0, half)));
+            rejected.putAll(storeIsolating(orders.subList(half, orders.size())));
+            return rejected;
+        }
+    }
+
+    /**
+     * Whether a failure comes from the database being unreachable or busy rather than from the orders, in which case
+     * retrying the same batch is expected to succeed.
+     */
+    private static boolean isConnectionFailure(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private List<AcceptedOrder> parse(List<OrderJournal.Entry> entries) {
+        List<AcceptedOrder> orders = new ArrayList<>(entries.size());
+        for (OrderJournal.Entry entry : entries) {
+            try {
+                orders.add(objectMapper.readValue(entry.payload(), AcceptedOrder.class));
+            } catch (IOException e) {
+                log.severe("JOURNAL: Skipping unreadable record ending at " + entry.end() + ": " + e.getMessage());
+            }
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,343 @@
+package com.aspiresys.fp_micro_orderservice.order.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import lombok.extern.java.Log;
+
+/**
+ * Local append-only journal of accepted orders, kept in fixed-size memory-mapped segment files.
+ * <p>
+ * A record is {@code [int length][int crc32][payload]}; a zero length marks the end of the written part of a
+ * segment, and a record whose checksum does not match is a write torn by a crash, so it ends the segment too.
+ * When a record does not fit in the active segment the segment is forced to disk and a new one is started.
+ * </p>
+ * <p>
+ * Appends only write to memory. {@link #awaitDurable} forces the active segment to disk; callers that arrive
+ * while a force is running wait for it and are usually covered by the next one, so concurrent appends share a
+ * single fsync (group commit).
+ * </p>
+ * <p>
+ * A position is {@code (segment << 32) | offset}, so positions grow with the journal. The position up to which
+ * records were stored in the database is kept in a checkpoint file; segments before it are deleted, and the
+ * records after it are read again when the journal is reopened.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Log
+public class OrderJournal implements Closeable {
+    static final String SEGMENT_PREFIX = "orders-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_BYTES = 8;
+    private static final int FIRST_SEGMENT = 1;
+
+    /**
+     * A record read back from the journal.
+     *
+     * @param payload the bytes that were appended
+     * @param end the position right after the record, to acknowledge it
+     */
+    public record Entry(byte[] payload, long end) {
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Object syncLock = new Object();
+    private final FileChannel checkpointChannel;
+
+    // Guarded by this
+    private int activeIndex;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+    private long written;
+
+    private volatile long durable;
+    private volatile long acknowledged;
+
+    /**
+     * Opens the journal in a directory, creating it when needed, and recovers the end of the last segment.
+     *
+     * @param directory the directory of the segment files
+     * @param segmentSize the size of each segment file, in bytes
+     * @throws UncheckedIOException if the files cannot be opened
+     */
+    public OrderJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            acknowledged = readCheckpoint();
+            deleteSegmentsBefore(segmentOf(acknowledged));
+            TreeSet<Integer> segments = segmentIndexes();
+            int last = segments.isEmpty() ? Math.max(FIRST_SEGMENT, segmentOf(acknowledged)) : segments.last();
+            openSegment(last);
+            int end = recoverEnd(activeBuffer);
+            activeBuffer.position(end);
+            written = position(last, end);
+            durable = written;
+            log.info("JOURNAL: Opened " + directory + ", checkpoint at " + describe(acknowledged)
+                    + ", end at " + describe(written));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open order journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends a record to the journal. It is not durable until {@link #awaitDurable} returns for its position.
+     *
+     * @param payload the bytes of the record
+     * @return the position right after the record
+     * @throws IllegalArgumentException if the record does not fit in a segment
+     */
+    public synchronized long append(byte[] payload) {
+        int size = HEADER_BYTES + payload.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes does not fit in a segment");
+        }
+        if (activeBuffer.remaining() < size) {
+            rollSegment();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        activeBuffer.putInt(payload.length);
+        activeBuffer.putInt((int) crc.getValue());
+        activeBuffer.put(payload);
+        written = position(activeIndex, activeBuffer.position());
+        return written;
+    }
+
+    /**
+     * Waits until the journal is on disk up to a position, forcing it if no other caller already did.
+     *
+     * @param position a position returned by {@link #append}
+     */
+    public void awaitDurable(long position) {
+        if (durable >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable >= position) {
+                return;
+            }
+            MappedByteBuffer buffer;
+            long target;
+            synchronized (this) {
+                buffer = activeBuffer;
+                target = written;
+            }
+            // Earlier segments were forced when they were rolled
+            buffer.force();
+            durable = target;
+        }
+    }
+
+    /**
+     * Reads the durable records that follow a position.
+     *
+     * @param from the position to read from, usually the end of the last record read
+     * @param maxEntries the maximum number of records to return
+     * @return the records, oldest first; empty when there are no more durable records
+     */
+    public List<Entry> read(long from, int maxEntries) {
+        List<Entry> entries = new ArrayList<>();
+        long limit = durable;
+        long position = from;
+        while (entries.size() < maxEntries && position < limit) {
+            int segment = segmentOf(position);
+            position = readSegment(segment, offsetOf(position), limit, maxEntries, entries);
+            if (entries.size() < maxEntries && position < limit) {
+                // Nothing more in this segment, the next records start at the beginning of the next one
+                if (!Files.exists(segmentFile(segment + 1))) {
+                    break;
+                }
+                position = position(segment + 1, 0);
+            }
+        }
+        return entries;
+    }
+
+    private long readSegment(int segment, int offset, long limit, int maxEntries, List<Entry> entries) {
+        Path file = segmentFile(segment);
+        if (!Files.exists(file)) {
+            return position(segment, offset);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (entries.size() < maxEntries && position(segment, offset) < limit
+                    && offset + HEADER_BYTES <= segmentSize) {
+                header.clear();
+                channel.read(header, offset);
+                int length = header.getInt(0);
+                if (length <= 0 || offset + HEADER_BYTES + length > segmentSize) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, offset + HEADER_BYTES);
+                if (checksum(payload.array()) != header.getInt(Integer.BYTES)) {
+                    break;
+                }
+                offset += HEADER_BYTES + length;
+                entries.add(new Entry(payload.array(), position(segment, offset)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read order journal segment " + file, e);
+        }
+        return position(segment, offset);
+    }
+
+    /**
+     * Records that every record before a position is stored, so it is not replayed again, and deletes the
+     * segments that only hold such records.
+     *
+     * @param position the end of the last stored record
+     */
+    public void acknowledge(long position) {
+        if (position <= acknowledged) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, position);
+            checkpointChannel.write(buffer, 0);
+            checkpointChannel.force(false);
+            acknowledged = position;
+            int activeSegment;
+            synchronized (this) {
+                activeSegment = activeIndex;
+            }
+            deleteSegmentsBefore(Math.min(segmentOf(position), activeSegment));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write order journal checkpoint", e);
+        }
+    }
+
+    /**
+     * Returns the position up to which records are stored in the database; reading starts there after a restart.
+     */
+    public long acknowledged() {
+        return acknowledged;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        activeBuffer.force();
+        activeChannel.close();
+        checkpointChannel.close();
+    }
+
+    private void rollSegment() {
+        activeBuffer.force();
+        try {
+            activeChannel.close();
+            openSegment(activeIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start order journal segment " + (activeIndex + 1), e);
+        }
+        durable = Math.max(durable, written);
+    }
+
+    private void openSegment(int index) throws IOException {
+        activeChannel = FileChannel.open(segmentFile(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        activeIndex = index;
+    }
+
+    /**
+     * Finds the end of the valid records of a segment and zeroes whatever follows it, so the leftovers of a torn
+     * write are never mistaken for records appended later.
+     */
+    private int recoverEnd(MappedByteBuffer buffer) {
+        int offset = 0;
+        boolean torn = false;
+        while (offset + HEADER_BYTES <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            byte[] payload = new byte[Math.max(0, Math.min(length, segmentSize - offset - HEADER_BYTES))];
+            buffer.get(offset + HEADER_BYTES, payload);
+            if (length != payload.length || checksum(payload) != buffer.getInt(offset + Integer.BYTES)) {
+                torn = true;
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        if (torn) {
+            log.warning("JOURNAL: Discarding torn record at " + describe(position(activeIndex, offset)));
+            for (int i = offset; i < segmentSize; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        return offset;
+    }
+
+    private long readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        if (checkpointChannel.read(buffer, 0) < Long.BYTES) {
+            return position(FIRST_SEGMENT, 0);
+        }
+        return buffer.getLong(0);
+    }
+
+    private void deleteSegmentsBefore(int index) throws IOException {
+        for (int segment : segmentIndexes()) {
+            if (segment < index) {
+                Files.deleteIfExists(segmentFile(segment));
+            }
+        }
+    }
+
+    private TreeSet<Integer> segmentIndexes() throws IOException {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> indexes.add(Integer.parseInt(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        return indexes;
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    static long position(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    private static String describe(long position) {
+        return "segment " + segmentOf(position) + " offset " + offsetOf(position);
+    }
+}
@@ -0,0 +1,170 @@
+package com.aspiresys.fp_micro_orderservice.order.outbox;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.aspiresys.fp_micro_orderservice.kafka.dto.OrderEventMessage;
+import com.aspiresys.fp_micro_orderservice.order.Order;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
+import com.aspiresys.fp_micro_orderservice.order.outbox.OrderOutboxEvent.Type;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Records the order changes of the current transaction in the {@code order_outbox} table.
+ * <p>
+ * The writes of {@code OrderService} report each changed order here. The events are collected per transaction
+ * and inserted right before it commits: the persistence context is flushed first, so the payload carries the
+ * committed version of the order and its generated IDs. An order written several times in one transaction gets
+ * one event (created, then updated, is still created; anything followed by a delete is deleted). If the
+ * transaction rolls back nothing is recorded.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component
+public class OrderOutbox {
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final class PendingEvent {
+        private Type type;
+        private final Long orderId;
+        private Long userId;
+        private Order order;
+
+        private PendingEvent(Type type, Long orderId, Long userId, Order order) {
+            this.type = type;
+            this.orderId = orderId;
+            this.userId = userId;
+            this.order = order;
+        }
+    }
+
+    public OrderOutbox(OrderOutboxRepository outboxRepository, OrderMapper orderMapper, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.orderMapper = orderMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records that an order was created. The order must already have its ID.
+     */
+    public void orderCreated(Order order) {
+        record(Type.ORDER_CREATED, order.getId(), ownerId(order), order);
+    }
+
+    /**
+     * Records that an order was changed.
+     */
+    public void orderUpdated(Order order) {
+        record(Type.ORDER_UPDATED, order.getId(), ownerId(order), order);
+    }
+
+    /**
+     * Records that an order was deleted.
+     *
+     * @param orderId the ID of the deleted order
+     * @param userId the owner of the order, or null if it is not known
+     */
+    public void orderDeleted(Long orderId, Long userId) {
+        record(Type.ORDER_DELETED, orderId, userId, null);
+    }
+
+    /**
+     * Records that several orders were deleted at once, without their owners.
+     */
+    public void ordersDeleted(Collection<Long> orderIds) {
+        orderIds.forEach(orderId -> orderDeleted(orderId, null));
+    }
+
+    private void record(Type type, Long orderId, Long userId, Order order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Order events can only be recorded inside a transaction");
+        }
+        Map<Long, PendingEvent> pending = pendingEvents();
+        PendingEvent previous = pending.get(orderId);
+        if (previous == null) {
+            pending.put(orderId, new PendingEvent(type, orderId, userId, order));
+            return;
+        }
+        if (!(previous.type == Type.ORDER_CREATED && type == Type.ORDER_UPDATED)) {
+            previous.type = type;
+        }
+        previous.order = order;
+        if (userId != null) {
+            previous.userId = userId;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, PendingEvent> pendingEvents() {
+        Map<Long, PendingEvent> pending = (Map<Long, PendingEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Long, PendingEvent> events = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    insert(events.values());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderOutbox.this);
+                }
+            });
+            pending = events;
+        }
+        return pending;
+    }
+
+    private void insert(Collection<PendingEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // Assigns the versions of the changed orders before they are copied into the payloads
+        entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderOutboxEvent> rows = new ArrayList<>(events.size());
+        for (PendingEvent event : events) {
+            OrderEventMessage message = new OrderEventMessage(event.type.name(), event.orderId, event.userId,
+                    event.type == Type.ORDER_DELETED ? null : orderMapper.toDTO(event.order), now);
+            rows.add(OrderOutboxEvent.builder()
+                    .orderId(event.orderId)
+                    .userId(event.userId)
+                    .eventType(event.type)
+                    .payload(toJson(message))
+                    .createdAt(now)
+                    .build());
+        }
+        outboxRepository.saveAll(rows);
+    }
+
+    private String toJson(OrderEventMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize event of order " + message.getOrderId(), e);
+        }
+    }
+
+    private static Long ownerId(Order order) {
+        return order.getUser() != null ? order.getUser().getId() : null;
+    }
+}
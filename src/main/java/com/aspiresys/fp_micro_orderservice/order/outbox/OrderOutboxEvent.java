@@ -0,0 +1,52 @@
+package com.aspiresys.fp_micro_orderservice.order.outbox;
+
+import java.time.LocalDateTime;
+
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeId;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * An order event waiting to be published, stored in the {@code order_outbox} table.
+ * <p>
+ * The row is inserted in the transaction that changes the order, so an event exists if and only if the change
+ * was committed. {@link OrderOutboxRelay} publishes the rows in ID order and deletes them, so the table only
+ * holds the events that are not on Kafka yet.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Entity
+@Table(name = "order_outbox")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = {"payload"})
+public class OrderOutboxEvent {
+    public enum Type { ORDER_CREATED, ORDER_UPDATED, ORDER_DELETED }
+
+    @Id
+    @SnowflakeId
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Type eventType;
+
+    /**
+     * The message to publish, as JSON ({@link com.aspiresys.fp_micro_orderservice.kafka.dto.OrderEventMessage}).
+     */
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
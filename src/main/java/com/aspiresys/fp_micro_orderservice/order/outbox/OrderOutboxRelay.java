@@ -0,0 +1,227 @@
+package com.aspiresys.fp_micro_orderservice.order.outbox;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+
+/**
+ * Publishes the events of the {@code order_outbox} table to Kafka.
+ * <p>
+ * A single thread reads the oldest events in batches, hands the whole batch to the producer at once, waits until
+ * every record is acknowledged and then deletes the batch. No transaction is open while the batch is sent, so a slow
+ * or unavailable broker never holds database locks that order writes wait for. The producer
+ * ({@code orderEventKafkaTemplate}) lingers and compresses, so a batch goes out in a few compressed requests
+ * instead of one request per event. If publishing fails the events are not deleted; they stay in the table and
+ * are sent again after a delay: delivery is at least once, and consumers drop duplicates by
+ * {@code orderId} and {@code order.version}.
+ * </p>
+ * <p>
+ * While a batch is full the next one is read right away; otherwise the relay waits for the poll interval, which
+ * bounds how late an event is published when the service is quiet.
+ * </p>
+ * <p>
+ * Before every batch the relay takes or renews the {@link OrderOutboxRelayLock} lease in a short transaction.
+ * When the relay is enabled on several instances, only the one holding the lease publishes and the others skip the
+ * round, so batches never overlap and the events of an order are published in the order they were committed. The
+ * lease lasts twice the send timeout, which covers a whole batch; if the holder stops without freeing it, another
+ * instance takes over once it expires. Leases are compared with each instance's clock, so the clocks must be kept
+ * in sync.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.outbox.relay.enabled} - whether this instance takes part in publishing the outbox
+ *   (default true). Only one enabled instance publishes at a time.</li>
+ *   <li>{@code order.outbox.topic} - topic of the order events (default {@code order-events}).</li>
+ *   <li>{@code order.outbox.batch-size} - maximum number of events per batch (default 500).</li>
+ *   <li>{@code order.outbox.poll-interval} - wait when the outbox had no full batch (default 100 ms).</li>
+ *   <li>{@code order.outbox.send-timeout} - maximum wait for a batch to be acknowledged (default 1 minute).</li>
+ *   <li>{@code order.outbox.retry-delay} - wait after a batch failed (default 5 s).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component
+@Log
+public class OrderOutboxRelay {
+    public static final String EVENT_TYPE_HEADER = "eventType";
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderOutboxRelayLockRepository lockRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String topic;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration sendTimeout;
+    private final Duration retryDelay;
+
+    private final String owner = UUID.randomUUID().toString();
+    private Thread relay;
+    private volatile boolean running;
+
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository,
+                            OrderOutboxRelayLockRepository lockRepository,
+                            @Qualifier("orderEventKafkaTemplate") KafkaTemplate<String, String> kafkaTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${order.outbox.relay.enabled:true}") boolean enabled,
+                            @Value("${order.outbox.topic:order-events}") String topic,
+                            @Value("${order.outbox.batch-size:500}") int batchSize,
+                            @Value("${order.outbox.poll-interval:PT0.1S}") Duration pollInterval,
+                            @Value("${order.outbox.send-timeout:PT1M}") Duration sendTimeout,
+                            @Value("${order.outbox.retry-delay:PT5S}") Duration retryDelay) {
+        this.outboxRepository = outboxRepository;
+        this.lockRepository = lockRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.topic = topic;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.sendTimeout = sendTimeout;
+        this.retryDelay = retryDelay;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("OUTBOX: Relay disabled on this instance");
+            return;
+        }
+        createLock();
+        running = true;
+        relay = new Thread(this::relay, "order-outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+        log.info("OUTBOX: Relaying order events to topic " + topic + " in batches of " + batchSize);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        relay.interrupt();
+        relay.join(sendTimeout.toMillis());
+        transactionTemplate.executeWithoutResult(status -> lockRepository.release(OrderOutboxRelayLock.ID, owner));
+    }
+
+    private void relay() {
+        while (running) {
+            try {
+                if (publishBatch() < batchSize) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warning("OUTBOX: Could not publish order events, retrying in " + retryDelay + ": " + e.getMessage());
+                try {
+                    Thread.sleep(retryDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the lock row when the schema was not built by the migrations. Instances starting together may both
+     * try; the one that loses finds the row created by the other.
+     */
+    private void createLock() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!lockRepository.existsById(OrderOutboxRelayLock.ID)) {
+                    lockRepository.saveAndFlush(new OrderOutboxRelayLock(OrderOutboxRelayLock.ID));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.fine("OUTBOX: Relay lock created by another instance");
+        }
+    }
+
+    /**
+     * Publishes and deletes the next batch of events, unless another relay holds the lease.
+     * <p>
+     * The lease is taken, the batch read and the published events deleted in three short transactions; none is
+     * open while the batch is sent.
+     * </p>
+     *
+     * @return the number of events published
+     */
+    int publishBatch() {
+        if (!acquireLease()) {
+            return 0;
+        }
+        List<OrderOutboxEvent> events = outboxRepository.findNextBatch(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(events.size());
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OrderOutboxEvent event : events) {
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic,
+                    String.valueOf(event.getOrderId()), event.getPayload());
+            record.headers().add(EVENT_TYPE_HEADER, event.getEventType().name().getBytes(StandardCharsets.UTF_8));
+            sends.add(kafkaTemplate.send(record));
+            ids.add(event.getId());
+        }
+        awaitAcknowledged(sends);
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteAllByIdInBatch(ids));
+        log.fine("OUTBOX: Published " + events.size() + " order events");
+        return events.size();
+    }
+
+    /**
+     * Takes or renews the lease for twice the send timeout, enough for the batch about to be sent.
+     *
+     * @return whether this relay holds the lease
+     */
+    private boolean acquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer acquired = transactionTemplate.execute(status -> lockRepository.acquire(
+                OrderOutboxRelayLock.ID, owner, now, now.plus(sendTimeout.multipliedBy(2))));
+        return acquired != null && acquired > 0;
+    }
+
+    private void awaitAcknowledged(List<CompletableFuture<SendResult<String, String>>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing order events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            // The batch is not deleted; events already on Kafka are sent again with the rest
+            throw new IllegalStateException("Order events were not acknowledged: " + e.getMessage(), e);
+        }
+    }
+}
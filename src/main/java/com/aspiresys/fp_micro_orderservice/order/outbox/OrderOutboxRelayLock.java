@@ -0,0 +1,44 @@
+package com.aspiresys.fp_micro_orderservice.order.outbox;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * The single row of the {@code order_outbox_relay_lock} table: the lease that makes one {@link OrderOutboxRelay}
+ * the only one publishing the outbox.
+ * <p>
+ * A relay takes or renews the lease in a short transaction before every batch and keeps it while it sends, without
+ * holding any database lock. Batches are published one after the other in ID order, so the events of an order
+ * reach Kafka in the order they were committed even when the relay is enabled on several instances.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Entity
+@Table(name = "order_outbox_relay_lock")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutboxRelayLock {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    /**
+     * The relay holding the lease, or null when it is free.
+     */
+    @Column(length = 64)
+    private String owner;
+
+    /**
+     * When the lease ends unless its owner renews it.
+     */
+    private LocalDateTime leaseUntil;
+
+    public OrderOutboxRelayLock(Long id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,45 @@
+package com.aspiresys.fp_micro_orderservice.order.outbox;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository of the lease that makes a single {@link OrderOutboxRelay} active at a time.
+ *
+ * @author bruno.gil
+ */
+public interface OrderOutboxRelayLockRepository extends JpaRepository<OrderOutboxRelayLock, Long> {
+
+    /**
+     * Takes or renews the lease when it is free, expired or already held by the same relay.
+     *
+     * @param id the ID of the lock row
+     * @param owner the relay asking for the lease
+     * @param now the current time
+     * @param leaseUntil when the lease ends unless renewed
+     * @return 1 if the relay holds the lease now, 0 if another relay does
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OrderOutboxRelayLock l set l.owner = :owner, l.leaseUntil = :leaseUntil " +
+           "where l.id = :id and (l.owner is null or l.owner = :owner or l.leaseUntil < :now)")
+    int acquire(@Param("id") Long id,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now,
+                @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Frees the lease if the relay holds it, so another instance takes over right away.
+     *
+     * @param id the ID of the lock row
+     * @param owner the relay giving up the lease
+     * @return 1 if the lease was freed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OrderOutboxRelayLock l set l.owner = null, l.leaseUntil = null " +
+           "where l.id = :id and l.owner = :owner")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+}
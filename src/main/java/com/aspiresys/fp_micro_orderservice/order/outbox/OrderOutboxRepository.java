@@ -0,0 +1,29 @@
+package com.aspiresys.fp_micro_orderservice.order.outbox;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * Repository of the order events waiting to be published.
+ *
+ * @author bruno.gil
+ */
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    /**
+     * Reads the oldest events.
+     * <p>
+     * Only called by the relay holding the {@link OrderOutboxRelayLock} lease, so no other relay reads the events
+     * at the same time. The rows are not locked: a {@code for update} read would also lock the gap after the last
+     * row under MySQL's repeatable read, and block the outbox insert of every order write for as long as it is held.
+     * </p>
+     *
+     * @param pageable the number of events to read, as the page size
+     * @return the events, oldest first
+     */
+    @Query("select e from OrderOutboxEvent e order by e.id")
+    List<OrderOutboxEvent> findNextBatch(Pageable pageable);
+}
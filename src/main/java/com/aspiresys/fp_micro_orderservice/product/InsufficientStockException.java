@@ -0,0 +1,24 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import java.util.List;
+
+/**
+ * Thrown when the stock of one or more products does not cover the quantities of an order.
+ * The transaction that placed the order is rolled back.
+ *
+ * @author bruno.gil
+ */
+public class InsufficientStockException extends RuntimeException {
+    private final List<Long> productIds;
+
+    public InsufficientStockException(List<Long> productIds) {
+        super(productIds.isEmpty()
+                ? "Insufficient stock for the requested products"
+                : "Insufficient stock for products: " + productIds);
+        this.productIds = productIds;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 /**
  * Abstract base class representing a product entity.
@@ -33,12 +34,13 @@ import lombok.*;
  */
 @Entity
 @Table(name = "products")
+@BatchSize(size = 50) // Products referenced by a page of items are loaded together
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@EqualsAndHashCode
-@ToString
+@EqualsAndHashCode(exclude = {"Items"})
+@ToString(exclude = {"Items"}) // Lazy collection, must not be touched outside a transaction
 public class Product {
     @Id
     private Long id;
@@ -0,0 +1,441 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+
+/**
+ * In-memory copy of the product catalog, used to validate and price order items without reading the database.
+ * <p>
+ * Readers take the current {@link Snapshot}, which never changes: an open-addressing table keyed by primitive
+ * {@code long} product ID that points into one array per field. Category and brand are dictionary-encoded, so each
+ * product only holds an {@code int} code for them. A lookup allocates nothing and takes no lock.
+ * </p>
+ * <p>
+ * {@link ProductSyncService} reports every product it stores or deletes after its transaction commits. The changes
+ * are collected and a publisher thread turns them into a new snapshot every publish interval, so a burst of Kafka
+ * events (such as the initial load) costs one copy of the catalog per interval rather than one per event. When only
+ * existing products changed, the new snapshot shares the table of the previous one and only the field arrays are
+ * copied. On startup the catalog is loaded from the products table in keyset pages.
+ * </p>
+ * <p>
+ * The stock held here is the one last published by Product Service; the products table is decremented by orders,
+ * so it is only an upper bound. The conditional stock update stays the source of truth.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code product.catalog.publish-interval} - how long changes wait before they are published (default 50 ms).</li>
+ *   <li>{@code product.catalog.load-page-size} - products read per query when loading on startup (default 10000).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component
+@Log
+public class ProductCatalog {
+    // Product IDs come from Product Service and are positive; this value marks a free slot of the table
+    private static final long FREE = Long.MIN_VALUE;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    private final ProductRepository productRepository;
+    private final Duration publishInterval;
+    private final int loadPageSize;
+
+    // Changes not published yet, keyed by product ID; a null value removes the product
+    private final Map<Long, Entry> pending = new HashMap<>();
+    private final Object publishLock = new Object();
+    // Only used by the publishing thread, under publishLock
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary brands = new Dictionary();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private Thread publisher;
+    private volatile boolean running;
+
+    private record Entry(long id, int stock, double price, String name, String category, String brand,
+                         String imageUrl) {
+        static Entry of(Product product) {
+            return new Entry(product.getId(), product.getStock(), product.getPrice(), product.getName(),
+                    product.getCategory(), product.getBrand(), product.getImageUrl());
+        }
+    }
+
+    public ProductCatalog(ProductRepository productRepository,
+                          @Value("${product.catalog.publish-interval:PT0.05S}") Duration publishInterval,
+                          @Value("${product.catalog.load-page-size:10000}") int loadPageSize) {
+        this.productRepository = productRepository;
+        this.publishInterval = publishInterval;
+        this.loadPageSize = loadPageSize;
+    }
+
+    /**
+     * Loads the products stored by previous runs and starts publishing changes.
+     */
+    @PostConstruct
+    void start() {
+        long lastId = Long.MIN_VALUE;
+        List<Product> page;
+        do {
+            page = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, loadPageSize));
+            synchronized (pending) {
+                page.forEach(product -> pending.put(product.getId(), Entry.of(product)));
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == loadPageSize);
+        publish();
+        log.info("PRODUCT CATALOG: Loaded " + snapshot.size() + " stored products");
+
+        running = true;
+        publisher = new Thread(this::run, "product-catalog-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (publisher != null) {
+            publisher.interrupt();
+            publisher.join(5_000);
+        }
+    }
+
+    /**
+     * Returns the current catalog. Resolve all the products of an order from the same snapshot.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Adds or replaces a product once the current transaction commits, or right away outside a transaction.
+     *
+     * @param product the product as stored
+     */
+    public void putAfterCommit(Product product) {
+        Entry entry = Entry.of(product);
+        afterCommit(() -> {
+            synchronized (pending) {
+                pending.put(entry.id(), entry);
+            }
+        });
+    }
+
+    /**
+     * Removes a product once the current transaction commits, or right away outside a transaction.
+     *
+     * @param productId the ID of the product
+     */
+    public void removeAfterCommit(long productId) {
+        afterCommit(() -> {
+            synchronized (pending) {
+                pending.put(productId, null);
+            }
+        });
+    }
+
+    /**
+     * Publishes the pending changes now.
+     */
+    public void publish() {
+        synchronized (publishLock) {
+            Map<Long, Entry> changes;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                changes = new HashMap<>(pending);
+                pending.clear();
+            }
+            snapshot = snapshot.withChanges(changes, categories, brands);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(publishInterval.toMillis());
+                publish();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.severe("PRODUCT CATALOG: Could not publish changes: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Append-only list of the distinct values of a field. Its array only grows by copy, so a snapshot can keep the
+     * array it was built with.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+                values[code] = value;
+                codes.put(value, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Immutable view of the catalog. A product is found by {@link #slotOf} and its fields are read by slot.
+     */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new long[] {FREE}, new int[1], 0, new long[0], new int[0],
+                new double[0], new String[0], new String[0], new int[0], new String[0], new int[0], new String[0]);
+
+        // Open-addressing table with linear probing: the product ID and the slot of its fields
+        private final long[] keys;
+        private final int[] slots;
+        private final int mask;
+        private final int size;
+        // One entry per slot
+        private final long[] ids;
+        private final int[] stock;
+        private final double[] price;
+        private final String[] name;
+        private final String[] imageUrl;
+        private final int[] category;
+        private final String[] categoryValues;
+        private final int[] brand;
+        private final String[] brandValues;
+
+        private Snapshot(long[] keys, int[] slots, int size, long[] ids, int[] stock, double[] price, String[] name,
+                         String[] imageUrl, int[] category, String[] categoryValues, int[] brand, String[] brandValues) {
+            this.keys = keys;
+            this.slots = slots;
+            this.mask = keys.length - 1;
+            this.size = size;
+            this.ids = ids;
+            this.stock = stock;
+            this.price = price;
+            this.name = name;
+            this.imageUrl = imageUrl;
+            this.category = category;
+            this.categoryValues = categoryValues;
+            this.brand = brand;
+            this.brandValues = brandValues;
+        }
+
+        /**
+         * Finds a product.
+         *
+         * @param productId the ID of the product
+         * @return the slot of the product, or -1 if it is not in the catalog
+         */
+        public int slotOf(long productId) {
+            if (productId == FREE) {
+                return -1;
+            }
+            int index = hash(productId) & mask;
+            while (true) {
+                long key = keys[index];
+                if (key == productId) {
+                    return slots[index];
+                }
+                if (key == FREE) {
+                    return -1;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        public boolean contains(long productId) {
+            return slotOf(productId) >= 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long id(int slot) {
+            return ids[slot];
+        }
+
+        public int stock(int slot) {
+            return stock[slot];
+        }
+
+        public double price(int slot) {
+            return price[slot];
+        }
+
+        public String name(int slot) {
+            return name[slot];
+        }
+
+        public String imageUrl(int slot) {
+            return imageUrl[slot];
+        }
+
+        public String category(int slot) {
+            return category[slot] < 0 ? null : categoryValues[category[slot]];
+        }
+
+        public String brand(int slot) {
+            return brand[slot] < 0 ? null : brandValues[brand[slot]];
+        }
+
+        /**
+         * Estimates the bytes held by the arrays of this snapshot, not counting the strings they point to.
+         */
+        public long arrayBytes() {
+            long references = (long) name.length + imageUrl.length + categoryValues.length + brandValues.length;
+            return 8L * keys.length + 4L * slots.length + 8L * ids.length + 4L * stock.length + 8L * price.length
+                    + 4L * category.length + 4L * brand.length + 4L * references;
+        }
+
+        Snapshot withChanges(Map<Long, Entry> changes, Dictionary categories, Dictionary brands) {
+            boolean sameProducts = true;
+            for (Map.Entry<Long, Entry> change : changes.entrySet()) {
+                if (change.getValue() == null || slotOf(change.getKey()) < 0) {
+                    sameProducts = false;
+                    break;
+                }
+            }
+            return sameProducts ? updated(changes, categories, brands) : rebuilt(changes, categories, brands);
+        }
+
+        /**
+         * Copies the fields and overwrites the changed products; the table and the IDs are shared.
+         */
+        private Snapshot updated(Map<Long, Entry> changes, Dictionary categories, Dictionary brands) {
+            int[] newStock = stock.clone();
+            double[] newPrice = price.clone();
+            String[] newName = name.clone();
+            String[] newImageUrl = imageUrl.clone();
+            int[] newCategory = category.clone();
+            int[] newBrand = brand.clone();
+            for (Entry entry : changes.values()) {
+                int slot = slotOf(entry.id());
+                newStock[slot] = entry.stock();
+                newPrice[slot] = entry.price();
+                newName[slot] = entry.name();
+                newImageUrl[slot] = entry.imageUrl();
+                newCategory[slot] = categories.encode(entry.category());
+                newBrand[slot] = brands.encode(entry.brand());
+            }
+            return new Snapshot(keys, slots, size, ids, newStock, newPrice, newName, newImageUrl,
+                    newCategory, categories.values, newBrand, brands.values);
+        }
+
+        /**
+         * Builds new fields and a new table with the unchanged products followed by the added or changed ones.
+         */
+        private Snapshot rebuilt(Map<Long, Entry> changes, Dictionary categories, Dictionary brands) {
+            int newSize = 0;
+            for (int slot = 0; slot < size; slot++) {
+                if (!changes.containsKey(ids[slot])) {
+                    newSize++;
+                }
+            }
+            for (Entry entry : changes.values()) {
+                if (entry != null) {
+                    newSize++;
+                }
+            }
+            long[] newIds = new long[newSize];
+            int[] newStock = new int[newSize];
+            double[] newPrice = new double[newSize];
+            String[] newName = new String[newSize];
+            String[] newImageUrl = new String[newSize];
+            int[] newCategory = new int[newSize];
+            int[] newBrand = new int[newSize];
+
+            int next = 0;
+            for (int slot = 0; slot < size; slot++) {
+                if (changes.containsKey(ids[slot])) {
+                    continue;
+                }
+                newIds[next] = ids[slot];
+                newStock[next] = stock[slot];
+                newPrice[next] = price[slot];
+                newName[next] = name[slot];
+                newImageUrl[next] = imageUrl[slot];
+                newCategory[next] = category[slot];
+                newBrand[next] = brand[slot];
+                next++;
+            }
+            for (Entry entry : changes.values()) {
+                if (entry == null) {
+                    continue;
+                }
+                newIds[next] = entry.id();
+                newStock[next] = entry.stock();
+                newPrice[next] = entry.price();
+                newName[next] = entry.name();
+                newImageUrl[next] = entry.imageUrl();
+                newCategory[next] = categories.encode(entry.category());
+                newBrand[next] = brands.encode(entry.brand());
+                next++;
+            }
+
+            int capacity = Integer.highestOneBit((int) Math.max(2, newSize / MAX_LOAD_FACTOR)) << 1;
+            long[] newKeys = new long[capacity];
+            int[] newSlots = new int[capacity];
+            Arrays.fill(newKeys, FREE);
+            int newMask = capacity - 1;
+            for (int slot = 0; slot < newSize; slot++) {
+                int index = hash(newIds[slot]) & newMask;
+                while (newKeys[index] != FREE) {
+                    index = (index + 1) & newMask;
+                }
+                newKeys[index] = newIds[slot];
+                newSlots[index] = slot;
+            }
+            return new Snapshot(newKeys, newSlots, newSize, newIds, newStock, newPrice, newName, newImageUrl,
+                    newCategory, categories.values, newBrand, brands.values);
+        }
+
+        private static int hash(long productId) {
+            long h = productId * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
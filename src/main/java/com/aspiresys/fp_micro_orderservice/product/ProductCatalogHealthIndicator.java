@@ -0,0 +1,34 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the {@link ProductCatalogState} as the {@code productCatalog} health component.
+ * <p>
+ * It is part of the readiness group ({@code /actuator/health/readiness}), so the instance receives no traffic until
+ * its product catalog is loaded. It is {@code UP} once loaded, with whether the consumer is caught up and its lag as
+ * details, and {@code OUT_OF_SERVICE} before.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component("productCatalog")
+public class ProductCatalogHealthIndicator implements HealthIndicator {
+    private final ProductCatalogState productCatalogState;
+
+    public ProductCatalogHealthIndicator(ProductCatalogState productCatalogState) {
+        this.productCatalogState = productCatalogState;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = productCatalogState.isReady() ? Health.up() : Health.outOfService();
+        return health
+                .withDetail("loaded", productCatalogState.isReady())
+                .withDetail("caughtUp", productCatalogState.isCaughtUp())
+                .withDetail("lag", productCatalogState.getLag())
+                .build();
+    }
+}
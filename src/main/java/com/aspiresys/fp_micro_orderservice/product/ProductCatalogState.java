@@ -0,0 +1,118 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import java.util.Collection;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.java.Log;
+
+/**
+ * Readiness of the local product catalog, kept up to date by the Kafka product consumer.
+ * <p>
+ * The catalog is <b>loaded</b> once the consumer has reached the end of the product topic for the first time, or
+ * at startup if the products table already holds the catalog of a previous run. It is <b>caught up</b> while the
+ * consumer has no records left to read on any of its partitions: the consumer records its lag after every record, and
+ * an idle listener container means every assigned partition was read to its end.
+ * </p>
+ * <p>
+ * Readers get the state from volatile fields, without querying the database. Orders are accepted once the catalog is
+ * loaded; a consumer briefly behind after that only delays product changes, as it always did.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code kafka.topic.product} - the product topic whose partitions are tracked (default {@code product}).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component
+@Log
+public class ProductCatalogState {
+    private final ProductCatalog productCatalog;
+    private final String productTopic;
+
+    private volatile boolean loaded;
+    private volatile boolean caughtUp;
+    private volatile long lag = -1;
+
+    public ProductCatalogState(ProductCatalog productCatalog,
+                               @Value("${kafka.topic.product:product}") String productTopic) {
+        this.productCatalog = productCatalog;
+        this.productTopic = productTopic;
+    }
+
+    /**
+     * Checks the products the {@link ProductCatalog} loaded from the database, so a restarted service serves the
+     * catalog it already has while the consumer catches up.
+     */
+    @PostConstruct
+    void loadStoredCatalog() {
+        long stored = productCatalog.size();
+        if (stored > 0) {
+            loaded = true;
+            log.info("PRODUCT CATALOG: " + stored + " products stored by a previous run; waiting for the consumer to catch up");
+        } else {
+            log.info("PRODUCT CATALOG: No products stored yet; waiting for the initial load from Kafka");
+        }
+    }
+
+    /**
+     * Whether orders can be validated against the catalog.
+     *
+     * @return true once the catalog is loaded
+     */
+    public boolean isReady() {
+        return loaded;
+    }
+
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    /**
+     * Returns the number of product records not read yet over all partitions, or -1 while it is not known.
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    /**
+     * Records the lag of the product consumer after it processed a record.
+     *
+     * @param totalLag the records left on all assigned partitions, or -1 if the lag of a partition is not known yet
+     */
+    public void recordLag(long totalLag) {
+        lag = totalLag;
+        caughtUp = totalLag == 0;
+        if (caughtUp) {
+            markLoaded();
+        }
+    }
+
+    /**
+     * The product container is idle when a poll returned no records for the idle interval, that is, when it has
+     * read every assigned partition to its end.
+     */
+    @EventListener
+    public void onListenerContainerIdle(ListenerContainerIdleEvent event) {
+        Collection<TopicPartition> partitions = event.getTopicPartitions();
+        if (partitions != null && !partitions.isEmpty()
+                && partitions.stream().allMatch(partition -> partition.topic().equals(productTopic))) {
+            recordLag(0);
+        }
+    }
+
+    private synchronized void markLoaded() {
+        if (!loaded) {
+            loaded = true;
+            log.info("PRODUCT CATALOG: Initial load complete");
+        }
+    }
+}
@@ -1,8 +1,20 @@
 package com.aspiresys.fp_micro_orderservice.product;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Repository of the products synchronized from Product Service.
+ * Stock is taken out with the conditional bulk update of {@link ProductStockRepository}.
+ */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
+
+    /**
+     * Reads the next page of products after the given ID, so a full scan does not need an offset.
+     */
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
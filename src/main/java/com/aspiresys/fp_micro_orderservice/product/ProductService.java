@@ -1,6 +1,8 @@
 package com.aspiresys.fp_micro_orderservice.product;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service interface for managing products.
@@ -10,5 +12,21 @@ public interface ProductService {
     Product saveProduct(Product product);
     List<Product> getAllProducts();
     Product getProductById(Long id);
+
+    /**
+     * Retrieves several products in a single query.
+     *
+     * @param ids the IDs of the products, duplicates are ignored
+     * @return the products found, keyed by ID; IDs that do not exist are absent
+     */
+    Map<Long, Product> getProductsByIds(Collection<Long> ids);
+
+    /**
+     * Returns a reference to a product without reading it, to link an item to a product already known to exist.
+     *
+     * @param id the ID of the product
+     * @return the product, loaded only when one of its fields other than the ID is read
+     */
+    Product getReference(Long id);
     void deleteProduct(Long id);
 }
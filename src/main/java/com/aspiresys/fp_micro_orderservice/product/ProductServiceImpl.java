@@ -2,7 +2,12 @@ package com.aspiresys.fp_micro_orderservice.product;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -18,6 +23,7 @@ import java.util.Optional;
  *   <li>Save a new product</li>
  *   <li>Retrieve all products</li>
  *   <li>Retrieve a product by its ID</li>
+ *   <li>Retrieve several products by their IDs in one query</li>
  *   <li>Delete a product by its ID</li>
  * </ul>
  * </p>
@@ -37,16 +43,36 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Product getProductById(Long id) {
         Optional<Product> product = productRepository.findById(id);
         return product.orElse(null);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Product> getProductsByIds(Collection<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return products;
+        }
+        for (Product product : productRepository.findAllById(new HashSet<>(ids))) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+
+    @Override
+    public Product getReference(Long id) {
+        return productRepository.getReferenceById(id);
+    }
+
     @Override
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
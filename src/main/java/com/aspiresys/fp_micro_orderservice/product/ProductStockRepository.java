@@ -0,0 +1,21 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import java.util.Map;
+
+/**
+ * Stock updates mixed into {@link ProductRepository}.
+ *
+ * @author bruno.gil
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Takes the given quantities out of the stock of several products with a single conditional update.
+     * A product is only updated when its stock covers the quantity, so the stock never goes negative
+     * and concurrent orders cannot overwrite each other. A negative quantity gives stock back.
+     *
+     * @param quantities the quantity to take from each product, keyed by product ID
+     * @return the number of products updated; less than {@code quantities.size()} when some stock was short
+     */
+    int decrementStock(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,49 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Criteria implementation of {@link ProductStockRepository}.
+ * <p>
+ * Issues one statement for all the products of an order:
+ * {@code update products set stock = stock - case id when ? then ? ... end
+ * where id in (...) and stock >= case id when ? then ? ... end}.
+ * The rows are locked in primary key order, so concurrent orders over the same products do not deadlock.
+ * Managed products are not refreshed; their {@code stock} keeps the value read before the update.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> product = update.from(Product.class);
+
+        CriteriaBuilder.SimpleCase<Long, Integer> quantityCase = cb.selectCase(product.<Long>get("id"));
+        quantities.forEach((id, units) -> quantityCase.when(id, units));
+        Expression<Integer> quantity = quantityCase.otherwise(0);
+
+        Expression<Integer> stock = product.<Integer>get("stock");
+        update.set(product.<Integer>get("stock"), cb.diff(stock, quantity));
+        update.where(
+                product.get("id").in(quantities.keySet()),
+                cb.ge(stock, quantity));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -4,13 +4,20 @@ import com.aspiresys.fp_micro_orderservice.kafka.dto.ProductMessage;
 import lombok.extern.java.Log;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Service for managing products synchronized from Product Service via Kafka.
  * Uses the existing Product entity and ProductRepository.
+ * Synchronization writes run in read-write transactions, so their reads always hit the primary database.
+ * Whether the catalog is loaded is tracked by {@link ProductCatalogState}, not by counting products.
+ * Every stored or deleted product is also reported to the in-memory {@link ProductCatalog} once its transaction commits.
+ * A failed synchronization write is not caught here: its transaction rolls back and the exception reaches the Kafka
+ * listener, which logs it.
  * 
  * @author bruno.gil
  */
@@ -21,38 +28,41 @@ public class ProductSyncService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
     /**
      * Save or update a product from Kafka message
      * 
      * @param productMessage Product message from Kafka
      */
+    @Transactional
     public void saveOrUpdateProduct(ProductMessage productMessage) {
-        try {
-            log.info("🔍 SYNC: Checking if product ID " + productMessage.getId() + " exists in database...");
-            Optional<Product> existingProduct = productRepository.findById(productMessage.getId());
-            
-            if (existingProduct.isPresent()) {
-                // Update existing product
-                log.info("SYNC: Product ID " + productMessage.getId() + " exists, updating...");
-                Product product = existingProduct.get();
-                updateProductFromMessage(product, productMessage);
-                Product savedProduct = productRepository.save(product);
-                log.info("SYNC: Updated product ID " + savedProduct.getId() + 
-                         " (" + savedProduct.getName() + ") - Event: " + productMessage.getEventType());
-            } else {
-                // Create new product
-                log.info("SYNC: Product ID " + productMessage.getId() + " does not exist, creating new...");
-                Product newProduct = createProductFromMessage(productMessage);
-                Product savedProduct = productRepository.save(newProduct);
-                log.info("SYNC: Created new product ID " + savedProduct.getId() + 
-                         " (" + savedProduct.getName() + ") - Event: " + productMessage.getEventType());
-                log.info("SYNC: Total products in database: " + productRepository.count());
-            }
-        } catch (Exception e) {
-            log.severe("SYNC ERROR: Failed to save/update product ID " + productMessage.getId() + 
-                      " (" + productMessage.getName() + ") - Error: " + e.getMessage());
-            log.severe("SYNC ERROR: Event type was: " + productMessage.getEventType());
-            e.printStackTrace();
+        log.info("🔍 SYNC: Checking if product ID " + productMessage.getId() + " exists in database...");
+        Optional<Product> existingProduct = productRepository.findById(productMessage.getId());
+
+        if (existingProduct.isPresent()) {
+            // Update existing product
+            log.info("SYNC: Product ID " + productMessage.getId() + " exists, updating...");
+            Product product = existingProduct.get();
+            updateProductFromMessage(product, productMessage);
+            Product savedProduct = productRepository.save(product);
+            stockLedger.reset(savedProduct.getId(), savedProduct.getStock());
+            productCatalog.putAfterCommit(savedProduct);
+            log.info("SYNC: Updated product ID " + savedProduct.getId() + 
+                     " (" + savedProduct.getName() + ") - Event: " + productMessage.getEventType());
+        } else {
+            // Create new product
+            log.info("SYNC: Product ID " + productMessage.getId() + " does not exist, creating new...");
+            Product newProduct = createProductFromMessage(productMessage);
+            Product savedProduct = productRepository.save(newProduct);
+            stockLedger.reset(savedProduct.getId(), savedProduct.getStock());
+            productCatalog.putAfterCommit(savedProduct);
+            log.info("SYNC: Created new product ID " + savedProduct.getId() + 
+                     " (" + savedProduct.getName() + ") - Event: " + productMessage.getEventType());
         }
     }
 
@@ -61,17 +71,15 @@ public class ProductSyncService {
      * 
      * @param productId Product ID to delete
      */
+    @Transactional
     public void deleteProduct(Long productId) {
-        try {
-            if (productRepository.existsById(productId)) {
-                productRepository.deleteById(productId);
-                log.info("SYNC: Deleted product ID " + productId + " - Event: PRODUCT_DELETED");
-            } else {
-                log.warning("SYNC: Attempted to delete non-existent product ID " + productId);
-            }
-        } catch (Exception e) {
-            log.severe("SYNC ERROR: Failed to delete product ID " + productId + " - Error: " + e.getMessage());
-            e.printStackTrace();
+        if (productRepository.existsById(productId)) {
+            productRepository.deleteById(productId);
+            stockLedger.evict(productId);
+            productCatalog.removeAfterCommit(productId);
+            log.info("SYNC: Deleted product ID " + productId + " - Event: PRODUCT_DELETED");
+        } else {
+            log.warning("SYNC: Attempted to delete non-existent product ID " + productId);
         }
     }
 
@@ -107,27 +115,21 @@ public class ProductSyncService {
     }
 
     /**
-     * Update stock after order
+     * Update stock after order.
+     * The check and the decrement are a single conditional update, so concurrent orders never oversell.
      * 
      * @param productId Product ID
      * @param quantity Quantity to reduce
      * @return true if stock was updated successfully
      */
+    @Transactional
     public boolean reduceStock(Long productId, Integer quantity) {
         try {
-            Optional<Product> productOpt = productRepository.findById(productId);
-            if (productOpt.isPresent()) {
-                Product product = productOpt.get();
-                if (product.getStock() >= quantity) {
-                    product.setStock(product.getStock() - quantity);
-                    productRepository.save(product);
-                    log.info("Reduced stock for product " + productId + " by " + quantity);
-                    return true;
-                } else {
-                    log.warning("Insufficient stock for product " + productId);
-                    return false;
-                }
+            if (productRepository.decrementStock(Map.of(productId, quantity)) == 1) {
+                log.info("Reduced stock for product " + productId + " by " + quantity);
+                return true;
             }
+            log.warning("Insufficient stock for product " + productId);
             return false;
         } catch (Exception e) {
             log.severe("Error reducing stock: " + e.getMessage());
@@ -184,28 +186,7 @@ public class ProductSyncService {
      * to trigger a complete synchronization.
      */
     public void requestProductSynchronization() {
-        long currentCount = getProductCount();
-        log.info("SYNC REQUEST: Current products: " + currentCount + 
-                 ". Kafka consumer is listening for new messages.");
+        log.info("SYNC REQUEST: Product catalog is not loaded yet. Kafka consumer is listening for new messages.");
         log.info("TIP: Use Product Service endpoint POST /admin/kafka/sync/force-full-sync to trigger full sync");
     }
-
-    /**
-     * Checks if the product database appears to be synchronized.
-     * Returns true if there are products, false if empty.
-     * 
-     * @return true if products exist, false if database appears empty
-     */
-    public boolean isProductDatabaseSynchronized() {
-        long count = getProductCount();
-        boolean isSynced = count > 0;
-        
-        if (!isSynced) {
-            log.warning("Product database appears empty. Consider triggering synchronization from Product Service.");
-        } else {
-            log.info("Product database has " + count + " products synchronized.");
-        }
-        
-        return isSynced;
-    }
 }
@@ -0,0 +1,130 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory count of the stock still available for each product, used to turn down orders that clearly cannot
+ * be served before they reach the database.
+ * <p>
+ * Each product has its own counter, decremented with compare-and-set, so orders for different products never
+ * contend and orders for the same hot product never block. A counter is seeded from the stock read by the first
+ * order that needs it and reset by every product event from Kafka.
+ * </p>
+ * <p>
+ * The ledger is only a filter: the conditional update of {@link ProductStockRepository} stays the source of truth.
+ * Other instances sell from the same stock, so a counter may be higher than the real stock (the database then
+ * rejects the order), but it is never lower, so no order is wrongly rejected.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code order.stock.ledger.enabled} - whether orders are checked against the ledger (default false).</li>
+ * </ul>
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component
+public class StockLedger {
+    private final boolean enabled;
+    private final ConcurrentHashMap<Long, AtomicLong> available = new ConcurrentHashMap<>();
+
+    public StockLedger(@Value("${order.stock.ledger.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves the quantities of all products, or none of them.
+     *
+     * @param quantities the quantity of each product, keyed by product ID
+     * @param currentStock the stock of a product, used to seed its counter the first time it is seen
+     * @return the IDs of the products whose available stock is short; empty when everything was reserved
+     */
+    public List<Long> tryReserve(Map<Long, Integer> quantities, ToLongFunction<Long> currentStock) {
+        List<Long> reserved = new ArrayList<>();
+        List<Long> shortProducts = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            AtomicLong counter = available.computeIfAbsent(productId,
+                    id -> new AtomicLong(currentStock.applyAsLong(id)));
+            if (take(counter, entry.getValue())) {
+                reserved.add(productId);
+            } else {
+                shortProducts.add(productId);
+            }
+        }
+        if (!shortProducts.isEmpty()) {
+            for (Long productId : reserved) {
+                release(productId, quantities.get(productId));
+            }
+        }
+        return shortProducts;
+    }
+
+    /**
+     * Gives back quantities reserved by an order that was not placed.
+     *
+     * @param quantities the quantity of each product, keyed by product ID
+     */
+    public void release(Map<Long, Integer> quantities) {
+        quantities.forEach(this::release);
+    }
+
+    /**
+     * Sets the available stock of a product to the value received from Product Service.
+     *
+     * @param productId the ID of the product
+     * @param stock its current stock
+     */
+    public void reset(Long productId, long stock) {
+        available.put(productId, new AtomicLong(stock));
+    }
+
+    /**
+     * Forgets a product, so its counter is seeded again from the database the next time it is ordered.
+     *
+     * @param productId the ID of the product
+     */
+    public void evict(Long productId) {
+        available.remove(productId);
+    }
+
+    /**
+     * Returns the stock the ledger believes is available, or -1 when the product is not tracked.
+     */
+    public long available(Long productId) {
+        AtomicLong counter = available.get(productId);
+        return counter != null ? counter.get() : -1;
+    }
+
+    private void release(Long productId, int quantity) {
+        AtomicLong counter = available.get(productId);
+        if (counter != null) {
+            counter.addAndGet(quantity);
+        }
+    }
+
+    private static boolean take(AtomicLong counter, int quantity) {
+        while (true) {
+            long current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.java.Log;
+
+/**
+ * Takes the stock of an order out of the products, inside the transaction that places the order.
+ * <p>
+ * When the {@link StockLedger} is enabled, the quantities are first reserved in memory and the order is turned
+ * down right away if a counter is short. The stock is then decremented with a single conditional update
+ * ({@link ProductStockRepository#decrementStock}). If any product is short the whole transaction is rolled back,
+ * so the order, its items and the stock of the other products are left untouched, and the ledger reservation is
+ * given back.
+ * </p>
+ * <p>
+ * Orders whose products were resolved from the {@link ProductCatalog} are reserved without reading the products:
+ * the ledger is seeded from the stock published to the catalog, an upper bound of the stock in the database, and the
+ * products are only read when the conditional update comes up short, to tell which ones.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Service
+@Log
+public class StockReservationService {
+    private final ProductRepository productRepository;
+    private final StockLedger stockLedger;
+    private final ProductCatalog productCatalog;
+
+    public StockReservationService(ProductRepository productRepository, StockLedger stockLedger,
+                                   ProductCatalog productCatalog) {
+        this.productRepository = productRepository;
+        this.stockLedger = stockLedger;
+        this.productCatalog = productCatalog;
+    }
+
+    /**
+     * Reserves the stock of an order.
+     *
+     * @param quantities the total quantity of each product, keyed by product ID; a negative quantity gives
+     *                   stock back, as when an order is edited down
+     * @param products the products of the order, as read in the current transaction
+     * @throws InsufficientStockException if the stock of any product does not cover its quantity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantities, Map<Long, Product> products) {
+        reserve(quantities, id -> products.get(id).getStock(), () -> shortProducts(quantities, products));
+    }
+
+    /**
+     * Reserves the stock of an order whose products were resolved from the {@link ProductCatalog}, without reading
+     * them. When the stock is short the products are read after the update; a product whose stock this same update
+     * brought below its quantity is then listed as short too, which does not change the outcome.
+     *
+     * @param quantities the total quantity of each product, keyed by product ID; a negative quantity gives
+     *                   stock back, as when an order is deleted
+     * @throws InsufficientStockException if the stock of any product does not cover its quantity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantities) {
+        ProductCatalog.Snapshot catalog = productCatalog.snapshot();
+        reserve(quantities, id -> publishedStock(catalog, id), () -> {
+            Map<Long, Product> products = new HashMap<>();
+            productRepository.findAllById(quantities.keySet()).forEach(product -> products.put(product.getId(), product));
+            return shortProducts(quantities, products);
+        });
+    }
+
+    /**
+     * @param stock the stock the ledger counter of a product starts from
+     * @param findShortProducts lists the short products once the update came up short
+     */
+    private void reserve(Map<Long, Integer> quantities, ToLongFunction<Long> stock,
+                         Supplier<List<Long>> findShortProducts) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        if (stockLedger.isEnabled()) {
+            List<Long> shortProducts = stockLedger.tryReserve(quantities, stock);
+            if (!shortProducts.isEmpty()) {
+                log.warning("STOCK: Order turned down by the stock ledger, short products: " + shortProducts);
+                throw new InsufficientStockException(shortProducts);
+            }
+            releaseOnRollback(quantities);
+        }
+
+        int updated = productRepository.decrementStock(quantities);
+        if (updated < quantities.size()) {
+            List<Long> shortProducts = findShortProducts.get();
+            // The counters of the short products were too optimistic; seed them again from the database
+            shortProducts.forEach(stockLedger::evict);
+            log.warning("STOCK: Insufficient stock, " + updated + " of " + quantities.size()
+                    + " products updated, short products: " + shortProducts);
+            throw new InsufficientStockException(shortProducts);
+        }
+    }
+
+    /**
+     * Lists the products whose stock, as read in this transaction, does not cover the quantity. Empty when the
+     * stock was taken by a concurrent order after it was read.
+     */
+    private List<Long> shortProducts(Map<Long, Integer> quantities, Map<Long, Product> products) {
+        List<Long> shortProducts = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null || product.getStock() < quantity) {
+                shortProducts.add(productId);
+            }
+        });
+        return shortProducts;
+    }
+
+    /**
+     * The stock published to the catalog, or the stored one for a product not published yet.
+     */
+    private long publishedStock(ProductCatalog.Snapshot catalog, Long productId) {
+        int slot = catalog.slotOf(productId);
+        if (slot >= 0) {
+            return catalog.stock(slot);
+        }
+        return productRepository.findById(productId).map(Product::getStock).orElse(0);
+    }
+
+    private void releaseOnRollback(Map<Long, Integer> quantities) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stockLedger.release(quantities);
+                }
+            }
+        });
+    }
+}
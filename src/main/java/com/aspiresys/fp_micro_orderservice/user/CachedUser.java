@@ -0,0 +1,42 @@
+package com.aspiresys.fp_micro_orderservice.user;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The fields of a {@link User} needed to identify the caller of a request, as kept by {@link UserCache}.
+ * <p>
+ * It is immutable and detached from any persistence context, so it can be shared between requests. Use it to check
+ * that a user exists and to filter by owner; to link a user to a new order, read the {@link User} entity.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CachedUser {
+    private final Long id;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+
+    public static CachedUser of(User user) {
+        return new CachedUser(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName());
+    }
+
+    /**
+     * Returns a new, detached {@link User} with these fields.
+     */
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .email(email)
+                .firstName(firstName)
+                .lastName(lastName)
+                .build();
+    }
+}
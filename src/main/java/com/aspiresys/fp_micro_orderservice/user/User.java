@@ -1,5 +1,6 @@
 package com.aspiresys.fp_micro_orderservice.user;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import com.aspiresys.fp_micro_orderservice.order.Order;
@@ -7,6 +8,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Represents a user entity in the system.
@@ -19,7 +22,7 @@ import lombok.*;
  * Annotations:
  * <ul>
  *   <li>{@code @Entity} - Specifies that the class is an entity.</li>
- *   <li>{@code @Table(name = "users")} - Maps the entity to the "users" table.</li>
+ *   <li>{@code @Table(name = "users")} - Maps the entity to the "users" table, with a unique index on the email.</li>
  *   <li>{@code @Getter}, {@code @Setter} - Lombok annotations to generate getters and setters.</li>
  *   <li>{@code @NoArgsConstructor}, {@code @AllArgsConstructor}, {@code @Builder} - Lombok annotations for constructors and builder pattern.</li>
  * </ul>
@@ -31,6 +34,8 @@ import lombok.*;
  *   <li>{@code firstName} - The user's first name.</li>
  *   <li>{@code lastName} - The user's last name.</li>
  *   <li>{@code email} - The user's email address.</li>
+ *   <li>{@code ordersVersion}, {@code ordersModifiedAt} - Marker bumped every time one of the user's orders changes.
+ *   Only written by {@link UserRepository#markOrdersModified}, never by entity updates.</li>
  * </ul>
  * 
  * <p> * @author bruno.gil </p>
@@ -38,7 +43,8 @@ import lombok.*;
  * 
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "ux_users_email", columnList = "email", unique = true))
+@BatchSize(size = 50) // Owners of a page of orders are loaded together
 @Getter
 @Setter
 @NoArgsConstructor
@@ -55,6 +61,13 @@ public class User {
     private String email;
     private String address; // Added to match UserService entity
 
+    @Column(insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long ordersVersion;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime ordersModifiedAt;
+
     @OneToMany(mappedBy = "user")
     @JsonIgnore // Evitar referencia circular al serializar a JSON
     private List<Order> orders;
@@ -0,0 +1,123 @@
+package com.aspiresys.fp_micro_orderservice.user;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.java.Log;
+
+/**
+ * Near cache of the users, keyed by email (the {@code sub} claim of the JWT).
+ * <p>
+ * Every {@code /orders/me} request resolves its caller by email. Users change rarely and every change arrives
+ * through {@link UserSyncService}, which replaces or evicts the entry after the transaction that stored the change
+ * commits. A lookup that misses loads the user once; concurrent misses for the same email wait for that load.
+ * Unknown emails are not cached, so a user created later is found as soon as it is stored.
+ * </p>
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code user.cache.max-size} - maximum number of users kept (default 100000).</li>
+ *   <li>{@code user.cache.ttl} - time an entry lives after being loaded (default 1 hour). Bounds staleness if a
+ *   change is ever missed.</li>
+ * </ul>
+ * Hit, miss, eviction and size metrics are published as {@code cache.*} meters with {@code cache=users}, and the hit
+ * ratio as the {@code cache.hit.ratio} gauge.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@Component
+@Log
+public class UserCache {
+    public static final String CACHE_NAME = "users";
+
+    private final Cache<String, CachedUser> cache;
+
+    public UserCache(@Value("${user.cache.max-size:100000}") long maxSize,
+                     @Value("${user.cache.ttl:PT1H}") Duration ttl,
+                     ObjectProvider<MeterRegistry> meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> {
+            CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+            Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                    .tag("cache", CACHE_NAME)
+                    .description("Share of lookups answered from the cache")
+                    .register(registry);
+        });
+    }
+
+    /**
+     * Returns the cached user with the given email, loading it on a miss.
+     *
+     * @param email the email of the user
+     * @param loader loads the user from the database; returns null when the user does not exist
+     * @return the user, or null if it does not exist
+     */
+    public CachedUser get(String email, Function<String, CachedUser> loader) {
+        return cache.get(email, loader);
+    }
+
+    /**
+     * Stores a user once the current transaction commits, or right away when there is no transaction.
+     * A load of the same email still running waits for the store, so it cannot leave the old user behind.
+     *
+     * @param user the user as stored
+     * @param previousEmail the email the user had before, evicted when it changed; null for a new user
+     */
+    public void putAfterCommit(User user, String previousEmail) {
+        CachedUser cached = CachedUser.of(user);
+        afterCommit(() -> {
+            if (previousEmail != null && !previousEmail.equals(cached.getEmail())) {
+                cache.invalidate(previousEmail);
+            }
+            if (cached.getEmail() != null) {
+                cache.put(cached.getEmail(), cached);
+            }
+            log.fine("CACHE: Stored user " + cached.getId());
+        });
+    }
+
+    /**
+     * Evicts a user once the current transaction commits, or right away when there is no transaction.
+     *
+     * @param email the email of the user
+     */
+    public void evictAfterCommit(String email) {
+        if (email == null) {
+            return;
+        }
+        afterCommit(() -> {
+            cache.invalidate(email);
+            log.fine("CACHE: Evicted user " + email);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
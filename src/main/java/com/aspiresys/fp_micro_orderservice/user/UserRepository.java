@@ -1,15 +1,32 @@
 package com.aspiresys.fp_micro_orderservice.user;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
     
     // Custom query method to find a user by email
     Optional<User> findByEmail(String email);
-    
+
+    // Bumps the marker of the user's orders without loading the user
+    @Modifying
+    @Transactional
+    @Query("update User u set u.ordersVersion = coalesce(u.ordersVersion, 0) + 1, u.ordersModifiedAt = :modifiedAt where u.id = :id")
+    int markOrdersModified(@Param("id") Long id, @Param("modifiedAt") LocalDateTime modifiedAt);
+
+    // Reads the marker of the user's orders without loading the user
+    @Query("select new com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker(u.id, u.ordersVersion, u.ordersModifiedAt) "
+            + "from User u where u.email = :email")
+    Optional<VersionMarker> findOrdersMarkerByEmail(@Param("email") String email);
 
 }
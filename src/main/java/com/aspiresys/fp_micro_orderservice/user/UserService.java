@@ -1,6 +1,9 @@
 package com.aspiresys.fp_micro_orderservice.user;
 
 import java.util.List;
+import java.util.Optional;
+
+import com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker;
 
 public interface UserService {
     /**
@@ -19,6 +22,15 @@ public interface UserService {
      */
     User getUserByEmail(String email);
 
+    /**
+     * Retrieves a user by their email from the {@link UserCache}, reading the database only on a miss.
+     * Use it to identify the caller of a request; to link the user to a new order use {@link #getUserByEmail}.
+     *
+     * @param email the email of the user to retrieve
+     * @return the cached user, or null if not found
+     */
+    CachedUser getCachedUserByEmail(String email);
+
     /**
      * Retrieves a user by their ID.
      *
@@ -63,5 +75,21 @@ public interface UserService {
      */
     boolean userExistsByEmail(String email);
 
+    /**
+     * Records that the orders of a user changed, bumping the user's orders version.
+     * Joins the current transaction so the marker is only visible once the change commits.
+     *
+     * @param userId the ID of the user whose orders changed
+     */
+    void markOrdersModified(Long userId);
+
+    /**
+     * Retrieves the version marker of a user's orders without loading the user nor the orders.
+     *
+     * @param email the email of the user
+     * @return the marker (user ID, orders version and last modification), or empty if the user does not exist
+     */
+    Optional<VersionMarker> getOrdersMarkerByEmail(String email);
+
     
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 package com.aspiresys.fp_micro_orderservice.user;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker;
 
 /**
  * Service implementation for managing User entities.
@@ -15,12 +20,15 @@ import org.springframework.stereotype.Service;
  * <ul>
  *   <li>{@code saveUser(User user)} - Saves a new user or updates an existing user.</li>
  *   <li>{@code getUserByEmail(String email)} - Retrieves a user by their email address.</li>
+ *   <li>{@code getCachedUserByEmail(String email)} - Retrieves a user by their email address from the {@link UserCache}.</li>
  *   <li>{@code getUserById(Long id)} - Retrieves a user by their unique ID.</li>
  *   <li>{@code getAllUsers()} - Retrieves all users.</li>
  *   <li>{@code deleteUserById(Long id)} - Deletes a user by their ID.</li>
  *   <li>{@code deleteUserByEmail(String email)} - Deletes a user by their email address.</li>
  *   <li>{@code updateUser(User user)} - Updates an existing user.</li>
  *   <li>{@code userExistsByEmail(String email)} - Checks if a user exists by email.</li>
+ *   <li>{@code markOrdersModified(Long userId)} - Bumps the version marker of the user's orders.</li>
+ *   <li>{@code getOrdersMarkerByEmail(String email)} - Reads the version marker of the user's orders.</li>
  * </ul>
  *
  * @author bruno.gil
@@ -31,33 +39,49 @@ import org.springframework.stereotype.Service;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserCache userCache) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
     }
 
     @Override
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userCache.putAfterCommit(savedUser, null);
+        return savedUser;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User getUserByEmail(String email) {
         return userRepository.findByEmail(email).orElse(null);
     }
 
     @Override
+    public CachedUser getCachedUserByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return userCache.get(email, key -> userRepository.findByEmail(key).map(CachedUser::of).orElse(null));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public User getUserById(Long id) {
         return userRepository.findById(id).orElse(null);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return (List<User>) userRepository.findAll();
     }
 
     @Override
     public boolean deleteUserById(Long id) {
+        userRepository.findById(id).ifPresent(user -> userCache.evictAfterCommit(user.getEmail()));
         userRepository.deleteById(id);
         return !userRepository.existsById(id);
     }
@@ -67,18 +91,36 @@ public class UserServiceImpl implements UserService {
         if (user != null) {
             userRepository.delete(user);
         }
+        userCache.evictAfterCommit(email);
         return !userRepository.findByEmail(email).isPresent();
     }
     @Override
     public User updateUser(User user) {
-        if (user.getId() == null || !userRepository.existsById(user.getId())) {
+        Optional<User> existingUser = user.getId() != null ? userRepository.findById(user.getId()) : Optional.empty();
+        if (existingUser.isEmpty()) {
             throw new IllegalArgumentException("User does not exist");
         }
-        return userRepository.save(user);
+        String previousEmail = existingUser.get().getEmail();
+        User savedUser = userRepository.save(user);
+        userCache.putAfterCommit(savedUser, previousEmail);
+        return savedUser;
     }
     @Override
+    @Transactional(readOnly = true)
     public boolean userExistsByEmail(String email) {
         return userRepository.findByEmail(email).isPresent();
     }
+    @Override
+    public void markOrdersModified(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        userRepository.markOrdersModified(userId, LocalDateTime.now());
+    }
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionMarker> getOrdersMarkerByEmail(String email) {
+        return userRepository.findOrdersMarkerByEmail(email);
+    }
     
 }
@@ -9,6 +9,8 @@ import org.springframework.transaction.annotation.Transactional;
 /**
  * Service for synchronizing user data from Kafka messages.
  * Handles user creation, updates, and deletion based on Kafka events from User Service.
+ * Every stored user replaces its entry in the {@link UserCache}, and every deleted user is evicted from it,
+ * once the transaction commits.
  * 
  * @author bruno.gil
  */
@@ -19,6 +21,9 @@ public class UserSyncService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     /**
      * Processes user message from Kafka and synchronizes local user data.
      * 
@@ -59,11 +64,12 @@ public class UserSyncService {
             
             if (existingUser != null) {
                 log.info("User already exists during " + userMessage.getEventType() + ", updating: " + userMessage.getEmail());
+                String previousEmail = existingUser.getEmail();
                 updateUserFromMessage(existingUser, userMessage);
-                userRepository.save(existingUser);
+                userCache.putAfterCommit(userRepository.save(existingUser), previousEmail);
             } else {
                 User newUser = createUserFromMessage(userMessage);
-                userRepository.save(newUser);
+                userCache.putAfterCommit(userRepository.save(newUser), null);
                 log.info("User created successfully: " + userMessage.getEmail());
             }
         } catch (Exception e) {
@@ -82,14 +88,15 @@ public class UserSyncService {
             User existingUser = userRepository.findById(userMessage.getId()).orElse(null);
             
             if (existingUser != null) {
+                String previousEmail = existingUser.getEmail();
                 updateUserFromMessage(existingUser, userMessage);
-                userRepository.save(existingUser);
+                userCache.putAfterCommit(userRepository.save(existingUser), previousEmail);
                 log.info("User updated successfully: " + userMessage.getEmail());
             } else {
                 // User doesn't exist locally, create it
                 log.info("User not found locally during update, creating: " + userMessage.getEmail());
                 User newUser = createUserFromMessage(userMessage);
-                userRepository.save(newUser);
+                userCache.putAfterCommit(userRepository.save(newUser), null);
             }
         } catch (Exception e) {
             log.warning("Failed to update user " + userMessage.getEmail() + ": " + e.getMessage());
@@ -115,6 +122,7 @@ public class UserSyncService {
                 }
                 
                 userRepository.delete(existingUser);
+                userCache.evictAfterCommit(existingUser.getEmail());
                 log.info("User deleted successfully: " + userMessage.getEmail());
             } else {
                 log.info("User not found locally during deletion: " + userMessage.getEmail());
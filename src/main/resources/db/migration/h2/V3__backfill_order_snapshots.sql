@@ -0,0 +1,15 @@
+-- Items created before product data was snapshotted on them take the current product data,
+-- then orders created before totals were stored get them computed from their items.
+
+UPDATE items i
+SET unit_price        = COALESCE((SELECT p.price FROM products p WHERE p.id = i.product_id), 0),
+    product_name      = (SELECT p.name FROM products p WHERE p.id = i.product_id),
+    product_category  = (SELECT p.category FROM products p WHERE p.id = i.product_id),
+    product_image_url = (SELECT p.image_url FROM products p WHERE p.id = i.product_id)
+WHERE i.unit_price IS NULL
+  AND i.product_id IS NOT NULL;
+
+UPDATE orders o
+SET total      = COALESCE((SELECT SUM(i.unit_price * i.quantity) FROM items i WHERE i.order_id = o.id), 0),
+    item_count = COALESCE((SELECT SUM(i.quantity) FROM items i WHERE i.order_id = o.id), 0)
+WHERE o.total IS NULL;
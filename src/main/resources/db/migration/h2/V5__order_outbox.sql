@@ -0,0 +1,13 @@
+-- Transactional outbox of order events (created, updated, deleted).
+-- Rows are inserted in the transaction that changes the order and deleted once the relay has
+-- published them to Kafka, so the table only holds the events still to be sent, read in id order.
+
+CREATE TABLE order_outbox (
+    id         BIGINT       NOT NULL,
+    order_id   BIGINT       NOT NULL,
+    user_id    BIGINT,
+    event_type VARCHAR(32)  NOT NULL,
+    payload    CLOB         NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,9 @@
+-- Lock of the outbox relay. Every batch locks this single row first, so only one instance
+-- publishes at a time and the events of an order reach Kafka in the order they were committed.
+
+CREATE TABLE order_outbox_relay_lock (
+    id BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO order_outbox_relay_lock (id) VALUES (1);
@@ -0,0 +1,9 @@
+-- Every order needs a creation date: the listings page by (created_at, id) and the cursor of the
+-- next page is built from the last order. Orders stored before the date was always set take their
+-- last update, or the epoch when they never changed, so they are listed after every dated order.
+
+UPDATE orders
+SET created_at = COALESCE(updated_at, TIMESTAMP '1970-01-01 00:00:00')
+WHERE created_at IS NULL;
+
+ALTER TABLE orders ALTER COLUMN created_at SET NOT NULL;
@@ -0,0 +1,41 @@
+-- Schema as generated by Hibernate from the entities before migrations were introduced.
+-- Existing databases are baselined at this version and skip it; the columns added since then
+-- come with V2_1, so this file must keep describing that original schema.
+
+CREATE TABLE users (
+    id                 BIGINT       NOT NULL,
+    first_name         VARCHAR(255),
+    last_name          VARCHAR(255),
+    email              VARCHAR(255),
+    address            VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE products (
+    id        BIGINT       NOT NULL,
+    stock     INT          NOT NULL,
+    name      VARCHAR(255),
+    price     DOUBLE,
+    category  VARCHAR(255),
+    image_url VARCHAR(255),
+    brand     VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE orders (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id    BIGINT,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE items (
+    id                BIGINT       NOT NULL AUTO_INCREMENT,
+    order_id          BIGINT,
+    product_id        BIGINT,
+    quantity          INT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_items_order FOREIGN KEY (order_id) REFERENCES orders (id),
+    CONSTRAINT fk_items_product FOREIGN KEY (product_id) REFERENCES products (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,21 @@
+-- Columns added to the entities after the baseline schema. Schemas baselined at V1 do not have them,
+-- and V3 backfills them, so they are created here instead of being left to Hibernate.
+
+-- Orders marker of each user, bumped by UserRepository.markOrdersModified
+ALTER TABLE users
+    ADD COLUMN orders_version     BIGINT DEFAULT 0,
+    ADD COLUMN orders_modified_at DATETIME(6);
+
+-- Stored summary and optimistic lock of each order; existing rows take version 0
+ALTER TABLE orders
+    ADD COLUMN updated_at DATETIME(6),
+    ADD COLUMN version    BIGINT DEFAULT 0,
+    ADD COLUMN total      DOUBLE,
+    ADD COLUMN item_count INT;
+
+-- Product data snapshotted on each item when it is ordered
+ALTER TABLE items
+    ADD COLUMN unit_price        DOUBLE,
+    ADD COLUMN product_name      VARCHAR(255),
+    ADD COLUMN product_category  VARCHAR(255),
+    ADD COLUMN product_image_url VARCHAR(255);
@@ -0,0 +1,15 @@
+-- Indexes for the queries that run on every request.
+
+-- UserRepository.findByEmail (every authenticated request) and the orders marker lookup
+CREATE UNIQUE INDEX ux_users_email ON users (email);
+
+-- Orders of a user, newest first, with keyset pagination on (created_at, id)
+CREATE INDEX idx_orders_user_created ON orders (user_id, created_at, id);
+
+-- All orders, newest first, with keyset pagination on (created_at, id)
+CREATE INDEX idx_orders_created ON orders (created_at, id);
+
+-- ItemRepository.findByOrderId / findByProductId and the items of a page of orders.
+-- They replace the implicit indexes MySQL created for the foreign keys.
+CREATE INDEX idx_items_order ON items (order_id);
+CREATE INDEX idx_items_product ON items (product_id);
@@ -0,0 +1,9 @@
+-- Indexes for the admin order search (GET /orders/search).
+-- "Orders containing product X / category Y" are EXISTS subqueries on items; carrying order_id
+-- in the index answers them without reading the item rows.
+
+CREATE INDEX idx_items_product_order ON items (product_id, order_id);
+CREATE INDEX idx_items_category_order ON items (product_category, order_id);
+
+-- Superseded by idx_items_product_order, which also serves ItemRepository.findByProductId
+DROP INDEX idx_items_product ON items;
@@ -0,0 +1,6 @@
+-- The relay lock becomes a lease: the relay holding it publishes without keeping a transaction open
+-- while Kafka acknowledges the batch, and another instance takes over once the lease expires.
+
+ALTER TABLE order_outbox_relay_lock
+    ADD COLUMN owner       VARCHAR(64),
+    ADD COLUMN lease_until DATETIME(6);
@@ -0,0 +1,93 @@
+package com.aspiresys.fp_micro_orderservice.common.id;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = Instant.parse("2026-03-01T12:00:00Z").toEpochMilli();
+
+    @Test
+    void nextId_encodesTimestampAndNode() {
+        // Arrange
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, () -> NOW);
+
+        // Act
+        long id = generator.nextId();
+
+        // Assert
+        assertEquals(5, SnowflakeIdGenerator.nodeIdOf(id));
+        assertEquals(Instant.ofEpochMilli(NOW), SnowflakeIdGenerator.timestampOf(id));
+        assertTrue(id > 0 && id < (1L << 53), "IDs must stay exact as JSON numbers");
+    }
+
+    @Test
+    void nextId_whenSequenceIsExhaustedOrClockGoesBack_keepsIncreasing() {
+        // Arrange: a clock stuck on one millisecond, then going backwards
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        // Act
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(generator.nextId());
+        }
+        clock.set(NOW - 10_000);
+        ids.add(generator.nextId());
+
+        // Assert
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i) > ids.get(i - 1), "ID " + i + " is not greater than the previous one");
+        }
+    }
+
+    @Test
+    void nextId_concurrentCallers_neverCollide() throws Exception {
+        // Arrange
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        int threads = 8;
+        int idsPerThread = 20_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < idsPerThread; i++) {
+                    ids.add(generator.nextId());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @Test
+    void constructor_rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+    }
+}
@@ -0,0 +1,47 @@
+package com.aspiresys.fp_micro_orderservice.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Checks that the order write executor follows {@code spring.threads.virtual.enabled}.
+ *
+ * @author bruno.gil
+ */
+class AsyncConfigTest {
+
+    @Test
+    void orderWriteExecutor_byDefault_isAPlatformThreadPool() {
+        // Act
+        Executor executor = new AsyncConfig().orderWriteExecutor(new MockEnvironment(), 10, 1000);
+
+        // Assert
+        assertInstanceOf(ThreadPoolTaskExecutor.class, executor);
+        assertEquals(10, ((ThreadPoolTaskExecutor) executor).getMaxPoolSize());
+        ((ThreadPoolTaskExecutor) executor).shutdown();
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void orderWriteExecutor_whenVirtualThreadsAreEnabled_runsTasksOnVirtualThreads() throws Exception {
+        // Arrange
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+        Executor executor = new AsyncConfig().orderWriteExecutor(environment, 10, 1000);
+
+        // Act
+        Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(thread.getName().startsWith("OrderWrite-"));
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+    }
+}
@@ -0,0 +1,46 @@
+package com.aspiresys.fp_micro_orderservice.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Checks that the node ID is never guessed on an instance that may share the database with others.
+ *
+ * @author bruno.gil
+ */
+class IdGeneratorConfigTest {
+
+    @Test
+    void resolveNodeId_whenSet_usesIt() {
+        // Act & Assert
+        assertEquals(7, IdGeneratorConfig.resolveNodeId(" 7 ", false, new MockEnvironment()));
+    }
+
+    @Test
+    void resolveNodeId_whenMissing_failsToStart() {
+        // Act & Assert
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> IdGeneratorConfig.resolveNodeId("", false, new MockEnvironment()));
+        assertTrue(error.getMessage().contains("app.id.node-id"));
+    }
+
+    @Test
+    void resolveNodeId_whenMissingOnASingleInstanceOrInDevelopment_usesNodeZero() {
+        // Arrange
+        MockEnvironment dev = new MockEnvironment();
+        dev.setActiveProfiles("dev");
+
+        // Act & Assert
+        assertEquals(0, IdGeneratorConfig.resolveNodeId("", true, new MockEnvironment()));
+        assertEquals(0, IdGeneratorConfig.resolveNodeId(null, false, dev));
+    }
+
+    @Test
+    void resolveNodeId_whenOutOfRange_fails() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> IdGeneratorConfig.resolveNodeId("32", false,
+                new MockEnvironment()));
+    }
+}
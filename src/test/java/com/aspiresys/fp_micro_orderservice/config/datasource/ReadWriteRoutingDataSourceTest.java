@@ -0,0 +1,135 @@
+package com.aspiresys.fp_micro_orderservice.config.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aspiresys.fp_micro_orderservice.config.AsyncConfig;
+
+/**
+ * Routes against two in-memory H2 databases, each one holding a single row with its own name.
+ *
+ * @author bruno.gil
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+    private ReadYourWritesTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        tracker = new ReadYourWritesTracker(Duration.ofMinutes(1), 100);
+        DataSource routing = DataSourceRoutingConfig.routingDataSource(primary, replica, tracker);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        transactionManager.addListener(tracker);
+        jdbcTemplate = new JdbcTemplate(routing);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransaction_usesReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    void readWriteTransaction_usesPrimary() {
+        assertEquals("primary", readWriteTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    void workWithoutTransaction_usesPrimary() {
+        assertEquals("primary", currentNode());
+    }
+
+    @Test
+    void readOnlyTransaction_afterOwnWrite_staysOnPrimary() {
+        authenticate("alice@test.com");
+        readWriteTransaction.executeWithoutResult(status -> jdbcTemplate.update("update node set hits = hits + 1"));
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+
+        authenticate("bob@test.com");
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    void readOnlyTransaction_afterWriteOnTheOrderWriteExecutor_staysOnPrimary() {
+        // Arrange
+        authenticate("alice@test.com");
+        Executor orderWriteExecutor = new AsyncConfig().orderWriteExecutor(new MockEnvironment(), 1, 10);
+        try {
+            // Act: the write runs on a pool thread, as POST /orders/me does
+            CompletableFuture.runAsync(() -> readWriteTransaction.executeWithoutResult(
+                    status -> jdbcTemplate.update("update node set hits = hits + 1")), orderWriteExecutor).join();
+
+            // Assert
+            assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+        } finally {
+            ((ThreadPoolTaskExecutor) orderWriteExecutor).shutdown();
+        }
+    }
+
+    @Test
+    void readOnlyTransaction_afterWriteRecordedForAnotherThread_staysOnPrimary() throws Exception {
+        // Arrange: the group commit and the journal drainer store orders without a security context
+        Thread writer = new Thread(() -> readWriteTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("update node set hits = hits + 1");
+            tracker.recordWriteAfterCommit("carol@test.com");
+        }));
+
+        // Act
+        writer.start();
+        writer.join();
+
+        // Assert
+        authenticate("carol@test.com");
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static void authenticate(String principal) {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(principal, null, "ROLE_USER");
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("create table if not exists node (name varchar(20), hits int)");
+        template.update("delete from node");
+        template.update("insert into node (name, hits) values (?, 0)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,137 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderBatchResult;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
+import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.product.ProductService;
+import com.aspiresys.fp_micro_orderservice.product.StockReservationService;
+import com.aspiresys.fp_micro_orderservice.user.User;
+import com.aspiresys.fp_micro_orderservice.user.UserService;
+
+class OrderBatchServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    private OrderBatchService orderBatchService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        orderBatchService = new OrderBatchService(orderService, new OrderValidationService(), productService,
+                userService, new OrderMapper(), stockReservationService, 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrders_resolvesProductsOnceAndSavesValidOrdersTogether() {
+        // Arrange
+        User user = User.builder().id(7L).email("test@example.com").build();
+        Product phone = product(1L, 10);
+        phone.setName("Phone");
+        phone.setPrice(300.0);
+        phone.setCategory("Electronics");
+        when(userService.getUserByEmail("test@example.com")).thenReturn(user);
+        when(productService.getProductsByIds(anyCollection())).thenReturn(Map.of(1L, phone));
+        when(orderService.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Order> requested = Arrays.asList(
+                orderOf(itemOf(1L, 2)),
+                orderOf(itemOf(99L, 1)),
+                orderOf(itemOf(1L, 1)));
+
+        // Act
+        List<OrderBatchResult> results = orderBatchService.createOrders("test@example.com", requested);
+
+        // Assert
+        assertEquals(3, results.size());
+        assertEquals(OrderBatchResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(600.0, results.get(0).getOrder().getTotal());
+        assertEquals(OrderBatchResult.Status.REJECTED, results.get(1).getStatus());
+        assertEquals(1, results.get(1).getIndex());
+        assertTrue(results.get(1).getError().contains("99"));
+        assertEquals(OrderBatchResult.Status.CREATED, results.get(2).getStatus());
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(productService, times(1)).getProductsByIds(ids.capture());
+        assertEquals(Set.of(1L, 99L), Set.copyOf(ids.getValue()));
+
+        ArgumentCaptor<List<Order>> saved = ArgumentCaptor.forClass(List.class);
+        verify(orderService, times(1)).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertSame(user, saved.getValue().get(0).getUser());
+        assertEquals("Phone", saved.getValue().get(0).getItems().get(0).getProductName());
+        verify(userService, times(1)).getUserByEmail("test@example.com");
+        verify(stockReservationService, times(1)).reserve(eq(Map.of(1L, 3)), anyMap());
+    }
+
+    @Test
+    void createOrders_whenStockRunsOut_rejectsLaterOrdersAndReservesOnce() {
+        // Arrange
+        User user = User.builder().id(7L).email("test@example.com").build();
+        Product phone = product(1L, 3);
+        phone.setPrice(300.0);
+        when(userService.getUserByEmail("test@example.com")).thenReturn(user);
+        when(productService.getProductsByIds(anyCollection())).thenReturn(Map.of(1L, phone));
+        when(orderService.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Order> requested = Arrays.asList(
+                orderOf(itemOf(1L, 2)),
+                orderOf(itemOf(1L, 1), itemOf(1L, 1)),
+                orderOf(itemOf(1L, 1)));
+
+        // Act
+        List<OrderBatchResult> results = orderBatchService.createOrders("test@example.com", requested);
+
+        // Assert
+        assertEquals(OrderBatchResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(OrderBatchResult.Status.REJECTED, results.get(1).getStatus());
+        assertTrue(results.get(1).getError().contains("Insufficient stock"));
+        assertEquals(OrderBatchResult.Status.CREATED, results.get(2).getStatus());
+        verify(stockReservationService, times(1)).reserve(eq(Map.of(1L, 3)), anyMap());
+    }
+
+    @Test
+    void createOrders_whenBatchIsTooLarge_throwsWithoutReading() {
+        // Arrange
+        List<Order> requested = Arrays.asList(
+                orderOf(itemOf(1L, 1)), orderOf(itemOf(1L, 1)), orderOf(itemOf(1L, 1)), orderOf(itemOf(1L, 1)));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> orderBatchService.createOrders("test@example.com", requested));
+        verifyNoInteractions(userService, productService, orderService);
+    }
+
+    private Order orderOf(Item... items) {
+        return Order.builder().items(new ArrayList<>(Arrays.asList(items))).build();
+    }
+}
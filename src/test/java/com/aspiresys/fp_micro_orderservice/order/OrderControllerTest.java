@@ -1,26 +1,39 @@
 package com.aspiresys.fp_micro_orderservice.order;
 
 import com.aspiresys.fp_micro_orderservice.common.dto.AppResponse;
+import com.aspiresys.fp_micro_orderservice.common.dto.CursorPage;
+import com.aspiresys.fp_micro_orderservice.common.dto.VersionMarker;
 import com.aspiresys.fp_micro_orderservice.order.Item.ItemService;
+import com.aspiresys.fp_micro_orderservice.product.ProductCatalogState;
 import com.aspiresys.fp_micro_orderservice.product.ProductService;
 import com.aspiresys.fp_micro_orderservice.user.UserService;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderAcceptanceStatus;
 import com.aspiresys.fp_micro_orderservice.order.dto.OrderDTO;
 import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderSearchCriteria;
+import com.aspiresys.fp_micro_orderservice.order.journal.OrderAcceptanceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.user.CachedUser;
 import com.aspiresys.fp_micro_orderservice.user.User;
 import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -42,20 +55,35 @@ class OrderControllerTest {
     private ItemService itemService;
 
     @Mock
-    private OrderValidationService orderValidationService;
+    private OrderMapper orderMapper;
 
     @Mock
-    private OrderMapper orderMapper;
+    private OrderQueryService orderQueryService;
+
+    @Mock
+    private OrderPurgeService orderPurgeService;
+
+    @Mock
+    private OrderAcceptanceService orderAcceptanceService;
+
+    @Mock
+    private OrderGroupCommitter orderGroupCommitter;
 
     @Mock
     private com.aspiresys.fp_micro_orderservice.product.ProductSyncService productSyncService;
 
+    @Mock
+    private ProductCatalogState productCatalogState;
+
     @Mock
     private Authentication authentication;
 
     @Mock
     private Jwt jwt;
 
+    @Mock
+    private WebRequest webRequest;
+
     @InjectMocks
     private OrderController orderController;
 
@@ -84,9 +112,12 @@ class OrderControllerTest {
         when(authentication.getPrincipal()).thenReturn(jwt);
         when(jwt.getClaimAsString("sub")).thenReturn("test@example.com");
         
-        // Setup ProductSyncService mock - default behavior is synchronized
-        when(productSyncService.isProductDatabaseSynchronized()).thenReturn(true);
-        when(productSyncService.getProductById(any(Long.class))).thenReturn(Optional.of(mock(Product.class)));
+        // Setup ProductCatalogState mock - default behavior is loaded
+        when(productCatalogState.isReady()).thenReturn(true);
+
+        // Order writes run on the calling thread
+        ReflectionTestUtils.setField(orderController, "orderWriteExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(orderController, "writeTimeout", Duration.ofSeconds(5));
     }
     // Helper para crear una orden de prueba
     private Order createOrderWithUserAndItems(String userEmail, List<Item> items) {
@@ -106,202 +137,376 @@ class OrderControllerTest {
         return item;
     }
     @Test
-    void createOrder_whenUserAndProductsExist_returnsSuccessResponse() throws Exception {
+    void createOrder_whenUserAndProductsExist_returnsSuccessResponse() {
         // Arrange
-        Long productId = 1L;
-        String userEmail = "test@example.com";
-        Order order = createOrderWithUserAndItems(userEmail, Arrays.asList(createItemWithProductId(productId)));
-
-        // Mock user and validation result
-        User user = mock(User.class);
-        when(user.getEmail()).thenReturn(userEmail);
-        
-        OrderValidationService.OrderValidationResult validationResult = mock(OrderValidationService.OrderValidationResult.class);
-        when(validationResult.isValid()).thenReturn(true);
-        when(validationResult.getUser()).thenReturn(user);
-        
-        CompletableFuture<OrderValidationService.OrderValidationResult> validationFuture = CompletableFuture.completedFuture(validationResult);
-        when(orderValidationService.validateOrderAsync(any(Order.class))).thenReturn(validationFuture);
-
-        // Mock services
-        when(orderService.save(any(Order.class))).thenReturn(true);
-        
-        // Mock mapper
+        List<Item> items = Arrays.asList(createItemWithProductId(1L));
+        Order order = createOrderWithUserAndItems("test@example.com", items);
+        Order createdOrder = mock(Order.class);
+        when(orderService.create("test@example.com", items)).thenReturn(createdOrder);
         OrderDTO orderDTO = mock(OrderDTO.class);
-        when(orderMapper.toDTO(any(Order.class))).thenReturn(orderDTO);
+        when(orderMapper.toDTO(createdOrder)).thenReturn(orderDTO);
 
         // Act
-        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication);
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication).join();
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals("Order created successfully", response.getBody().getMessage());
-        verify(userService).saveUser(user);
-        verify(orderService).save(any(Order.class));
+        assertEquals(orderDTO, response.getBody().getData());
+        verify(userService, never()).saveUser(any(User.class));
+        verify(orderService, never()).save(any(Order.class));
     }
 
     @Test
-    void getAllOrders_returnsAllOrders() {
+    void createOrder_whenValidationFails_returnsBadRequest() {
+        // Arrange
+        List<Item> items = Arrays.asList(createItemWithProductId(2L));
+        Order order = createOrderWithUserAndItems("test@example.com", items);
+        when(orderService.create("test@example.com", items)).thenThrow(new OrderValidationService.ValidationException(
+                "Products not found in synchronized database: 2. Please wait for product synchronization to complete or contact administrator."));
+
+        // Act
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication).join();
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().getMessage().startsWith("Products not found in synchronized database: 2."));
+        assertNull(response.getBody().getData());
+    }
+
+    @Test
+    void createOrder_whenUserEmailMismatch_returnsBadRequest() {
+        // Arrange
+        Order order = createOrderWithUserAndItems("other@example.com", Arrays.asList(createItemWithProductId(1L)));
+
+        // Act
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication).join();
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("You are not allowed to create orders for others", response.getBody().getMessage());
+        assertNull(response.getBody().getData());
+        verify(orderService, never()).create(anyString(), anyList());
+    }
+
+    @Test
+    void createOrder_whenCreateFails_returnsInternalServerError() {
+        // Arrange
+        List<Item> items = Arrays.asList(createItemWithProductId(1L));
+        Order order = createOrderWithUserAndItems("test@example.com", items);
+        when(orderService.create("test@example.com", items)).thenThrow(new IllegalStateException("connection lost"));
+
+        // Act
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication).join();
+
+        // Assert
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Error creating order: connection lost", response.getBody().getMessage());
+        assertNull(response.getBody().getData());
+    }
+
+    @Test
+    void createOrder_whenJournalIsEnabled_returnsAcceptedWithOrderId() {
+        // Arrange
+        List<Item> items = Arrays.asList(createItemWithProductId(1L));
+        Order order = createOrderWithUserAndItems("test@example.com", items);
+        when(orderAcceptanceService.isEnabled()).thenReturn(true);
+        when(orderAcceptanceService.accept("test@example.com", items)).thenReturn(OrderAcceptanceStatus.accepted(42L));
+
+        // Act
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication).join();
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/orders/me/status?id=42", response.getHeaders().getLocation().toString());
+        assertEquals(42L, response.getBody().getData().getId());
+        verify(orderService, never()).create(anyString(), anyList());
+    }
+
+    @Test
+    void createOrder_whenWriteTakesTooLong_returnsServiceUnavailable() {
+        // Arrange: the write never gets a thread
+        List<Item> items = Arrays.asList(createItemWithProductId(1L));
+        Order order = createOrderWithUserAndItems("test@example.com", items);
+        ReflectionTestUtils.setField(orderController, "orderWriteExecutor", (Executor) task -> { });
+        ReflectionTestUtils.setField(orderController, "writeTimeout", Duration.ofMillis(50));
+
+        // Act
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication).join();
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNull(response.getBody().getData());
+    }
+
+    @Test
+    void createOrder_whenGroupCommitIsEnabled_completesWithTheGroup() {
+        // Arrange
+        List<Item> items = Arrays.asList(createItemWithProductId(1L));
+        Order order = createOrderWithUserAndItems("test@example.com", items);
+        Order createdOrder = mock(Order.class);
+        OrderDTO orderDTO = mock(OrderDTO.class);
+        CompletableFuture<Order> group = new CompletableFuture<>();
+        when(orderGroupCommitter.isEnabled()).thenReturn(true);
+        when(orderGroupCommitter.submit("test@example.com", items)).thenReturn(group);
+        when(orderMapper.toDTO(createdOrder)).thenReturn(orderDTO);
+
+        // Act
+        CompletableFuture<ResponseEntity<AppResponse<OrderDTO>>> response = orderController.createOrder(order, authentication);
+
+        // Assert: the controller returns before the group commits
+        assertFalse(response.isDone());
+        group.complete(createdOrder);
+        assertEquals(HttpStatus.OK, response.join().getStatusCode());
+        assertEquals(orderDTO, response.join().getBody().getData());
+        verify(orderService, never()).create(anyString(), anyList());
+    }
+
+    @Test
+    void getOrderStatus_whenOrderIsUnknown_returnsNotFound() {
+        // Arrange
+        CachedUser user = new CachedUser(1L, "test@example.com", null, null);
+        when(userService.getCachedUserByEmail("test@example.com")).thenReturn(user);
+        when(orderAcceptanceService.status(7L, user)).thenReturn(Optional.empty());
+
+        // Act
+        ResponseEntity<AppResponse<OrderAcceptanceStatus>> response = orderController.getOrderStatus(7L, authentication);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getBody().getData());
+    }
+
+    @Test
+    void getAllOrders_returnsFirstPageWithNextCursor() {
         // Arrange
-        List<Order> orders = Arrays.asList(
-            mock(Order.class),
-            mock(Order.class)
-        );
         List<OrderDTO> orderDTOs = Arrays.asList(
             mock(OrderDTO.class),
             mock(OrderDTO.class)
         );
-        when(orderService.findAll()).thenReturn(orders);
-        when(orderMapper.toDTOList(orders)).thenReturn(orderDTOs);
+        when(orderQueryService.findPage(null, null)).thenReturn(new CursorPage<>(orderDTOs, "next-cursor"));
 
         // Act
-        ResponseEntity<AppResponse<List<OrderDTO>>> response = orderController.getAllOrders();
+        ResponseEntity<AppResponse<List<OrderDTO>>> response = orderController.getAllOrders(null, null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals("Orders retrieved:", response.getBody().getMessage());
         assertEquals(orderDTOs, response.getBody().getData());
-        verify(orderService).findAll();
-        verify(orderMapper).toDTOList(orders);
+        assertEquals("next-cursor", response.getBody().getNext());
+        verify(orderQueryService).findPage(null, null);
+        verify(orderService, never()).findAll();
+    }
+
+    @Test
+    void getAllOrders_whenCursorIsInvalid_returnsBadRequest() {
+        // Arrange
+        when(orderQueryService.findPage("broken", 10)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        // Act
+        ResponseEntity<AppResponse<List<OrderDTO>>> response = orderController.getAllOrders("broken", 10);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Invalid cursor", response.getBody().getMessage());
+        assertNull(response.getBody().getData());
+    }
+
+    @Test
+    void searchOrders_returnsMatchingPage() {
+        // Arrange
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().productId(42L).minTotal(100.0).build();
+        List<OrderDTO> orderDTOs = Arrays.asList(mock(OrderDTO.class));
+        when(orderQueryService.search(criteria, null, null)).thenReturn(new CursorPage<>(orderDTOs, "next-cursor"));
+
+        // Act
+        ResponseEntity<AppResponse<List<OrderDTO>>> response = orderController.searchOrders(criteria, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(orderDTOs, response.getBody().getData());
+        assertEquals("next-cursor", response.getBody().getNext());
+    }
+
+    @Test
+    void searchOrders_whenRangeIsInverted_returnsBadRequest() {
+        // Arrange
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().minTotal(500.0).maxTotal(100.0).build();
+        when(orderQueryService.search(criteria, null, null))
+                .thenThrow(new IllegalArgumentException("'minTotal' must not be greater than 'maxTotal'"));
+
+        // Act
+        ResponseEntity<AppResponse<List<OrderDTO>>> response = orderController.searchOrders(criteria, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("'minTotal' must not be greater than 'maxTotal'", response.getBody().getMessage());
+        assertNull(response.getBody().getData());
     }
 
     @Test
     void getOrderById_whenOrderExists_returnsOrder() {
         // Arrange
         Long orderId = 1L;
-        Order order = mock(Order.class);
         OrderDTO orderDTO = mock(OrderDTO.class);
-        when(orderService.findById(orderId)).thenReturn(Optional.of(order));
-        when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+        when(orderQueryService.findVersionMarker(orderId))
+                .thenReturn(Optional.of(new VersionMarker(orderId, 3L, LocalDateTime.now())));
+        when(orderQueryService.findById(orderId)).thenReturn(Optional.of(orderDTO));
 
         // Act
-        ResponseEntity<AppResponse<OrderDTO>> response = orderController.getOrderById(orderId);
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.getOrderById(orderId, webRequest);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals("Order found", response.getBody().getMessage());
         assertEquals(orderDTO, response.getBody().getData());
-        verify(orderService).findById(orderId);
-        verify(orderMapper).toDTO(order);
+        verify(webRequest).checkNotModified(eq("W/\"order-1-3\""), anyLong());
+        verify(orderQueryService).findById(orderId);
+        verify(orderService, never()).findById(orderId);
+    }
+
+    @Test
+    void getOrderById_whenVersionMatches_returnsNotModifiedWithoutLoadingOrder() {
+        // Arrange
+        Long orderId = 1L;
+        when(orderQueryService.findVersionMarker(orderId))
+                .thenReturn(Optional.of(new VersionMarker(orderId, 3L, LocalDateTime.now())));
+        when(webRequest.checkNotModified(anyString(), anyLong())).thenReturn(true);
+
+        // Act
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.getOrderById(orderId, webRequest);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(orderQueryService, never()).findById(orderId);
     }
 
     @Test
     void getOrderById_whenOrderDoesNotExist_returnsNotFound() {
         // Arrange
         Long orderId = 1L;
-        when(orderService.findById(orderId)).thenReturn(Optional.empty());
+        when(orderQueryService.findVersionMarker(orderId)).thenReturn(Optional.empty());
 
         // Act
-        ResponseEntity<AppResponse<OrderDTO>> response = orderController.getOrderById(orderId);
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.getOrderById(orderId, webRequest);
 
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals("Order not found", response.getBody().getMessage());
         assertNull(response.getBody().getData());
-        verify(orderService).findById(orderId);
-        verify(orderMapper, never()).toDTO(any(Order.class));
+        verify(orderQueryService, never()).findById(orderId);
     }
 
     @Test
-    void createOrder_whenValidationFails_returnsBadRequest() throws Exception {
+    void getOrdersByUser_whenOrdersUnchanged_returnsNotModifiedWithoutLoadingOrders() {
         // Arrange
-        String userEmail = "test@example.com";
-        Order order = createOrderWithUserAndItems(userEmail, Arrays.asList(createItemWithProductId(1L)));
-        
-        OrderValidationService.OrderValidationResult validationResult = mock(OrderValidationService.OrderValidationResult.class);
-        when(validationResult.isValid()).thenReturn(false);
-        when(validationResult.getErrorMessage()).thenReturn("User does not exist");
-        
-        CompletableFuture<OrderValidationService.OrderValidationResult> validationFuture = CompletableFuture.completedFuture(validationResult);
-        when(orderValidationService.validateOrderAsync(any(Order.class))).thenReturn(validationFuture);
+        when(userService.getOrdersMarkerByEmail("test@example.com"))
+                .thenReturn(Optional.of(new VersionMarker(7L, 12L, LocalDateTime.now())));
+        when(webRequest.checkNotModified(eq("W/\"orders-7-12--\""), anyLong())).thenReturn(true);
 
         // Act
-        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication);
+        ResponseEntity<AppResponse<List<OrderDTO>>> response =
+                orderController.getOrdersByUser(authentication, null, null, webRequest);
 
         // Assert
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-        assertNotNull(response.getBody());
-        assertEquals("User does not exist", response.getBody().getMessage());
-        assertNull(response.getBody().getData());
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(orderQueryService, never()).findPageByUserId(any(), any(), any(), any());
     }
 
     @Test
-    void createOrder_whenUserEmailMismatch_returnsBadRequest() throws Exception {
+    void getOrdersByUser_whenOrdersChanged_returnsPage() {
         // Arrange
-        String orderUserEmail = "other@example.com";
-        String authenticatedUserEmail = "test@example.com";
-        Order order = createOrderWithUserAndItems(orderUserEmail, Arrays.asList(createItemWithProductId(1L)));
-        
-        // Mock different email in JWT
-        when(jwt.getClaimAsString("sub")).thenReturn(authenticatedUserEmail);
-        
-        User user = mock(User.class);
-        when(user.getEmail()).thenReturn(orderUserEmail);
-        
-        OrderValidationService.OrderValidationResult validationResult = mock(OrderValidationService.OrderValidationResult.class);
-        when(validationResult.isValid()).thenReturn(true);
-        when(validationResult.getUser()).thenReturn(user);
-        
-        CompletableFuture<OrderValidationService.OrderValidationResult> validationFuture = CompletableFuture.completedFuture(validationResult);
-        when(orderValidationService.validateOrderAsync(any(Order.class))).thenReturn(validationFuture);
+        List<OrderDTO> orderDTOs = Arrays.asList(mock(OrderDTO.class));
+        when(userService.getOrdersMarkerByEmail("test@example.com"))
+                .thenReturn(Optional.of(new VersionMarker(7L, 13L, LocalDateTime.now())));
+        when(orderQueryService.findPageByUserId(7L, 13L, null, 10)).thenReturn(new CursorPage<>(orderDTOs, null));
 
         // Act
-        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication);
+        ResponseEntity<AppResponse<List<OrderDTO>>> response =
+                orderController.getOrdersByUser(authentication, null, 10, webRequest);
 
         // Assert
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals("You are not allowed to create orders for others", response.getBody().getMessage());
-        assertNull(response.getBody().getData());
+        assertEquals(orderDTOs, response.getBody().getData());
+        verify(webRequest).checkNotModified(eq("W/\"orders-7-13-10-\""), anyLong());
     }
 
     @Test
-    void createOrder_whenOrderSaveFails_returnsInternalServerError() throws Exception {
+    void updateOrder_whenOrderBelongsToUser_returnsUpdatedOrder() {
         // Arrange
-        String userEmail = "test@example.com";
-        Order order = createOrderWithUserAndItems(userEmail, Arrays.asList(createItemWithProductId(1L)));
+        CachedUser user = new CachedUser(1L, "test@example.com", null, null);
+        List<Item> items = Arrays.asList(createItemWithProductId(1L));
+        Order request = Order.builder().id(10L).version(3L).items(items).build();
+        Order updatedOrder = Order.builder().id(10L).version(4L).build();
+        OrderDTO orderDTO = OrderDTO.builder().id(10L).version(4L).build();
+        when(userService.getCachedUserByEmail("test@example.com")).thenReturn(user);
+        when(orderService.updateItems(1L, 10L, 3L, items)).thenReturn(Optional.of(updatedOrder));
+        when(orderMapper.toDTO(updatedOrder)).thenReturn(orderDTO);
 
-        User user = mock(User.class);
-        when(user.getEmail()).thenReturn(userEmail);
-        
-        OrderValidationService.OrderValidationResult validationResult = mock(OrderValidationService.OrderValidationResult.class);
-        when(validationResult.isValid()).thenReturn(true);
-        when(validationResult.getUser()).thenReturn(user);
-        
-        CompletableFuture<OrderValidationService.OrderValidationResult> validationFuture = CompletableFuture.completedFuture(validationResult);
-        when(orderValidationService.validateOrderAsync(any(Order.class))).thenReturn(validationFuture);
+        // Act
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.updateOrder(request, authentication).join();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(orderDTO, response.getBody().getData());
+    }
 
-        // Mock save fails
-        when(orderService.save(any(Order.class))).thenReturn(false);
+    @Test
+    void updateOrder_whenVersionIsStale_returnsConflict() {
+        // Arrange
+        CachedUser user = new CachedUser(1L, "test@example.com", null, null);
+        List<Item> items = Arrays.asList(createItemWithProductId(1L));
+        Order request = Order.builder().id(10L).version(2L).items(items).build();
+        when(userService.getCachedUserByEmail("test@example.com")).thenReturn(user);
+        when(orderService.updateItems(1L, 10L, 2L, items))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Order.class, 10L));
 
         // Act
-        ResponseEntity<AppResponse<OrderDTO>> response = orderController.createOrder(order, authentication);
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.updateOrder(request, authentication).join();
 
         // Assert
-        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
-        assertNotNull(response.getBody());
-        assertEquals("Failed to create order", response.getBody().getMessage());
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
         assertNull(response.getBody().getData());
     }
 
+    @Test
+    void updateOrder_whenOrderDoesNotBelongToUser_returnsNotFound() {
+        // Arrange
+        CachedUser user = new CachedUser(1L, "test@example.com", null, null);
+        Order request = Order.builder().id(10L).items(List.of()).build();
+        when(userService.getCachedUserByEmail("test@example.com")).thenReturn(user);
+        when(orderService.updateItems(1L, 10L, null, List.of())).thenReturn(Optional.empty());
+
+        // Act
+        ResponseEntity<AppResponse<OrderDTO>> response = orderController.updateOrder(request, authentication).join();
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Order not found", response.getBody().getMessage());
+    }
+
     @Test
     void deleteOrder_whenOrderExistsAndBelongsToUser_returnsSuccessResponse() {
         // Arrange
         Long orderId = 1L;
         String userEmail = "test@example.com";
         
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(1L);
-        when(user.getEmail()).thenReturn(userEmail);
-        when(userService.getUserByEmail(userEmail)).thenReturn(user);
-        
-        Order order = mock(Order.class);
-        when(order.getUser()).thenReturn(user);
-        when(orderService.findById(orderId)).thenReturn(Optional.of(order));
+        CachedUser user = new CachedUser(1L, userEmail, null, null);
+        when(userService.getCachedUserByEmail(userEmail)).thenReturn(user);
+        when(orderService.deleteByIdAndUserId(orderId, 1L)).thenReturn(1);
 
         // Act
         ResponseEntity<AppResponse<Boolean>> response = orderController.deleteOrder(orderId, authentication);
@@ -311,7 +516,8 @@ class OrderControllerTest {
         assertNotNull(response.getBody());
         assertEquals("Order deleted successfully", response.getBody().getMessage());
         assertTrue(response.getBody().getData());
-        verify(orderService).deleteById(orderId);
+        verify(orderService).deleteByIdAndUserId(orderId, 1L);
+        verify(orderService, never()).findById(orderId);
     }
 
     @Test
@@ -320,12 +526,10 @@ class OrderControllerTest {
         Long orderId = 2L;
         String userEmail = "test@example.com";
         
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(1L);
-        when(user.getEmail()).thenReturn(userEmail);
-        when(userService.getUserByEmail(userEmail)).thenReturn(user);
+        CachedUser user = new CachedUser(1L, userEmail, null, null);
+        when(userService.getCachedUserByEmail(userEmail)).thenReturn(user);
         
-        when(orderService.findById(orderId)).thenReturn(Optional.empty());
+        when(orderService.deleteByIdAndUserId(orderId, 1L)).thenReturn(0);
 
         // Act
         ResponseEntity<AppResponse<Boolean>> response = orderController.deleteOrder(orderId, authentication);
@@ -335,7 +539,6 @@ class OrderControllerTest {
         assertNotNull(response.getBody());
         assertEquals("Order not found", response.getBody().getMessage());
         assertFalse(response.getBody().getData());
-        verify(orderService, never()).deleteById(orderId);
     }
 
     @Test
@@ -344,7 +547,7 @@ class OrderControllerTest {
         Long orderId = 1L;
         String userEmail = "test@example.com";
         
-        when(userService.getUserByEmail(userEmail)).thenReturn(null);
+        when(userService.getCachedUserByEmail(userEmail)).thenReturn(null);
 
         // Act
         ResponseEntity<AppResponse<Boolean>> response = orderController.deleteOrder(orderId, authentication);
@@ -354,7 +557,7 @@ class OrderControllerTest {
         assertNotNull(response.getBody());
         assertEquals("User not found", response.getBody().getMessage());
         assertFalse(response.getBody().getData());
-        verify(orderService, never()).deleteById(orderId);
+        verify(orderService, never()).deleteByIdAndUserId(anyLong(), anyLong());
     }
 
     @Test
@@ -363,17 +566,10 @@ class OrderControllerTest {
         Long orderId = 1L;
         String userEmail = "test@example.com";
         
-        User requestingUser = mock(User.class);
-        when(requestingUser.getId()).thenReturn(1L);
-        when(requestingUser.getEmail()).thenReturn(userEmail);
-        when(userService.getUserByEmail(userEmail)).thenReturn(requestingUser);
-        
-        User orderOwner = mock(User.class);
-        when(orderOwner.getId()).thenReturn(2L); // Different user ID
-        
-        Order order = mock(Order.class);
-        when(order.getUser()).thenReturn(orderOwner);
-        when(orderService.findById(orderId)).thenReturn(Optional.of(order));
+        CachedUser requestingUser = new CachedUser(1L, userEmail, null, null);
+        when(userService.getCachedUserByEmail(userEmail)).thenReturn(requestingUser);
+        // The order belongs to another user, so the ownership predicate matches no row
+        when(orderService.deleteByIdAndUserId(orderId, 1L)).thenReturn(0);
 
         // Act
         ResponseEntity<AppResponse<Boolean>> response = orderController.deleteOrder(orderId, authentication);
@@ -385,4 +581,19 @@ class OrderControllerTest {
         assertFalse(response.getBody().getData());
         verify(orderService, never()).deleteById(orderId);
     }
+
+    @Test
+    void purgeOrders_returnsDeletedCount() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 1, 1, 0, 0);
+        when(orderPurgeService.purgeCreatedBetween(from, to)).thenReturn(2500L);
+
+        // Act
+        ResponseEntity<AppResponse<Long>> response = orderController.purgeOrders(from, to);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2500L, response.getBody().getData());
+    }
 }
\ No newline at end of file
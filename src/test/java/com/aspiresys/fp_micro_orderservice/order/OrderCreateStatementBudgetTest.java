@@ -0,0 +1,132 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.outbox.OrderOutboxRepository;
+import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.product.ProductRepository;
+import com.aspiresys.fp_micro_orderservice.user.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the SQL statements of {@link OrderService#create}, so a change that adds a query per item or a
+ * redundant read to the create path makes the build fail.
+ * <p>
+ * Budget: the user by email, the products of the order, the stock update, the order insert, the orders marker
+ * update, the outbox insert and one statement per JDBC batch of item inserts.
+ * </p>
+ * <p>
+ * The test commits the order: the outbox event is only inserted right before the transaction commits, so a
+ * rolled back test would leave it out of the count. The rows are deleted again after each run.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=" + OrderCreateStatementBudgetTest.BATCH_SIZE
+})
+@ActiveProfiles("test")
+@Import(OrderWriteTestConfig.class)
+class OrderCreateStatementBudgetTest {
+    static final int BATCH_SIZE = 50;
+    private static final int PRODUCTS = 120;
+    private static final String EMAIL = "budget@test.com";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.persist(user(1L, EMAIL));
+        for (long id = 1; id <= PRODUCTS; id++) {
+            entityManager.persist(product(id, 100));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (!TestTransaction.isActive()) {
+            TestTransaction.start();
+        }
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, PRODUCTS})
+    void create_staysWithinStatementBudget(int itemCount) {
+        // Arrange
+        List<Item> items = new ArrayList<>();
+        for (long id = 1; id <= itemCount; id++) {
+            items.add(itemOf(id, 2));
+        }
+
+        // Act
+        Order order = orderService.create(EMAIL, items);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        // Assert
+        long budget = 6 + (itemCount + BATCH_SIZE - 1) / BATCH_SIZE;
+        long statements = statistics.getPrepareStatementCount();
+        assertNotNull(order.getId());
+        assertEquals(itemCount * 20.0, order.getTotal());
+        assertTrue(statements <= budget,
+                itemCount + " items took " + statements + " statements, budget is " + budget);
+        // The order, its items and its outbox event
+        assertEquals(itemCount + 2, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount(), "The user must not be written back");
+        TestTransaction.start();
+        assertEquals(1, outboxRepository.count());
+        assertEquals(98, entityManager.find(Product.class, 1L).getStock());
+        assertEquals(itemCount > 1 ? 98 : 100, entityManager.find(Product.class, 2L).getStock());
+    }
+}
@@ -0,0 +1,136 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.aspiresys.fp_micro_orderservice.product.Product;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that orders are deleted with bulk statements that report affected rows instead of loading the orders.
+ *
+ * @author bruno.gil
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "order.purge.chunk-size=2"
+})
+@ActiveProfiles("test")
+@Import({OrderWriteTestConfig.class, OrderPurgeService.class})
+class OrderDeleteTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderPurgeService orderPurgeService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.persist(user(1L, "owner@test.com"));
+        entityManager.persist(user(2L, "other@test.com"));
+        entityManager.persist(product(1L, 100));
+        entityManager.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void deleteByIdAndUserId_deletesOwnOrderWithoutLoadingIt() {
+        // Arrange
+        Order order = orderService.create("owner@test.com", List.of(itemOf(1L, 2), itemOf(1L, 3)));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // Act
+        int deleted = orderService.deleteByIdAndUserId(order.getId(), 1L);
+
+        // Assert: quantities, items, order, stock and orders marker, one statement each
+        assertEquals(1, deleted);
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertFalse(orderRepository.existsById(order.getId()));
+    }
+
+    @Test
+    void deleteByIdAndUserId_givesTheStockBack() {
+        // Arrange
+        Order order = orderService.create("owner@test.com", List.of(itemOf(1L, 2), itemOf(1L, 3)));
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(95, entityManager.find(Product.class, 1L).getStock());
+        entityManager.clear();
+
+        // Act
+        orderService.deleteByIdAndUserId(order.getId(), 1L);
+
+        // Assert
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(100, entityManager.find(Product.class, 1L).getStock());
+    }
+
+    @Test
+    void deleteByIdAndUserId_whenOrderBelongsToAnotherUser_deletesNothing() {
+        // Arrange
+        Order order = orderService.create("owner@test.com", List.of(itemOf(1L, 2)));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        int deleted = orderService.deleteByIdAndUserId(order.getId(), 2L);
+
+        // Assert
+        assertEquals(0, deleted);
+        assertEquals(1, orderRepository.findByIdWithItems(order.getId()).orElseThrow().getItems().size());
+        assertEquals(98, entityManager.find(Product.class, 1L).getStock());
+    }
+
+    @Test
+    void purgeCreatedBetween_deletesTheRangeInChunks() {
+        // Arrange: five orders inside the range, one after it
+        LocalDateTime from = LocalDateTime.now().minusMinutes(1);
+        for (int i = 0; i < 5; i++) {
+            orderService.create("owner@test.com", List.of(itemOf(1L, 1)));
+        }
+        entityManager.flush();
+        LocalDateTime to = LocalDateTime.now().plusSeconds(1);
+        Order later = orderService.create("other@test.com", List.of(itemOf(1L, 1)));
+        later.setCreatedAt(to.plusDays(1));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        long deleted = orderPurgeService.purgeCreatedBetween(from, to);
+
+        // Assert
+        assertEquals(5, deleted);
+        assertEquals(1, orderRepository.count());
+        assertTrue(orderRepository.existsById(later.getId()));
+    }
+}
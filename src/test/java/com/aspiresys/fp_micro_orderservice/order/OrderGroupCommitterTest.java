@@ -0,0 +1,148 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeIdGenerator;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService.ValidationException;
+import com.aspiresys.fp_micro_orderservice.order.journal.AcceptedOrder;
+import com.aspiresys.fp_micro_orderservice.order.journal.AcceptedOrderWriter;
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+
+/**
+ * Checks that concurrent orders are stored together and that a failing order only fails its own caller.
+ *
+ * @author bruno.gil
+ */
+class OrderGroupCommitterTest {
+
+    @Mock
+    private AcceptedOrderWriter writer;
+
+    @Mock
+    private OrderService orderService;
+
+    private final ExecutorService orderWriteExecutor = Executors.newFixedThreadPool(2);
+    private OrderGroupCommitter groupCommitter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        groupCommitter = new OrderGroupCommitter(writer, orderService, new SnowflakeIdGenerator(1),
+                orderWriteExecutor, true, 10, Duration.ofMillis(200), 100);
+        groupCommitter.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        groupCommitter.stop();
+        orderWriteExecutor.shutdownNow();
+    }
+
+    @Test
+    void submit_concurrentOrders_areStoredInOneGroup() throws Exception {
+        // Arrange
+        when(writer.write(anyList())).thenAnswer(invocation -> storedAllBut(invocation.getArgument(0), Map.of()));
+
+        // Act
+        CompletableFuture<Order> first = groupCommitter.submit("a@test.com", List.of(itemOf(1L, 1)));
+        CompletableFuture<Order> second = groupCommitter.submit("b@test.com", List.of(itemOf(2L, 1)));
+        CompletableFuture<Order> third = groupCommitter.submit("a@test.com", List.of(itemOf(1L, 1)));
+
+        // Assert
+        assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+        assertNotNull(second.get(5, TimeUnit.SECONDS).getId());
+        assertNotNull(third.get(5, TimeUnit.SECONDS).getId());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AcceptedOrder>> group = ArgumentCaptor.forClass(List.class);
+        verify(writer, times(1)).write(group.capture());
+        assertEquals(3, group.getValue().size());
+        verify(orderService, never()).create(anyString(), anyList());
+    }
+
+    @Test
+    void submit_whenOneOrderIsRejected_createsItAloneAndCompletesTheOthers() throws Exception {
+        // Arrange: the order of c@test.com is short of stock
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<AcceptedOrder> orders = invocation.getArgument(0);
+            Map<Long, String> rejected = orders.stream()
+                    .filter(order -> order.getEmail().equals("c@test.com"))
+                    .collect(Collectors.toMap(AcceptedOrder::getOrderId, order -> "Insufficient stock for products: [3]"));
+            return storedAllBut(orders, rejected);
+        });
+        when(orderService.create(eq("c@test.com"), anyList())).thenThrow(new InsufficientStockException(List.of(3L)));
+
+        // Act
+        CompletableFuture<Order> first = groupCommitter.submit("a@test.com", List.of(itemOf(1L, 1)));
+        CompletableFuture<Order> rejected = groupCommitter.submit("c@test.com", List.of(itemOf(3L, 1)));
+        CompletableFuture<Order> second = groupCommitter.submit("b@test.com", List.of(itemOf(2L, 1)));
+
+        // Assert
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientStockException.class, error.getCause());
+        verify(orderService, times(1)).create(anyString(), anyList());
+    }
+
+    @Test
+    void submit_whenTheGroupFails_createsEveryOrderAlone() throws Exception {
+        // Arrange: concurrent orders took the stock the group counted on
+        when(writer.write(anyList())).thenThrow(new InsufficientStockException(List.of(1L)));
+        Order created = Order.builder().id(7L).build();
+        when(orderService.create(anyString(), anyList())).thenReturn(created);
+
+        // Act
+        CompletableFuture<Order> first = groupCommitter.submit("a@test.com", List.of(itemOf(1L, 1)));
+        CompletableFuture<Order> second = groupCommitter.submit("b@test.com", List.of(itemOf(1L, 1)));
+
+        // Assert
+        assertSame(created, first.get(5, TimeUnit.SECONDS));
+        assertSame(created, second.get(5, TimeUnit.SECONDS));
+        verify(orderService, times(2)).create(anyString(), anyList());
+    }
+
+    @Test
+    void submit_whenAnOrderHasNoItems_failsItWithoutATransaction() throws Exception {
+        // Arrange
+        when(writer.write(anyList())).thenAnswer(invocation -> storedAllBut(invocation.getArgument(0), Map.of()));
+
+        // Act
+        CompletableFuture<Order> empty = groupCommitter.submit("a@test.com", List.of());
+        CompletableFuture<Order> other = groupCommitter.submit("b@test.com", List.of(itemOf(2L, 1)));
+
+        // Assert
+        ExecutionException error = assertThrows(ExecutionException.class, () -> empty.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ValidationException.class, error.getCause());
+        assertEquals("Order must contain at least one item", error.getCause().getMessage());
+        assertNotNull(other.get(5, TimeUnit.SECONDS));
+        verify(orderService, never()).create(anyString(), anyList());
+    }
+
+    private static AcceptedOrderWriter.Result storedAllBut(List<AcceptedOrder> orders, Map<Long, String> rejected) {
+        List<Order> stored = orders.stream()
+                .filter(order -> !rejected.containsKey(order.getOrderId()))
+                .map(order -> Order.builder().id(order.getOrderId()).build())
+                .toList();
+        return new AcceptedOrderWriter.Result(stored, rejected);
+    }
+}
@@ -0,0 +1,112 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderItemRow;
+import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.user.User;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the SQL statements of the page reads of {@link OrderRepository}, so a change that loads the items, users or
+ * products of a page one order at a time makes the build fail.
+ * <p>
+ * Budget: one statement per page, whatever the number of orders and items.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class OrderReadStatementBudgetTest {
+    private static final int ORDERS = 6;
+    private static final int ITEMS_PER_ORDER = 4;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> orderIds = new ArrayList<>();
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = List.of(user(1L, "first@test.com"), user(2L, "second@test.com"));
+        users.forEach(entityManager::persist);
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= ITEMS_PER_ORDER; id++) {
+            products.add(entityManager.persist(product(id, 100)));
+        }
+        LocalDateTime createdAt = LocalDateTime.now();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .user(users.get(i % users.size()))
+                    .createdAt(createdAt.minusMinutes(i))
+                    .items(new ArrayList<>())
+                    .build();
+            for (Product product : products) {
+                order.getItems().add(Item.builder()
+                        .order(order)
+                        .product(product)
+                        .quantity(1)
+                        .unitPrice(product.getPrice())
+                        .productName(product.getName())
+                        .build());
+            }
+            orderIds.add(entityManager.persist(order).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllWithItems_loadsThePageWithOneStatement() {
+        // Act
+        List<Order> orders = orderRepository.findAllWithItems(orderIds);
+        long items = orders.stream()
+                .flatMap(order -> order.getItems().stream())
+                .filter(item -> item.getProduct().getName() != null && item.getOrder().getUser() != null)
+                .count();
+
+        // Assert
+        assertEquals(ORDERS, orders.size());
+        assertEquals(ORDERS * ITEMS_PER_ORDER, items);
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "Reading " + ORDERS + " orders took " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void findItemRowsByOrderIds_readsThePageWithOneStatementAndNoEntities() {
+        // Act
+        List<OrderItemRow> rows = orderRepository.findItemRowsByOrderIds(orderIds);
+
+        // Assert
+        assertEquals(ORDERS * ITEMS_PER_ORDER, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "Reading " + ORDERS + " orders took " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
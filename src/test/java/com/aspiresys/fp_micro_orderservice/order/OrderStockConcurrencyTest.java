@@ -0,0 +1,130 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+import com.aspiresys.fp_micro_orderservice.product.ProductRepository;
+import com.aspiresys.fp_micro_orderservice.product.StockLedger;
+import com.aspiresys.fp_micro_orderservice.user.UserRepository;
+
+/**
+ * Places many concurrent orders for the same product, each in its own transaction, and checks that exactly the
+ * available stock is sold: no order is lost and the stock never goes below zero.
+ *
+ * @author bruno.gil
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:stockdb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "order.stock.ledger.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(OrderWriteTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderStockConcurrencyTest {
+    private static final long PRODUCT_ID = 1L;
+    private static final int STOCK = 50;
+    private static final int ATTEMPTS = 120;
+    private static final int THREADS = 8;
+    private static final String EMAIL = "stock@test.com";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(user(1L, EMAIL));
+        productRepository.save(product(PRODUCT_ID, STOCK));
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        stockLedger.evict(PRODUCT_ID);
+        stockLedger.evict(2L);
+    }
+
+    @Test
+    void create_concurrentOrdersForOneProduct_sellExactlyTheStock() throws Exception {
+        // Arrange
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.create(EMAIL, List.of(itemOf(PRODUCT_ID, 1)));
+                    created.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(STOCK, created.get());
+        assertEquals(ATTEMPTS - STOCK, rejected.get());
+        assertEquals(0, productRepository.findById(PRODUCT_ID).orElseThrow().getStock());
+        assertEquals(STOCK, orderRepository.count());
+        assertEquals(0, stockLedger.available(PRODUCT_ID));
+    }
+
+    @Test
+    void create_whenOneProductIsShort_leavesTheOtherStockUntouched() {
+        // Arrange
+        productRepository.save(product(2L, 10));
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class,
+                () -> orderService.create(EMAIL, List.of(itemOf(2L, 3), itemOf(PRODUCT_ID, STOCK + 1))));
+        assertEquals(10, productRepository.findById(2L).orElseThrow().getStock());
+        assertEquals(STOCK, productRepository.findById(PRODUCT_ID).orElseThrow().getStock());
+        assertEquals(0, orderRepository.count());
+    }
+}
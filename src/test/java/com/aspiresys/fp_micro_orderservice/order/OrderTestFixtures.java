@@ -0,0 +1,41 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import com.aspiresys.fp_micro_orderservice.order.Item.Item;
+import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.user.User;
+
+/**
+ * Users, products and items shared by the order tests.
+ *
+ * @author bruno.gil
+ */
+public final class OrderTestFixtures {
+
+    private OrderTestFixtures() {
+    }
+
+    public static User user(Long id, String email) {
+        return User.builder().id(id).email(email).firstName("User " + id).build();
+    }
+
+    /**
+     * A product priced at 10.0.
+     */
+    public static Product product(Long id, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(10.0);
+        product.setStock(stock);
+        return product;
+    }
+
+    /**
+     * An item as clients send it: a reference to the product by ID and a quantity.
+     */
+    public static Item itemOf(Long productId, int quantity) {
+        Product reference = new Product();
+        reference.setId(productId);
+        return Item.builder().product(reference).quantity(quantity).build();
+    }
+}
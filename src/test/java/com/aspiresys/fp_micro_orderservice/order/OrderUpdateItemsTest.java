@@ -0,0 +1,122 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.aspiresys.fp_micro_orderservice.product.Product;
+import com.aspiresys.fp_micro_orderservice.product.StockLedger;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that {@link OrderService#updateItems} only writes the items that changed and guards the order version.
+ *
+ * @author bruno.gil
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(OrderWriteTestConfig.class)
+class OrderUpdateItemsTest {
+    private static final String EMAIL = "update@test.com";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.persist(user(1L, EMAIL));
+        for (long id = 1; id <= 4; id++) {
+            entityManager.persist(product(id, 100));
+        }
+        order = orderService.create(EMAIL, List.of(itemOf(1L, 2), itemOf(2L, 2), itemOf(3L, 2)));
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void updateItems_writesOnlyTheItemsThatChanged() {
+        // Act: product 1 unchanged, product 2 from 2 to 5, product 3 removed, product 4 added
+        Order updated = orderService.updateItems(1L, order.getId(), order.getVersion(),
+                List.of(itemOf(1L, 2), itemOf(2L, 5), itemOf(4L, 1))).orElseThrow();
+        entityManager.flush();
+
+        // Assert
+        assertEquals(3, updated.getItems().size());
+        assertEquals(80.0, updated.getTotal());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityDeleteCount());
+        assertEquals(2, statistics.getEntityUpdateCount(), "Only the changed item and the order are updated");
+        assertEquals(order.getVersion() + 1, updated.getVersion());
+
+        entityManager.clear();
+        assertEquals(98, entityManager.find(Product.class, 1L).getStock());
+        assertEquals(95, entityManager.find(Product.class, 2L).getStock());
+        assertEquals(100, entityManager.find(Product.class, 3L).getStock());
+        assertEquals(99, entityManager.find(Product.class, 4L).getStock());
+    }
+
+    @Test
+    void updateItems_whenVersionIsStale_throwsWithoutWriting() {
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> orderService.updateItems(1L, order.getId(), order.getVersion() - 1, List.of(itemOf(1L, 9))));
+        assertEquals(0, statistics.getEntityUpdateCount());
+    }
+
+    @Test
+    void updateItems_whenOrderBelongsToAnotherUser_returnsEmpty() {
+        assertTrue(orderService.updateItems(2L, order.getId(), null, List.of(itemOf(1L, 1))).isEmpty());
+    }
+
+    @Nested
+    @TestPropertySource(properties = "order.stock.ledger.enabled=true")
+    class WithStockLedger {
+
+        @Autowired
+        private StockLedger stockLedger;
+
+        @Test
+        void updateItems_whenAnItemIsRemoved_givesItsStockBackToTheLedger() {
+            // Arrange: the ledger no longer tracks the product, as after a restart
+            stockLedger.evict(3L);
+
+            // Act
+            Order updated = orderService.updateItems(1L, order.getId(), order.getVersion(),
+                    List.of(itemOf(1L, 2), itemOf(2L, 2))).orElseThrow();
+            entityManager.flush();
+
+            // Assert
+            assertEquals(2, updated.getItems().size());
+            assertEquals(100, stockLedger.available(3L));
+            entityManager.clear();
+            assertEquals(100, entityManager.find(Product.class, 3L).getStock());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aspiresys.fp_micro_orderservice.common.dto.AppResponse;
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeIdGenerator;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderDTO;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
+import com.aspiresys.fp_micro_orderservice.order.journal.AcceptedOrder;
+import com.aspiresys.fp_micro_orderservice.order.journal.AcceptedOrderWriter;
+import com.aspiresys.fp_micro_orderservice.order.journal.OrderAcceptanceService;
+import com.aspiresys.fp_micro_orderservice.product.ProductCatalogState;
+
+/**
+ * Sends the same load of order creations through the same number of request threads twice: once with each thread
+ * waiting for its response, as a blocking endpoint does, and once releasing the thread when the response is
+ * returned. Every commit takes {@link #COMMIT_TIME}, as a database would.
+ * <p>
+ * The group sizes are checked on every build. Comparing the throughput depends on the machine, so it only runs
+ * with {@code -Dbenchmark=true}.
+ * </p>
+ *
+ * @author bruno.gil
+ */
+class OrderWriteLoadTest {
+    private static final int REQUEST_THREADS = 4;
+    private static final int ORDERS = 200;
+    private static final Duration COMMIT_TIME = Duration.ofMillis(20);
+
+    @Mock
+    private AcceptedOrderWriter writer;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private ProductCatalogState productCatalogState;
+
+    @Mock
+    private OrderAcceptanceService orderAcceptanceService;
+
+    @Mock
+    private Authentication authentication;
+
+    @Mock
+    private Jwt jwt;
+
+    @InjectMocks
+    private OrderController orderController;
+
+    private final List<Integer> groupSizes = Collections.synchronizedList(new ArrayList<>());
+    private OrderGroupCommitter groupCommitter;
+    private ExecutorService requestThreads;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getClaimAsString("sub")).thenReturn("load@test.com");
+        when(productCatalogState.isReady()).thenReturn(true);
+        when(orderMapper.toDTO(any(Order.class))).thenReturn(OrderDTO.builder().build());
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<AcceptedOrder> orders = invocation.getArgument(0);
+            groupSizes.add(orders.size());
+            Thread.sleep(COMMIT_TIME.toMillis());
+            return new AcceptedOrderWriter.Result(orders.stream()
+                    .map(order -> Order.builder().id(order.getOrderId()).build())
+                    .toList(), Map.of());
+        });
+
+        groupCommitter = new OrderGroupCommitter(writer, orderService, new SnowflakeIdGenerator(1), Runnable::run,
+                true, 64, Duration.ofMillis(5), 10_000);
+        groupCommitter.start();
+        ReflectionTestUtils.setField(orderController, "orderGroupCommitter", groupCommitter);
+        ReflectionTestUtils.setField(orderController, "writeTimeout", Duration.ofSeconds(30));
+        requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        requestThreads.shutdownNow();
+        groupCommitter.stop();
+    }
+
+    @Test
+    void createOrder_withAsynchronousResponses_fillsLargerGroupsWithTheSameRequestThreads() throws Exception {
+        // Act
+        run(true);
+        List<Integer> blockingGroups = List.copyOf(groupSizes);
+        groupSizes.clear();
+        run(false);
+        List<Integer> asyncGroups = List.copyOf(groupSizes);
+
+        // Assert: waiting threads cap each group at one order per thread; released threads fill the groups
+        assertTrue(blockingGroups.stream().allMatch(size -> size <= REQUEST_THREADS),
+                "Blocking groups " + blockingGroups);
+        assertTrue(asyncGroups.stream().anyMatch(size -> size > REQUEST_THREADS),
+                "Asynchronous groups " + asyncGroups);
+        assertTrue(asyncGroups.size() < blockingGroups.size(),
+                asyncGroups.size() + " asynchronous commits, " + blockingGroups.size() + " blocking commits");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void createOrder_withAsynchronousResponses_servesMoreOrdersWithTheSameRequestThreads() throws Exception {
+        // Act
+        long blockingNanos = run(true);
+        long asyncNanos = run(false);
+
+        // Assert
+        double blockingThroughput = ORDERS / (blockingNanos / 1e9);
+        double asyncThroughput = ORDERS / (asyncNanos / 1e9);
+        assertTrue(asyncThroughput > 3 * blockingThroughput,
+                "Asynchronous " + asyncThroughput + " orders/s, blocking " + blockingThroughput + " orders/s");
+    }
+
+    /**
+     * Creates {@link #ORDERS} orders through the request threads and returns how long it took until all were created.
+     *
+     * @param waitForResponse whether each request thread waits for its response before taking the next request
+     */
+    private long run(boolean waitForResponse) throws Exception {
+        Order order = Order.builder().items(List.of(itemOf(1L, 1))).build();
+        List<CompletableFuture<ResponseEntity<AppResponse<OrderDTO>>>> responses = new ArrayList<>(ORDERS);
+        List<Future<?>> requests = new ArrayList<>(ORDERS);
+        long start = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            CompletableFuture<ResponseEntity<AppResponse<OrderDTO>>> response = new CompletableFuture<>();
+            responses.add(response);
+            requests.add(requestThreads.submit(() -> {
+                CompletableFuture<ResponseEntity<AppResponse<OrderDTO>>> result = orderController.createOrder(order, authentication);
+                if (waitForResponse) {
+                    result.join();
+                }
+                result.whenComplete((value, error) -> response.complete(value));
+            }));
+        }
+        for (Future<?> request : requests) {
+            request.get(60, TimeUnit.SECONDS);
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+        responses.forEach(response -> assertEquals(HttpStatus.OK, response.join().getStatusCode()));
+        return elapsed;
+    }
+}
@@ -0,0 +1,33 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderMapper;
+import com.aspiresys.fp_micro_orderservice.order.outbox.OrderOutbox;
+import com.aspiresys.fp_micro_orderservice.product.ProductCatalog;
+import com.aspiresys.fp_micro_orderservice.product.ProductCatalogState;
+import com.aspiresys.fp_micro_orderservice.product.ProductServiceImpl;
+import com.aspiresys.fp_micro_orderservice.product.ProductSyncService;
+import com.aspiresys.fp_micro_orderservice.product.StockLedger;
+import com.aspiresys.fp_micro_orderservice.product.StockReservationService;
+import com.aspiresys.fp_micro_orderservice.user.UserCache;
+import com.aspiresys.fp_micro_orderservice.user.UserServiceImpl;
+import com.aspiresys.fp_micro_orderservice.user.UserSyncService;
+
+/**
+ * The services that take part in an order write, for {@code @DataJpaTest} slices that create, update or delete
+ * orders through {@link OrderService}. A new collaborator of the write path is added here once.
+ *
+ * @author bruno.gil
+ */
+@TestConfiguration
+@Import({OrderServiceImpl.class, OrderValidationService.class, OrderPageLimits.class, UserOrdersCache.class,
+        UserCache.class, UserServiceImpl.class, UserSyncService.class, ProductServiceImpl.class,
+        ProductSyncService.class, ProductCatalog.class, ProductCatalogState.class, StockReservationService.class,
+        StockLedger.class, OrderOutbox.class, OrderMapper.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class OrderWriteTestConfig {
+}
@@ -0,0 +1,95 @@
+package com.aspiresys.fp_micro_orderservice.order;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.aspiresys.fp_micro_orderservice.common.dto.CursorPage;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that the cached first page is only served for the orders version it was loaded for, so a write made on
+ * another instance, which bumps the version without evicting this cache, is seen on the next read.
+ *
+ * @author bruno.gil
+ */
+class UserOrdersCacheTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFirstPage_reloadsOnlyWhenTheVersionChanges() {
+        // Arrange
+        UserOrdersCache cache = new UserOrdersCache(100, Duration.ofMinutes(5), mock(ObjectProvider.class));
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        CursorPage<OrderDTO> first = cache.getFirstPage(7L, 12L, id -> page(loads.incrementAndGet()));
+        CursorPage<OrderDTO> repeated = cache.getFirstPage(7L, 12L, id -> page(loads.incrementAndGet()));
+        CursorPage<OrderDTO> afterRemoteWrite = cache.getFirstPage(7L, 13L, id -> page(loads.incrementAndGet()));
+
+        // Assert
+        assertSame(first, repeated);
+        assertNotSame(first, afterRemoteWrite);
+        assertEquals(2L, afterRemoteWrite.getContent().get(0).getId());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFirstPage_whenTheVersionChanged_countsAMissNotAHit() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            ((Consumer<MeterRegistry>) invocation.getArgument(0)).accept(registry);
+            return null;
+        }).when(meterRegistry).ifAvailable(any());
+        UserOrdersCache cache = new UserOrdersCache(100, Duration.ofMinutes(5), meterRegistry);
+
+        // Act
+        cache.getFirstPage(7L, 12L, id -> page(1));
+        cache.getFirstPage(7L, 12L, id -> page(1));
+        cache.getFirstPage(7L, 13L, id -> page(2));
+
+        // Assert
+        assertEquals(1, gets(registry, "hit"));
+        assertEquals(2, gets(registry, "miss"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFirstPage_loadsWithoutHoldingTheCacheLock() {
+        // Arrange
+        UserOrdersCache cache = new UserOrdersCache(100, Duration.ofMinutes(5), mock(ObjectProvider.class));
+        cache.getFirstPage(7L, 12L, id -> page(1));
+
+        // Act: a write of the same user commits while the page is being loaded
+        CursorPage<OrderDTO> reloaded = cache.getFirstPage(7L, 13L, id -> {
+            cache.evict(id);
+            return page(2);
+        });
+
+        // Assert
+        assertEquals(2L, reloaded.getContent().get(0).getId());
+        assertSame(reloaded, cache.getFirstPage(7L, 13L, id -> page(3)));
+    }
+
+    private static double gets(MeterRegistry registry, String result) {
+        return registry.get("cache.gets").tag("cache", UserOrdersCache.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+
+    private static CursorPage<OrderDTO> page(long orderId) {
+        return new CursorPage<>(List.of(OrderDTO.builder().id(orderId).build()), null);
+    }
+}
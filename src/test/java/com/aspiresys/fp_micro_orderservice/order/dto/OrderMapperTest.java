@@ -0,0 +1,63 @@
+package com.aspiresys.fp_micro_orderservice.order.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class OrderMapperTest {
+
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    @Test
+    void toDTOListFromRows_groupsRowsByOrderAndComputesTotals() {
+        // Arrange
+        LocalDateTime newer = LocalDateTime.of(2025, 5, 2, 10, 0);
+        LocalDateTime older = LocalDateTime.of(2025, 5, 1, 10, 0);
+        List<OrderItemRow> rows = Arrays.asList(
+            new OrderItemRow(2L, newer, "a@test.com", null, null, 0L, 20L, 100L, "Phone", 300.0, "Electronics", "img1", 2),
+            new OrderItemRow(2L, newer, "a@test.com", null, null, 0L, 21L, 101L, "Case", 10.0, "Accessories", "img2", 3),
+            new OrderItemRow(1L, older, "a@test.com", null, null, 0L, null, null, null, null, null, null, null)
+        );
+
+        // Act
+        List<OrderDTO> orders = orderMapper.toDTOListFromRows(rows);
+
+        // Assert
+        assertEquals(2, orders.size());
+        OrderDTO first = orders.get(0);
+        assertEquals(2L, first.getId());
+        assertEquals("a@test.com", first.getUserEmail());
+        assertEquals(2, first.getItems().size());
+        assertEquals(600.0, first.getItems().get(0).getSubtotal());
+        assertEquals(630.0, first.getTotal());
+        assertEquals(5, first.getItemCount());
+
+        OrderDTO second = orders.get(1);
+        assertEquals(1L, second.getId());
+        assertTrue(second.getItems().isEmpty());
+        assertEquals(0.0, second.getTotal());
+    }
+
+    @Test
+    void toDTOListFromRows_usesStoredTotalAndSnapshotPrice() {
+        // Arrange: the product now costs more, the item keeps the price it was bought at
+        LocalDateTime createdAt = LocalDateTime.of(2025, 5, 2, 10, 0);
+        List<OrderItemRow> rows = Arrays.asList(
+            new OrderItemRow(3L, createdAt, "a@test.com", 250.0, 2, 3L, 30L, 100L, "Phone", 125.0, "Electronics", "img1", 2)
+        );
+
+        // Act
+        OrderDTO order = orderMapper.toDTOListFromRows(rows).get(0);
+
+        // Assert
+        assertEquals(250.0, order.getTotal());
+        assertEquals(2, order.getItemCount());
+        assertEquals(3L, order.getVersion());
+        assertEquals(125.0, order.getItems().get(0).getProductPrice());
+        assertEquals(250.0, order.getItems().get(0).getSubtotal());
+    }
+}
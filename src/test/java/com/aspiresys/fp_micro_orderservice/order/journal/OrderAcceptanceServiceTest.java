@@ -0,0 +1,110 @@
+package com.aspiresys.fp_micro_orderservice.order.journal;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.aspiresys.fp_micro_orderservice.common.id.SnowflakeIdGenerator;
+import com.aspiresys.fp_micro_orderservice.order.OrderRepository;
+import com.aspiresys.fp_micro_orderservice.order.OrderValidationService;
+import com.aspiresys.fp_micro_orderservice.order.dto.OrderAcceptanceStatus;
+import com.aspiresys.fp_micro_orderservice.user.CachedUser;
+import com.aspiresys.fp_micro_orderservice.user.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Checks that an order the database keeps refusing is rejected after the configured attempts, while the orders
+ * journaled with it are stored.
+ *
+ * @author bruno.gil
+ */
+class OrderAcceptanceServiceTest {
+    private static final CachedUser GOOD = new CachedUser(1L, "good@test.com", "Good", null);
+    private static final CachedUser BAD = new CachedUser(2L, "bad@test.com", "Bad", null);
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private AcceptedOrderWriter writer;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private OrderValidationService orderValidationService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderAcceptanceService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(userService.getCachedUserByEmail(GOOD.getEmail())).thenReturn(GOOD);
+        when(userService.getCachedUserByEmail(BAD.getEmail())).thenReturn(BAD);
+        when(orderRepository.findUserIdById(anyLong())).thenReturn(Optional.of(GOOD.getId()));
+        // Any batch holding an order of the bad user fails, as a record the database cannot take would
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<AcceptedOrder> orders = invocation.getArgument(0);
+            if (orders.stream().anyMatch(order -> order.getEmail().equals(BAD.getEmail()))) {
+                throw new IllegalStateException("Cannot store the order");
+            }
+            return new AcceptedOrderWriter.Result(List.of(), Map.of());
+        });
+        service = new OrderAcceptanceService(writer, userService, orderValidationService, orderRepository,
+                new SnowflakeIdGenerator(1), new ObjectMapper().findAndRegisterModules(), true,
+                directory.toString(), 1 << 16, 10, Duration.ofMillis(10), Duration.ofMillis(10), 2,
+                Duration.ofHours(1));
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.stop();
+    }
+
+    @Test
+    void drain_whenAnOrderKeepsFailing_rejectsItAndStoresTheOthers() throws Exception {
+        // Act
+        Long before = service.accept(GOOD.getEmail(), List.of(itemOf(1L, 1))).getOrderId();
+        Long bad = service.accept(BAD.getEmail(), List.of(itemOf(1L, 1))).getOrderId();
+        Long after = service.accept(GOOD.getEmail(), List.of(itemOf(1L, 1))).getOrderId();
+
+        // Assert
+        assertEquals(OrderAcceptanceStatus.Status.REJECTED, awaitStatus(bad, BAD).getStatus());
+        assertEquals(OrderAcceptanceStatus.Status.CREATED, awaitStatus(before, GOOD).getStatus());
+        assertEquals(OrderAcceptanceStatus.Status.CREATED, awaitStatus(after, GOOD).getStatus());
+    }
+
+    /**
+     * Waits until an order is no longer pending.
+     */
+    private OrderAcceptanceStatus awaitStatus(Long orderId, CachedUser user) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            OrderAcceptanceStatus status = service.status(orderId, user).orElseThrow();
+            if (status.getStatus() != OrderAcceptanceStatus.Status.ACCEPTED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        fail("Order " + orderId + " was still pending");
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.aspiresys.fp_micro_orderservice.order.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the order journal only exposes durable records, survives a reopen and recovers from torn writes.
+ *
+ * @author bruno.gil
+ */
+class OrderJournalTest {
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_returnsRecordsOnlyAfterTheyAreDurable() throws IOException {
+        try (OrderJournal journal = new OrderJournal(directory, SEGMENT_SIZE)) {
+            // Arrange
+            long end = journal.append(bytes("first"));
+
+            // Act & Assert
+            assertTrue(journal.read(journal.acknowledged(), 10).isEmpty());
+            journal.awaitDurable(end);
+            List<OrderJournal.Entry> entries = journal.read(journal.acknowledged(), 10);
+            assertEquals(1, entries.size());
+            assertEquals("first", text(entries.get(0)));
+            assertEquals(end, entries.get(0).end());
+        }
+    }
+
+    @Test
+    void reopen_replaysRecordsAfterTheCheckpointAcrossSegments() throws IOException {
+        // Arrange: 20-byte records, three per 64-byte segment
+        try (OrderJournal journal = new OrderJournal(directory, SEGMENT_SIZE)) {
+            long end = 0;
+            for (int i = 0; i < 7; i++) {
+                end = journal.append(bytes("order-" + i + "-xxxx"));
+            }
+            journal.awaitDurable(end);
+            List<OrderJournal.Entry> stored = journal.read(journal.acknowledged(), 4);
+            journal.acknowledge(stored.get(3).end());
+        }
+
+        // Act
+        try (OrderJournal journal = new OrderJournal(directory, SEGMENT_SIZE)) {
+            List<OrderJournal.Entry> entries = journal.read(journal.acknowledged(), 10);
+
+            // Assert: the acknowledged records and the first segment are gone
+            assertEquals(List.of("order-4-xxxx", "order-5-xxxx", "order-6-xxxx"), entries.stream().map(OrderJournalTest::text).toList());
+            assertEquals(2, segmentCount());
+        }
+    }
+
+    @Test
+    void reopen_discardsATornRecordAndKeepsAppending() throws IOException {
+        // Arrange
+        long second;
+        try (OrderJournal journal = new OrderJournal(directory, SEGMENT_SIZE)) {
+            journal.append(bytes("kept"));
+            second = journal.append(bytes("torn"));
+            journal.awaitDurable(second);
+        }
+        try (RandomAccessFile segment = new RandomAccessFile(segmentFiles().get(0).toFile(), "rw")) {
+            segment.seek(OrderJournal.offsetOf(second) - 1);
+            segment.write('X');
+        }
+
+        // Act
+        try (OrderJournal journal = new OrderJournal(directory, SEGMENT_SIZE)) {
+            journal.awaitDurable(journal.append(bytes("next")));
+            List<OrderJournal.Entry> entries = journal.read(journal.acknowledged(), 10);
+
+            // Assert
+            assertEquals(List.of("kept", "next"), entries.stream().map(OrderJournalTest::text).toList());
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        return segmentFiles().size();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(OrderJournal.SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(OrderJournal.Entry entry) {
+        return new String(entry.payload(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,222 @@
+package com.aspiresys.fp_micro_orderservice.order.outbox;
+
+import static com.aspiresys.fp_micro_orderservice.order.OrderTestFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aspiresys.fp_micro_orderservice.kafka.config.KafkaProducerConfig;
+import com.aspiresys.fp_micro_orderservice.kafka.dto.OrderEventMessage;
+import com.aspiresys.fp_micro_orderservice.order.Order;
+import com.aspiresys.fp_micro_orderservice.order.OrderRepository;
+import com.aspiresys.fp_micro_orderservice.order.OrderService;
+import com.aspiresys.fp_micro_orderservice.order.OrderWriteTestConfig;
+import com.aspiresys.fp_micro_orderservice.product.InsufficientStockException;
+import com.aspiresys.fp_micro_orderservice.product.ProductRepository;
+import com.aspiresys.fp_micro_orderservice.user.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Commits order changes and checks that the relay publishes exactly those changes to an embedded Kafka broker,
+ * in order per order, and empties the outbox, also while a second instance relays the same outbox.
+ *
+ * @author bruno.gil
+ */
+@DataJpaTest(properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "order.outbox.relay.enabled=true",
+    "order.outbox.topic=" + OrderOutboxRelayTest.TOPIC,
+    "order.outbox.batch-size=2",
+    "order.outbox.poll-interval=PT0.05S",
+    "order.outbox.producer.linger-ms=5"
+})
+@EmbeddedKafka(partitions = 1, topics = OrderOutboxRelayTest.TOPIC)
+@ActiveProfiles("test")
+@Import({OrderWriteTestConfig.class, OrderOutboxRelay.class, KafkaProducerConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderOutboxRelayTest {
+    static final String TOPIC = "order-events-test";
+    private static final String EMAIL = "outbox@test.com";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+
+    @Autowired
+    private OrderOutboxRelayLockRepository lockRepository;
+
+    @Autowired
+    @Qualifier("orderEventKafkaTemplate")
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(user(1L, EMAIL));
+        productRepository.save(product(1L, 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        outboxRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void relay_publishesCommittedChangesInOrderAndEmptiesTheOutbox() throws Exception {
+        // Arrange
+        Order order = orderService.create(EMAIL, List.of(itemOf(1L, 2)));
+        orderService.updateItems(1L, order.getId(), order.getVersion(), List.of(itemOf(1L, 3)));
+        orderService.deleteByIdAndUserId(order.getId(), 1L);
+        Order other = orderService.create(EMAIL, List.of(itemOf(1L, 1)));
+
+        // Act
+        List<ConsumerRecord<String, String>> records =
+                consume("outbox-order", List.of(order.getId(), other.getId()), 4);
+
+        // Assert
+        assertEquals(4, records.size());
+        assertEquals(List.of("ORDER_CREATED", "ORDER_UPDATED", "ORDER_DELETED", "ORDER_CREATED"),
+                records.stream().map(OrderOutboxRelayTest::eventType).toList());
+        assertEquals(List.of(order.getId(), order.getId(), order.getId(), other.getId()),
+                records.stream().map(record -> Long.valueOf(record.key())).toList());
+
+        OrderEventMessage updated = objectMapper.readValue(records.get(1).value(), OrderEventMessage.class);
+        assertEquals(1L, updated.getUserId());
+        assertEquals(order.getVersion() + 1, updated.getOrder().getVersion());
+        assertEquals(3, updated.getOrder().getItems().get(0).getQuantity());
+        OrderEventMessage deleted = objectMapper.readValue(records.get(2).value(), OrderEventMessage.class);
+        assertNull(deleted.getOrder());
+
+        assertOutboxEmptied();
+    }
+
+    @Test
+    void relay_withTwoInstances_publishesTheEventsOfEachOrderInOrder() throws Exception {
+        // Arrange: a second relay polling the same outbox, as on another instance
+        OrderOutboxRelay secondRelay = new OrderOutboxRelay(outboxRepository, lockRepository, kafkaTemplate,
+                transactionManager, true, TOPIC, 2, Duration.ofMillis(1), Duration.ofMinutes(1),
+                Duration.ofSeconds(1));
+        secondRelay.start();
+        List<Long> orderIds = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                Order order = orderService.create(EMAIL, List.of(itemOf(1L, 1)));
+                orderIds.add(order.getId());
+                long version = order.getVersion();
+                for (int quantity = 2; quantity <= 4; quantity++) {
+                    version = orderService.updateItems(1L, order.getId(), version, List.of(itemOf(1L, quantity)))
+                            .orElseThrow().getVersion();
+                }
+            }
+
+            // Act
+            List<ConsumerRecord<String, String>> records = consume("outbox-two-relays", orderIds, 12);
+            assertOutboxEmptied();
+
+            // Assert
+            Map<Long, List<Integer>> quantitiesByOrder = new LinkedHashMap<>();
+            for (ConsumerRecord<String, String> record : records) {
+                OrderEventMessage event = objectMapper.readValue(record.value(), OrderEventMessage.class);
+                quantitiesByOrder.computeIfAbsent(Long.valueOf(record.key()), id -> new ArrayList<>())
+                        .add(event.getOrder().getItems().get(0).getQuantity());
+            }
+            for (Long orderId : orderIds) {
+                assertEquals(List.of(1, 2, 3, 4), quantitiesByOrder.get(orderId), "Events of order " + orderId);
+            }
+        } finally {
+            secondRelay.stop();
+        }
+    }
+
+    @Test
+    void create_whenRolledBack_recordsNoEvent() {
+        // Act
+        assertThrows(InsufficientStockException.class, () -> orderService.create(EMAIL, List.of(itemOf(1L, 101))));
+
+        // Assert
+        assertEquals(0, outboxRepository.count());
+    }
+
+    /**
+     * Reads the records of the given orders until at least {@code minRecords} arrived. The topic is shared by the
+     * tests, so records of other orders are skipped.
+     */
+    private List<ConsumerRecord<String, String>> consume(String group, Collection<Long> orderIds, int minRecords) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(group, "false", embeddedKafka);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+            List<ConsumerRecord<String, String>> records = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (records.size() < minRecords && System.currentTimeMillis() < deadline) {
+                KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(1)).forEach(record -> {
+                    if (orderIds.contains(Long.valueOf(record.key()))) {
+                        records.add(record);
+                    }
+                });
+            }
+            return records;
+        }
+    }
+
+    private void assertOutboxEmptied() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (outboxRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, outboxRepository.count());
+    }
+
+    private static String eventType(ConsumerRecord<String, String> record) {
+        return new String(record.headers().lastHeader(OrderOutboxRelay.EVENT_TYPE_HEADER).value(),
+                StandardCharsets.UTF_8);
+    }
+}
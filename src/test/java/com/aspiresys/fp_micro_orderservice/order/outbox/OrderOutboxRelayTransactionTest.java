@@ -0,0 +1,108 @@
+package com.aspiresys.fp_micro_orderservice.order.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * Checks that the relay keeps no transaction open while Kafka acknowledges a batch, so a slow broker cannot hold
+ * locks that order writes wait for, and that it only publishes while it holds the lease.
+ *
+ * @author bruno.gil
+ */
+class OrderOutboxRelayTransactionTest {
+
+    @Mock
+    private OrderOutboxRepository outboxRepository;
+
+    @Mock
+    private OrderOutboxRelayLockRepository lockRepository;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger openTransactions = new AtomicInteger();
+    private OrderOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            openTransactions.incrementAndGet();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(invocation -> openTransactions.decrementAndGet()).when(transactionManager).commit(any());
+        doAnswer(invocation -> openTransactions.decrementAndGet()).when(transactionManager).rollback(any());
+        relay = new OrderOutboxRelay(outboxRepository, lockRepository, kafkaTemplate, transactionManager, false,
+                "order-events", 10, Duration.ofMillis(100), Duration.ofSeconds(5), Duration.ofSeconds(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishBatch_sendsWithoutAnOpenTransactionAndThenDeletesTheSentEvents() {
+        // Arrange
+        when(lockRepository.acquire(eq(OrderOutboxRelayLock.ID), anyString(), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(outboxRepository.findNextBatch(any())).thenReturn(List.of(event(1L, 10L), event(2L, 20L)));
+        List<Integer> transactionsDuringSend = new ArrayList<>();
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, String>>any())).thenAnswer(invocation -> {
+            transactionsDuringSend.add(openTransactions.get());
+            return CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        // Act
+        int published = relay.publishBatch();
+
+        // Assert
+        assertEquals(2, published);
+        assertEquals(List.of(0, 0), transactionsDuringSend);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        assertEquals(0, openTransactions.get());
+    }
+
+    @Test
+    void publishBatch_whenAnotherRelayHoldsTheLease_publishesNothing() {
+        // Arrange
+        when(lockRepository.acquire(eq(OrderOutboxRelayLock.ID), anyString(), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(0);
+
+        // Act
+        int published = relay.publishBatch();
+
+        // Assert
+        assertEquals(0, published);
+        verify(outboxRepository, never()).findNextBatch(any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static OrderOutboxEvent event(Long id, Long orderId) {
+        return OrderOutboxEvent.builder()
+                .id(id)
+                .orderId(orderId)
+                .eventType(OrderOutboxEvent.Type.ORDER_CREATED)
+                .payload("{}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares the heap retained by one million products in the {@link ProductCatalog} and in a
+ * {@code HashMap<Long, Product>} of entities, with distinct names, 100 categories and 50 brands. Like entities read
+ * from the database, every product holds its own category and brand strings; the catalog keeps each value once.
+ * It needs a few hundred megabytes of heap, so it only runs with {@code -Dbenchmark=true}.
+ *
+ * @author bruno.gil
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductCatalogFootprintTest {
+    private static final int PRODUCTS = 1_000_000;
+
+    @Test
+    void catalog_retainsLessHeapThanAMapOfEntities() throws InterruptedException {
+        // Act
+        long mapBytes = retainedBytes(() -> {
+            Map<Long, Product> products = new HashMap<>();
+            for (int i = 1; i <= PRODUCTS; i++) {
+                products.put((long) i, product(i));
+            }
+            return products;
+        });
+        long catalogBytes = retainedBytes(() -> {
+            ProductRepository productRepository = mock(ProductRepository.class);
+            when(productRepository.findByIdGreaterThanOrderByIdAsc(any(), any())).thenReturn(List.of());
+            ProductCatalog catalog = new ProductCatalog(productRepository, Duration.ofHours(1), 10_000);
+            for (int i = 1; i <= PRODUCTS; i++) {
+                catalog.putAfterCommit(product(i));
+            }
+            catalog.publish();
+            return catalog.snapshot();
+        });
+
+        // Assert
+        assertTrue(catalogBytes < mapBytes / 2, String.format(
+                "Heap retained by %,d products: ProductCatalog %,d bytes, HashMap<Long, Product> %,d bytes",
+                PRODUCTS, catalogBytes, mapBytes));
+    }
+
+    /**
+     * Returns how much the used heap grew while the built structure is still reachable.
+     */
+    private static long retainedBytes(Supplier<Object> builder) throws InterruptedException {
+        long before = usedHeap();
+        Object built = builder.get();
+        long after = usedHeap();
+        assertNotNull(built);
+        return after - before;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Product product(int id) {
+        return ProductCatalogTest.product((long) id, id % 500, 10.0 + id % 1000, "Product " + id,
+                "Category " + id % 100, "Brand " + id % 50);
+    }
+}
@@ -0,0 +1,96 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+
+/**
+ * Checks the transitions of the product catalog readiness and how the health indicator reports them.
+ *
+ * @author bruno.gil
+ */
+class ProductCatalogStateTest {
+    private static final String TOPIC = "product";
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private ProductCatalogState state;
+    private ProductCatalogHealthIndicator healthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        state = new ProductCatalogState(productCatalog, TOPIC);
+        healthIndicator = new ProductCatalogHealthIndicator(state);
+    }
+
+    @Test
+    void recordLag_whenConsumerReachesTheEnd_completesTheInitialLoad() {
+        // Arrange
+        when(productCatalog.size()).thenReturn(0);
+        state.loadStoredCatalog();
+
+        // Act & Assert
+        assertFalse(state.isReady());
+        assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus());
+
+        state.recordLag(-1);
+        state.recordLag(120);
+        assertFalse(state.isReady());
+
+        state.recordLag(0);
+        assertTrue(state.isReady());
+        assertTrue(state.isCaughtUp());
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+
+        // Falling behind again keeps the catalog loaded
+        state.recordLag(5);
+        assertTrue(state.isReady());
+        assertFalse(state.isCaughtUp());
+        assertEquals(5L, healthIndicator.health().getDetails().get("lag"));
+    }
+
+    @Test
+    void loadStoredCatalog_whenProductsAreStored_isReadyBeforeCatchingUp() {
+        // Arrange
+        when(productCatalog.size()).thenReturn(42);
+
+        // Act
+        state.loadStoredCatalog();
+
+        // Assert
+        assertTrue(state.isReady());
+        assertFalse(state.isCaughtUp());
+    }
+
+    @Test
+    void onListenerContainerIdle_onlyCountsTheProductTopic() {
+        // Arrange
+        when(productCatalog.size()).thenReturn(0);
+        state.loadStoredCatalog();
+
+        // Act & Assert
+        state.onListenerContainerIdle(idleOn(new TopicPartition("user", 0)));
+        assertFalse(state.isReady());
+
+        state.onListenerContainerIdle(idleOn(new TopicPartition(TOPIC, 0), new TopicPartition(TOPIC, 1)));
+        assertTrue(state.isReady());
+        assertTrue(state.isCaughtUp());
+    }
+
+    private static ListenerContainerIdleEvent idleOn(TopicPartition... partitions) {
+        ListenerContainerIdleEvent event = mock(ListenerContainerIdleEvent.class);
+        when(event.getTopicPartitions()).thenReturn(List.of(partitions));
+        return event;
+    }
+}
@@ -0,0 +1,136 @@
+package com.aspiresys.fp_micro_orderservice.product;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Checks the lookups of the product catalog and how changes are published to new snapshots.
+ *
+ * @author bruno.gil
+ */
+class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Stored products come in pages of two: the second page is full, so a third one is read
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any()))
+                .thenReturn(List.of(product(1L, 10, 99.0, "Phone", "Mobile", "Acme"),
+                        product(2L, 5, 15.5, "Case", "Accessories", "Acme")));
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any()))
+                .thenReturn(List.of(product(3L, 0, 20.0, "Charger", "Accessories", null),
+                        product(4L, 7, 5.0, "Cable", "Accessories", "Other")));
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(4L), any())).thenReturn(List.of());
+        // A long interval keeps the publisher thread out of the way; the test publishes itself
+        catalog = new ProductCatalog(productRepository, Duration.ofHours(1), 2);
+        catalog.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        catalog.stop();
+    }
+
+    @Test
+    void start_loadsStoredProducts() {
+        // Act
+        ProductCatalog.Snapshot snapshot = catalog.snapshot();
+
+        // Assert
+        assertEquals(4, snapshot.size());
+        int slot = snapshot.slotOf(2L);
+        assertEquals(2L, snapshot.id(slot));
+        assertEquals(5, snapshot.stock(slot));
+        assertEquals(15.5, snapshot.price(slot));
+        assertEquals("Case", snapshot.name(slot));
+        assertEquals("Accessories", snapshot.category(slot));
+        assertEquals("Acme", snapshot.brand(slot));
+        assertNull(snapshot.brand(snapshot.slotOf(3L)));
+        assertEquals(-1, snapshot.slotOf(5L));
+        verify(productRepository, times(3)).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
+    @Test
+    void publish_whenOnlyExistingProductsChanged_keepsTheOldSnapshotIntact() {
+        // Arrange
+        ProductCatalog.Snapshot before = catalog.snapshot();
+        catalog.putAfterCommit(product(1L, 3, 89.0, "Phone", "Mobile", "Acme"));
+
+        // Act
+        catalog.publish();
+
+        // Assert
+        ProductCatalog.Snapshot after = catalog.snapshot();
+        assertEquals(3, after.stock(after.slotOf(1L)));
+        assertEquals(89.0, after.price(after.slotOf(1L)));
+        assertEquals(10, before.stock(before.slotOf(1L)));
+        assertEquals(99.0, before.price(before.slotOf(1L)));
+        assertEquals(4, after.size());
+    }
+
+    @Test
+    void publish_addsAndRemovesProducts() {
+        // Arrange
+        catalog.removeAfterCommit(2L);
+        catalog.putAfterCommit(product(9L, 1, 1.0, "Sticker", "Gifts", "Acme"));
+        assertFalse(catalog.snapshot().contains(9L));
+
+        // Act
+        catalog.publish();
+
+        // Assert
+        ProductCatalog.Snapshot snapshot = catalog.snapshot();
+        assertEquals(4, snapshot.size());
+        assertFalse(snapshot.contains(2L));
+        assertEquals("Gifts", snapshot.category(snapshot.slotOf(9L)));
+        assertEquals("Phone", snapshot.name(snapshot.slotOf(1L)));
+        assertEquals("Cable", snapshot.name(snapshot.slotOf(4L)));
+    }
+
+    @Test
+    void snapshot_findsEveryProductOfALargeCatalog() {
+        // Arrange
+        for (long id = 1; id <= 10_000; id++) {
+            catalog.putAfterCommit(product(id * 7919, (int) id, id, "Product " + id, "Category " + id % 10, null));
+        }
+
+        // Act
+        catalog.publish();
+
+        // Assert
+        ProductCatalog.Snapshot snapshot = catalog.snapshot();
+        for (long id = 1; id <= 10_000; id++) {
+            int slot = snapshot.slotOf(id * 7919);
+            assertTrue(slot >= 0, "Product " + id * 7919 + " not found");
+            assertEquals(id, snapshot.stock(slot));
+            assertEquals("Category " + id % 10, snapshot.category(slot));
+        }
+        assertEquals(-1, snapshot.slotOf(7920L));
+    }
+
+    static Product product(Long id, int stock, double price, String name, String category, String brand) {
+        Product product = new Product();
+        product.setId(id);
+        product.setStock(stock);
+        product.setPrice(price);
+        product.setName(name);
+        product.setCategory(category);
+        product.setBrand(brand);
+        return product;
+    }
+}
@@ -0,0 +1,79 @@
+package com.aspiresys.fp_micro_orderservice.schema;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Migrates a database created by the release before Flyway, with some orders in it, the way production does it:
+ * the schema is baselined at V1 and every later migration runs on top of the original tables.
+ *
+ * @author bruno.gil
+ */
+class PreSeriesSchemaMigrationTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:pre_series;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/pre-series/h2_schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into users (id, email, first_name) values (1, 'legacy@test.com', 'Legacy')");
+        jdbcTemplate.update("insert into products (id, stock, name, price, category) values (10, 5, 'Phone', 250.0, 'Mobile')");
+        jdbcTemplate.update("insert into orders (id, created_at, user_id) values (100, timestamp '2024-01-01 10:00:00', 1)");
+        jdbcTemplate.update("insert into items (id, quantity, order_id, product_id) values (1000, 2, 100, 10)");
+        jdbcTemplate.update("insert into orders (id, created_at, user_id) values (101, null, 1)");
+
+        // Same settings as application.properties
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    @Test
+    void migrate_baselinesAtV1AndAppliesEveryLaterVersion() {
+        List<String> versions = jdbcTemplate.queryForList(
+                "select \"version\" from \"flyway_schema_history\" where \"success\" order by \"installed_rank\"",
+                String.class);
+        assertEquals(List.of("1", "2", "2.1", "3", "4", "5", "6", "7", "8"), versions);
+    }
+
+    @Test
+    void migrate_backfillsTheSnapshotsOfLegacyOrders() {
+        assertEquals(250.0, jdbcTemplate.queryForObject("select unit_price from items where id = 1000", Double.class));
+        assertEquals("Phone", jdbcTemplate.queryForObject("select product_name from items where id = 1000", String.class));
+        assertEquals(500.0, jdbcTemplate.queryForObject("select total from orders where id = 100", Double.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select item_count from orders where id = 100", Integer.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("select version from orders where id = 100", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("select orders_version from users where id = 1", Long.class));
+    }
+
+    @Test
+    void migrate_datesLegacyOrdersWithoutCreationDate() {
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0),
+                jdbcTemplate.queryForObject("select created_at from orders where id = 101", LocalDateTime.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from orders where created_at is null", Integer.class));
+    }
+
+    @Test
+    void migrate_createsTheOutboxAndItsRelayLock() {
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from order_outbox", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from order_outbox_relay_lock", Integer.class));
+    }
+}
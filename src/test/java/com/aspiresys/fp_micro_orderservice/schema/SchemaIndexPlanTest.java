@@ -0,0 +1,86 @@
+package com.aspiresys.fp_micro_orderservice.schema;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Applies the H2 migrations and checks that the queries on the hot paths are planned on their
+ * indexes, so dropping or reshaping an index makes the build fail instead of slowing production.
+ *
+ * @author bruno.gil
+ */
+class SchemaIndexPlanTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:schema_plans;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void findUserByEmail_usesUniqueEmailIndex() {
+        assertPlannedOn("UX_USERS_EMAIL",
+                "select id, first_name, last_name, email, address from users where email = 'user@test.com'");
+    }
+
+    @Test
+    void firstPageOfUserOrders_usesUserCreatedIndex() {
+        assertPlannedOn("IDX_ORDERS_USER_CREATED",
+                "select id from orders where user_id = 1 order by created_at desc, id desc fetch first 21 rows only");
+    }
+
+    @Test
+    void nextPageOfUserOrders_usesUserCreatedIndex() {
+        assertPlannedOn("IDX_ORDERS_USER_CREATED",
+                "select id from orders where user_id = 1 "
+                        + "and (created_at < timestamp '2025-05-01 10:00:00' "
+                        + "or (created_at = timestamp '2025-05-01 10:00:00' and id < 100)) "
+                        + "order by created_at desc, id desc fetch first 21 rows only");
+    }
+
+    @Test
+    void itemsOfOrders_useOrderIndex() {
+        assertPlannedOn("IDX_ITEMS_ORDER", "select id, quantity from items where order_id = 1");
+        assertPlannedOn("IDX_ITEMS_ORDER", "select id, quantity from items where order_id in (1, 2, 3)");
+    }
+
+    @Test
+    void itemsOfProduct_useProductIndex() {
+        assertPlannedOn("IDX_ITEMS_PRODUCT_ORDER", "select id, quantity from items where product_id = 1");
+    }
+
+    @Test
+    void searchByProduct_probesProductOrderIndex() {
+        assertPlannedOn("IDX_ITEMS_PRODUCT_ORDER",
+                "select o.id from orders o where exists "
+                        + "(select 1 from items i where i.order_id = o.id and i.product_id = 42) "
+                        + "order by o.created_at desc, o.id desc fetch first 21 rows only");
+    }
+
+    @Test
+    void searchByCategory_probesCategoryOrderIndex() {
+        assertPlannedOn("IDX_ITEMS_CATEGORY_ORDER",
+                "select o.id from orders o where exists "
+                        + "(select 1 from items i where i.order_id = o.id and i.product_category = 'Electronics') "
+                        + "order by o.created_at desc, o.id desc fetch first 21 rows only");
+    }
+
+    private static void assertPlannedOn(String index, String sql) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertNotNull(plan);
+        assertTrue(plan.toUpperCase().contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+}
@@ -0,0 +1,99 @@
+package com.aspiresys.fp_micro_orderservice.user;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that user lookups by email are answered from the cache, that changes from the user topic replace or evict
+ * the entries, and that the cache publishes its metrics.
+ *
+ * @author bruno.gil
+ */
+class UserCacheTest {
+    private static final String EMAIL = "test@example.com";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private MeterRegistry meterRegistry;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        doAnswer(invocation -> {
+            ((Consumer<MeterRegistry>) invocation.getArgument(0)).accept(meterRegistry);
+            return null;
+        }).when(meterRegistryProvider).ifAvailable(any());
+        UserCache userCache = new UserCache(100, Duration.ofHours(1), meterRegistryProvider);
+        userService = new UserServiceImpl(userRepository, userCache);
+    }
+
+    @Test
+    void getCachedUserByEmail_readsTheDatabaseOnlyOnTheFirstLookup() {
+        // Arrange
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user(1L, EMAIL, "Ana")));
+
+        // Act
+        CachedUser first = userService.getCachedUserByEmail(EMAIL);
+        CachedUser second = userService.getCachedUserByEmail(EMAIL);
+
+        // Assert
+        assertEquals(new CachedUser(1L, EMAIL, "Ana", "Gil"), first);
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").tag("cache", UserCache.CACHE_NAME).gauge().value());
+        assertEquals(1.0, meterRegistry.get("cache.size").tag("cache", UserCache.CACHE_NAME).gauge().value());
+    }
+
+    @Test
+    void getCachedUserByEmail_whenUserDoesNotExist_doesNotCacheTheMiss() {
+        // Arrange
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertNull(userService.getCachedUserByEmail(EMAIL));
+        assertNull(userService.getCachedUserByEmail(EMAIL));
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void putAfterCommit_whenEmailChanged_replacesTheUserAndEvictsTheOldEmail() {
+        // Arrange
+        UserCache userCache = new UserCache(100, Duration.ofHours(1), meterRegistryProvider);
+        userCache.get(EMAIL, email -> new CachedUser(1L, email, "Ana", "Gil"));
+
+        // Act: outside a transaction the change is applied right away
+        userCache.putAfterCommit(user(1L, "new@example.com", "Ana María"), EMAIL);
+
+        // Assert
+        assertNull(userCache.get(EMAIL, email -> null));
+        assertEquals("Ana María", userCache.get("new@example.com", email -> null).getFirstName());
+
+        userCache.evictAfterCommit("new@example.com");
+        assertNull(userCache.get("new@example.com", email -> null));
+    }
+
+    private static User user(Long id, String email, String firstName) {
+        return User.builder().id(id).email(email).firstName(firstName).lastName("Gil").build();
+    }
+}
@@ -0,0 +1,11 @@
+-- Schema that Hibernate (ddl-auto=update) generated on H2 from the entities of the release before
+-- Flyway was introduced. Kept apart from db/migration on purpose: it is what production databases
+-- look like when they are baselined at V1, whatever V1 says.
+
+create table users (id bigint not null, address varchar(255), email varchar(255), first_name varchar(255), last_name varchar(255), primary key (id));
+create table products (id bigint not null, stock integer not null, brand varchar(255), category varchar(255), image_url varchar(255), name varchar(255), price float(53), primary key (id));
+create table orders (id bigint generated by default as identity, created_at timestamp(6), user_id bigint, primary key (id));
+create table items (id bigint generated by default as identity, quantity integer not null, order_id bigint, product_id bigint, primary key (id));
+alter table if exists orders add constraint fk_orders_user foreign key (user_id) references users;
+alter table if exists items add constraint fk_items_order foreign key (order_id) references orders;
+alter table if exists items add constraint fk_items_product foreign key (product_id) references products;